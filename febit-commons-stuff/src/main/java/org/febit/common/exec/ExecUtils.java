@@ -22,7 +22,9 @@ import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.launcher.CommandLauncherFactory;
 import org.apache.commons.io.IOUtils;
 import org.febit.lang.io.Lines;
+import org.febit.lang.io.MpscPipe;
 import org.febit.lang.io.MpscPipeImpl;
+import org.febit.lang.io.OverflowPolicy;
 import org.jspecify.annotations.Nullable;
 
 import java.io.File;
@@ -108,11 +110,36 @@ public class ExecUtils {
             return stdout(out).stderr(err);
         }
 
+        /**
+         * Pipe lines to a stream, blocking the child process output when the consumer falls behind.
+         *
+         * @param bufferSize the maximum number of buffered lines, used as is without rounding
+         */
         public Launcher pipeLineStream(
                 Consumer<Stream<String>> sink,
                 int bufferSize
         ) {
-            var pipe = MpscPipeImpl.<String>ofBounded(bufferSize);
+            return pipeLineStream(sink, MpscPipeImpl.ofRingBuffer(bufferSize));
+        }
+
+        /**
+         * Pipe lines to a stream, applying the given policy when the consumer falls behind.
+         * <p>
+         * Non-blocking policies keep the child process running in real-time,
+         * at the cost of dropping or merging lines.
+         */
+        public Launcher pipeLineStream(
+                Consumer<Stream<String>> sink,
+                int bufferSize,
+                OverflowPolicy<String> overflowPolicy
+        ) {
+            return pipeLineStream(sink, MpscPipeImpl.ofBounded(bufferSize, overflowPolicy));
+        }
+
+        private Launcher pipeLineStream(
+                Consumer<Stream<String>> sink,
+                MpscPipe<String> pipe
+        ) {
             handler(process -> () -> sink.accept(pipe.stream()));
             return stdout(pipe.createProducer())
                     .stderr(pipe.createProducer());
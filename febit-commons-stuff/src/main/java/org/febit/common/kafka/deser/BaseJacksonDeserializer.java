@@ -16,12 +16,13 @@
 package org.febit.common.kafka.deser;
 
 import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.febit.lang.jackson.JacksonCodec;
 import org.jspecify.annotations.Nullable;
 import tools.jackson.databind.JavaType;
 
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 
 @RequiredArgsConstructor
 public abstract class BaseJacksonDeserializer<T> implements Deserializer<T> {
@@ -36,7 +37,15 @@ public abstract class BaseJacksonDeserializer<T> implements Deserializer<T> {
         if (data == null || data.length == 0) {
             return null;
         }
-        var str = new String(data, StandardCharsets.UTF_8);
-        return codec.parse(str, getJavaType());
+        return codec.parse(data, 0, data.length, getJavaType());
+    }
+
+    @Nullable
+    @Override
+    public T deserialize(String topic, Headers headers, @Nullable ByteBuffer data) {
+        if (data == null || !data.hasRemaining()) {
+            return null;
+        }
+        return codec.parse(data, getJavaType());
     }
 }
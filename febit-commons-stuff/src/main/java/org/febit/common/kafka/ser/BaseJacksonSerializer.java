@@ -20,8 +20,6 @@ import org.apache.kafka.common.serialization.Serializer;
 import org.febit.lang.jackson.JacksonCodec;
 import org.jspecify.annotations.Nullable;
 
-import java.nio.charset.StandardCharsets;
-
 @RequiredArgsConstructor
 public abstract class BaseJacksonSerializer<T> implements Serializer<T> {
 
@@ -29,7 +27,6 @@ public abstract class BaseJacksonSerializer<T> implements Serializer<T> {
 
     @Override
     public byte[] serialize(String topic, @Nullable T data) {
-        var text = codec.toString(data);
-        return text.getBytes(StandardCharsets.UTF_8);
+        return codec.toBytes(data);
     }
 }
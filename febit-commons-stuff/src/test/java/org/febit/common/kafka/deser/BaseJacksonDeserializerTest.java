@@ -15,11 +15,13 @@
  */
 package org.febit.common.kafka.deser;
 
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.febit.lang.jackson.JacksonCodec;
 import org.febit.lang.jackson.JacksonUtils;
 import org.junit.jupiter.api.Test;
 import tools.jackson.databind.JavaType;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
@@ -74,6 +76,23 @@ class BaseJacksonDeserializerTest {
         assertThat(result).isEqualTo(42);
     }
 
+    @Test
+    void shouldDeserializeByteBuffer() {
+        var deser = new TestDeserializer<>(Integer.class);
+        var headers = new RecordHeaders();
+
+        assertThat(deser.deserialize("topic", headers, (ByteBuffer) null)).isNull();
+        assertThat(deser.deserialize("topic", headers, ByteBuffer.allocate(0))).isNull();
+
+        var heap = ByteBuffer.wrap("[42,43]".getBytes(StandardCharsets.UTF_8), 1, 2);
+        assertThat(deser.deserialize("topic", headers, heap)).isEqualTo(42);
+        assertThat(heap.position()).isEqualTo(1);
+
+        var direct = ByteBuffer.allocateDirect(8).put("43".getBytes(StandardCharsets.UTF_8)).flip();
+        assertThat(deser.deserialize("topic", headers, direct)).isEqualTo(43);
+        assertThat(direct.position()).isZero();
+    }
+
     private static class TestDeserializer<T> extends BaseJacksonDeserializer<T> {
         private final JavaType javaType;
 
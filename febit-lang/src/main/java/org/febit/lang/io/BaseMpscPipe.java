@@ -0,0 +1,143 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Base of {@link MpscPipe} implementations, tracks producers and closes the pipe once the last one is closed.
+ *
+ * @param <E> element type
+ */
+public abstract class BaseMpscPipe<E> implements MpscPipe<E>, Iterator<E> {
+
+    protected final AtomicBoolean closed = new AtomicBoolean(false);
+    private final Set<Object> producers = ConcurrentHashMap.newKeySet();
+
+    protected final LongAdder dropped = new LongAdder();
+    protected final LongAdder blocked = new LongAdder();
+    protected final LongAdder coalesced = new LongAdder();
+
+    public abstract int size();
+
+    public abstract void put(E e) throws InterruptedException;
+
+    /**
+     * Put all items, and signal the consumer once.
+     */
+    public abstract void putAll(Collection<? extends E> items) throws InterruptedException;
+
+    /**
+     * Wake up the consumer after the pipe is closed, so that it can notice the end of the stream.
+     */
+    protected abstract void signalClosed();
+
+    @Override
+    public Producer<E> createProducer() {
+        if (closed.get()) {
+            throw new IllegalStateException("Pipe is closed, cannot create new producer");
+        }
+        var producer = new ProducerImpl();
+        producers.add(producer);
+        return producer;
+    }
+
+    @Override
+    public Producer<E> createBatchProducer() {
+        return createProducer();
+    }
+
+    @Override
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public long blockedCount() {
+        return blocked.sum();
+    }
+
+    @Override
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    @Override
+    public Stream<E> stream() {
+        return StreamSupport.stream(new MpscPipeSpliterator<>(this), false);
+    }
+
+    protected static void checkBatchSize(int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive: " + max);
+        }
+    }
+
+    protected void checkOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException("Pipe is closed, cannot put item");
+        }
+    }
+
+    private synchronized void close(ProducerImpl producer) {
+        if (closed.get()) {
+            return;
+        }
+        producers.remove(producer);
+        if (producers.isEmpty()) {
+            close();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed.set(true);
+        signalClosed();
+    }
+
+    private class ProducerImpl implements Producer<E> {
+
+        @Override
+        public void accept(E e) {
+            try {
+                BaseMpscPipe.this.put(e);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException("Failed to put item into queue: interrupted", ex);
+            }
+        }
+
+        @Override
+        public void acceptAll(Collection<? extends E> items) {
+            try {
+                BaseMpscPipe.this.putAll(items);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException("Failed to put items into queue: interrupted", ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            BaseMpscPipe.this.close(this);
+        }
+    }
+}
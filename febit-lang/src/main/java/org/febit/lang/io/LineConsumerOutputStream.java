@@ -0,0 +1,146 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Split bytes into lines, without decoding them to chars first.
+ * <p>
+ * Line breaks are found on raw bytes, so the charset must encode CR and LF as single bytes
+ * and never use those bytes in other characters, see {@link #isSupported(Charset)}.
+ * Same as {@link LineConsumerWriter}, lines are ended by LF, CRLF or a single CR, and keep their line breaks.
+ * <p>
+ * NOTE: Not thread-safe, it's expected to be fed by a single thread, for example, a process stream pump.
+ */
+public class LineConsumerOutputStream extends OutputStream {
+
+    private static final Set<String> SUPPORTED_CHARSETS = Set.of(
+            "UTF-8", "US-ASCII"
+    );
+
+    private final LineSplitter<byte[]> splitter;
+    private final Object closeable;
+
+    /**
+     * Buffer for single byte writes, the splitter copies what it keeps, so it is safe to reuse.
+     */
+    private final byte[] single = new byte[1];
+    private boolean closed;
+
+    private LineConsumerOutputStream(Sink sink, Object closeable) {
+        this.splitter = new LineSplitter.Bytes(sink);
+        this.closeable = closeable;
+    }
+
+    /**
+     * Lines are decoded as UTF-8 strings.
+     */
+    public static LineConsumerOutputStream create(Consumer<String> consumer) {
+        return create(consumer, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lines are decoded by the given charset, once per line.
+     */
+    public static LineConsumerOutputStream create(Consumer<String> consumer, Charset charset) {
+        Objects.requireNonNull(charset, "charset");
+        return new LineConsumerOutputStream(
+                (buf, offset, length) -> consumer.accept(new String(buf, offset, length, charset)),
+                consumer
+        );
+    }
+
+    /**
+     * Lines are passed as read-only buffers, without decoding.
+     * <p>
+     * NOTE: Buffers share content with internal or caller's arrays, they are only valid during the callback.
+     */
+    public static LineConsumerOutputStream ofBuffers(Consumer<ByteBuffer> consumer) {
+        return new LineConsumerOutputStream(
+                (buf, offset, length) -> consumer.accept(ByteBuffer.wrap(buf, offset, length).asReadOnlyBuffer()),
+                consumer
+        );
+    }
+
+    /**
+     * Lines are passed as slices of byte arrays, without decoding and copying.
+     * <p>
+     * NOTE: Arrays are internal or caller's buffers, slices are only valid during the callback.
+     */
+    public static LineConsumerOutputStream ofSlices(Sink sink) {
+        return new LineConsumerOutputStream(sink, sink);
+    }
+
+    /**
+     * Returns whether line breaks can be found on raw bytes, if encoded by the given charset.
+     * <p>
+     * Only UTF-8, US-ASCII and ISO-8859-* are supported, they never use CR and LF bytes in other characters.
+     */
+    public static boolean isSupported(Charset charset) {
+        var name = charset.name();
+        return SUPPORTED_CHARSETS.contains(name)
+                || name.startsWith("ISO-8859-");
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buf, int offset, int total) throws IOException {
+        Objects.checkFromIndexSize(offset, total, buf.length);
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        splitter.split(buf, offset, offset + total);
+    }
+
+    public boolean closed() {
+        return closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        splitter.pop();
+        if (closeable instanceof Closeable c) {
+            c.close();
+        }
+    }
+
+    /**
+     * Consumes line as a slice of a byte array.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        void accept(byte[] buf, int offset, int length);
+    }
+}
@@ -15,24 +15,27 @@
  */
 package org.febit.lang.io;
 
-import lombok.RequiredArgsConstructor;
-
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
-@RequiredArgsConstructor(staticName = "create")
 public class LineConsumerWriter extends Writer {
 
-    private static final char LF = '\n';
-    private static final char CR = '\r';
-
-    private final StringBuilder remaining = new StringBuilder();
     private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final LineSplitter<char[]> splitter;
     private final Consumer<String> consumer;
 
+    private LineConsumerWriter(Consumer<String> consumer) {
+        this.splitter = new LineSplitter.Chars(consumer);
+        this.consumer = consumer;
+    }
+
+    public static LineConsumerWriter create(Consumer<String> consumer) {
+        return new LineConsumerWriter(consumer);
+    }
+
     @Override
     public synchronized void write(char[] buf, int offset, int total) throws IOException {
         if (offset < 0) {
@@ -50,75 +53,7 @@ public class LineConsumerWriter extends Writer {
             throw new IOException("Writer is closed");
         }
 
-        // If remaining end with CR, check if the next character is LF
-        if (!remaining.isEmpty() && remaining.charAt(remaining.length() - 1) == CR) {
-            if (buf[offset] == LF) {
-                // end with CRLF
-                remaining.append(LF);
-                offset++;
-            }
-            popRemaining();
-        }
-
-        for (; ; ) {
-            // End
-            if (offset >= end) {
-                break;
-            }
-            int nextBreak = nextLineBreak(buf, offset, end);
-
-            // If no line break found, append the remaining characters
-            if (nextBreak < 0) {
-                remaining.append(buf, offset, end - offset);
-                break;
-            }
-            var edge = nextBreak + 1;
-            var count = edge - offset;
-
-            // If is the last character and is CR, push to remaining and finish
-            if (edge == end && buf[nextBreak] == CR) {
-                remaining.append(buf, offset, count);
-                break;
-            }
-
-            // Quickly flush if remaining is empty
-            if (remaining.isEmpty()) {
-                var line = new String(buf, offset, count);
-                offset = edge;
-                consumer.accept(line);
-                continue;
-            }
-
-            // If the remaining is not empty, we need to append before popping
-            remaining.append(buf, offset, count);
-            popRemaining();
-            offset = edge;
-        }
-    }
-
-    private static int nextLineBreak(char[] buf, int off, int end) {
-        for (int i = off; i < end; i++) {
-            char c = buf[i];
-            if (c == LF) {
-                return i;
-            }
-            if (c == CR) {
-                return i + 1 < end && buf[i + 1] == LF
-                        // Return LF position
-                        ? i + 1
-                        // Return CR position
-                        : i;
-            }
-        }
-        return -1;
-    }
-
-    private synchronized void popRemaining() {
-        if (remaining.isEmpty()) {
-            return;
-        }
-        consumer.accept(remaining.toString());
-        remaining.setLength(0);
+        splitter.split(buf, offset, end);
     }
 
     public boolean closed() {
@@ -136,7 +71,7 @@ public class LineConsumerWriter extends Writer {
             return; // Already closed
         }
         flush();
-        popRemaining();
+        splitter.pop();
         if (consumer instanceof Closeable closeable) {
             closeable.close();
         }
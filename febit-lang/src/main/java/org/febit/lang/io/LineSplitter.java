@@ -0,0 +1,269 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.function.Consumer;
+
+/**
+ * Splits chars or bytes into lines, and carries over incomplete lines between writes.
+ * <p>
+ * Lines are ended by LF, CRLF or a single CR, and keep their line breaks.
+ * A CR at the end of a write is carried over, until the next write tells whether an LF follows.
+ * <p>
+ * NOTE: Not thread-safe, owners should guard it if needed.
+ *
+ * @param <A> type of array, {@code char[]} or {@code byte[]}
+ */
+abstract class LineSplitter<A> {
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /**
+     * Buffers grown beyond this size, by long lines, are dropped once the line is popped.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 8192;
+
+    @Nullable
+    private A remaining;
+    private int remainingSize;
+
+    /**
+     * Create an array of the given size.
+     */
+    abstract A newArray(int size);
+
+    /**
+     * Returns the length of the array.
+     */
+    abstract int capacity(A buf);
+
+    /**
+     * Returns whether the element at the given index is CR.
+     */
+    abstract boolean isCr(A buf, int index);
+
+    /**
+     * Returns whether the element at the given index is LF.
+     */
+    abstract boolean isLf(A buf, int index);
+
+    /**
+     * Returns the index of the last element of the next line break, or {@code -1} if not found.
+     */
+    abstract int nextLineBreak(A buf, int offset, int end);
+
+    /**
+     * Accepts a complete line, the array is only valid during the call.
+     */
+    abstract void accept(A buf, int offset, int count);
+
+    /**
+     * Split elements of {@code buf} in range {@code [offset, end)}.
+     */
+    final void split(A buf, int offset, int end) {
+        if (offset >= end) {
+            return;
+        }
+
+        // If remaining end with CR, check if the next element is LF
+        if (remainingSize > 0 && isCr(remaining(), remainingSize - 1)) {
+            if (isLf(buf, offset)) {
+                // end with CRLF
+                append(buf, offset, 1);
+                offset++;
+            }
+            pop();
+        }
+
+        while (offset < end) {
+            int nextBreak = nextLineBreak(buf, offset, end);
+
+            // If no line break found, append the remaining elements
+            if (nextBreak < 0) {
+                append(buf, offset, end - offset);
+                break;
+            }
+            var edge = nextBreak + 1;
+            var count = edge - offset;
+
+            // If is the last element and is CR, push to remaining and finish
+            if (edge == end && isCr(buf, nextBreak)) {
+                append(buf, offset, count);
+                break;
+            }
+
+            // Quickly flush if remaining is empty
+            if (remainingSize == 0) {
+                accept(buf, offset, count);
+            } else {
+                // If the remaining is not empty, we need to append before popping
+                append(buf, offset, count);
+                pop();
+            }
+            offset = edge;
+        }
+    }
+
+    /**
+     * Pop the incomplete line if any, for example, on close.
+     */
+    final void pop() {
+        if (remainingSize == 0) {
+            return;
+        }
+        var buf = remaining();
+        int size = remainingSize;
+        remainingSize = 0;
+        if (size > MAX_RETAINED_BUFFER_SIZE) {
+            remaining = null;
+        }
+        accept(buf, 0, size);
+    }
+
+    private A remaining() {
+        var buf = remaining;
+        assert buf != null;
+        return buf;
+    }
+
+    private void append(A buf, int offset, int count) {
+        int required = remainingSize + count;
+        var current = remaining;
+        if (current == null) {
+            current = newArray(Math.max(required, INITIAL_BUFFER_SIZE));
+            remaining = current;
+        } else if (required > capacity(current)) {
+            var grown = newArray(Math.max(required, capacity(current) << 1));
+            System.arraycopy(current, 0, grown, 0, remainingSize);
+            current = grown;
+            remaining = current;
+        }
+        System.arraycopy(buf, offset, current, remainingSize, count);
+        remainingSize = required;
+    }
+
+    /**
+     * Splits chars, lines are passed as strings.
+     */
+    static final class Chars extends LineSplitter<char[]> {
+
+        private final Consumer<String> consumer;
+
+        Chars(Consumer<String> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        char[] newArray(int size) {
+            return new char[size];
+        }
+
+        @Override
+        int capacity(char[] buf) {
+            return buf.length;
+        }
+
+        @Override
+        boolean isCr(char[] buf, int index) {
+            return buf[index] == '\r';
+        }
+
+        @Override
+        boolean isLf(char[] buf, int index) {
+            return buf[index] == '\n';
+        }
+
+        @Override
+        int nextLineBreak(char[] buf, int offset, int end) {
+            for (int i = offset; i < end; i++) {
+                char c = buf[i];
+                if (c == '\n') {
+                    return i;
+                }
+                if (c == '\r') {
+                    return i + 1 < end && buf[i + 1] == '\n'
+                            // Return LF position
+                            ? i + 1
+                            // Return CR position
+                            : i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        void accept(char[] buf, int offset, int count) {
+            consumer.accept(new String(buf, offset, count));
+        }
+    }
+
+    /**
+     * Splits bytes, lines are passed as slices.
+     */
+    static final class Bytes extends LineSplitter<byte[]> {
+
+        private final LineConsumerOutputStream.Sink sink;
+
+        Bytes(LineConsumerOutputStream.Sink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        byte[] newArray(int size) {
+            return new byte[size];
+        }
+
+        @Override
+        int capacity(byte[] buf) {
+            return buf.length;
+        }
+
+        @Override
+        boolean isCr(byte[] buf, int index) {
+            return buf[index] == '\r';
+        }
+
+        @Override
+        boolean isLf(byte[] buf, int index) {
+            return buf[index] == '\n';
+        }
+
+        @Override
+        int nextLineBreak(byte[] buf, int offset, int end) {
+            for (int i = offset; i < end; i++) {
+                byte b = buf[i];
+                if (b == '\n') {
+                    return i;
+                }
+                if (b == '\r') {
+                    return i + 1 < end && buf[i + 1] == '\n'
+                            // Return LF position
+                            ? i + 1
+                            // Return CR position
+                            : i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        void accept(byte[] buf, int offset, int count) {
+            sink.accept(buf, offset, count);
+        }
+    }
+}
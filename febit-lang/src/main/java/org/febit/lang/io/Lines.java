@@ -22,9 +22,15 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @UtilityClass
 public class Lines {
@@ -35,12 +41,33 @@ public class Lines {
         return LineConsumerWriter.create(consumer);
     }
 
+    /**
+     * Lock-free variant of {@link #asWriter(Consumer)}, for writers fed by a single thread.
+     *
+     * @see UnsynchronizedLineConsumerWriter
+     */
+    public static Writer asUnsynchronizedWriter(Consumer<String> consumer) {
+        return UnsynchronizedLineConsumerWriter.create(consumer);
+    }
+
     public static OutputStream asUtf8OutputStream(Consumer<String> consumer) {
         return asOutputStream(consumer, StandardCharsets.UTF_8);
     }
 
+    /**
+     * Split bytes into lines, each line is decoded by the given charset.
+     * <p>
+     * Line breaks are found on raw bytes if the charset allows, see {@link LineConsumerOutputStream#isSupported}.
+     * Otherwise, bytes are decoded to chars first.
+     * <p>
+     * NOTE: The returned stream is not thread-safe, writes from multiple threads should be guarded by callers.
+     */
     public static OutputStream asOutputStream(Consumer<String> consumer, Charset charset) {
-        var writer = asWriter(consumer);
+        if (LineConsumerOutputStream.isSupported(charset)) {
+            return LineConsumerOutputStream.create(consumer, charset);
+        }
+        // WriterOutputStream is not thread-safe either, no need to lock the underlying writer
+        var writer = asUnsynchronizedWriter(consumer);
         try {
             return WriterOutputStream.builder()
                     .setWriter(writer)
@@ -52,4 +79,67 @@ public class Lines {
             throw new UncheckedIOException(e);
         }
     }
+
+    /**
+     * Split bytes into lines, without decoding.
+     * <p>
+     * NOTE: Buffers are only valid during the callback.
+     *
+     * @see LineConsumerOutputStream#ofBuffers(Consumer)
+     */
+    public static OutputStream asRawOutputStream(Consumer<ByteBuffer> consumer) {
+        return LineConsumerOutputStream.ofBuffers(consumer);
+    }
+
+    /**
+     * Read lines of a UTF-8 file, by memory-mapping it.
+     *
+     * @see #mapped(Path, Charset)
+     */
+    public static Stream<String> mapped(Path path) {
+        return mapped(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read lines of a file, by memory-mapping it in chunks.
+     * <p>
+     * Line breaks are found on mapped bytes, and the stream splits at line boundaries,
+     * so that {@link Stream#parallel()} scales across cores.
+     * Same as {@link java.nio.file.Files#lines(Path, Charset)}, line breaks are not included,
+     * and the returned stream should be closed to release the file.
+     *
+     * @throws IllegalArgumentException if the charset is not supported, see {@link LineConsumerOutputStream#isSupported}
+     * @throws UncheckedIOException     if failed to open the file
+     */
+    public static Stream<String> mapped(Path path, Charset charset) {
+        if (!LineConsumerOutputStream.isSupported(charset)) {
+            throw new IllegalArgumentException("Unsupported charset for mapped lines: " + charset);
+        }
+        FileChannel channel;
+        long size;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            size = channel.size();
+        } catch (IOException e) {
+            closeChannel(channel);
+            throw new UncheckedIOException(e);
+        }
+        var spliterator = new MappedLineSpliterator(channel, charset,
+                MappedLineSpliterator.CHUNK_SIZE, MappedLineSpliterator.MIN_SPLIT_SIZE,
+                0, size);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> closeChannel(channel));
+    }
+
+    private static void closeChannel(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
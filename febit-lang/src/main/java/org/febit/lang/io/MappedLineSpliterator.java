@@ -0,0 +1,227 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator of lines in a memory-mapped file.
+ * <p>
+ * The file is mapped in chunks, line boundaries are found on mapped bytes,
+ * and splits always happen at line boundaries, so that parallel streams scale across cores.
+ * Same as {@link java.io.BufferedReader#readLine()}, lines are ended by LF, CRLF or a single CR,
+ * and line breaks are not included.
+ */
+final class MappedLineSpliterator implements Spliterator<String> {
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    static final int CHUNK_SIZE = 1 << 26;
+    static final long MIN_SPLIT_SIZE = 1 << 20;
+
+    private static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE - 8;
+    private static final int SPLIT_WINDOW_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final int chunkSize;
+    private final long minSplitSize;
+
+    private long position;
+    private final long end;
+
+    @Nullable
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    private byte[] scratch = new byte[256];
+
+    MappedLineSpliterator(
+            FileChannel channel, Charset charset,
+            int chunkSize, long minSplitSize,
+            long start, long end
+    ) {
+        this.channel = channel;
+        this.charset = charset;
+        this.chunkSize = chunkSize;
+        this.minSplitSize = minSplitSize;
+        this.position = start;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (position >= end) {
+            return false;
+        }
+        var buf = chunkAt(position);
+        int from = (int) (position - chunkStart);
+        for (; ; ) {
+            int limit = buf.limit();
+            int i = from;
+            while (i < limit) {
+                byte b = buf.get(i);
+                if (b == LF || b == CR) {
+                    break;
+                }
+                i++;
+            }
+            long chunkEnd = chunkStart + limit;
+            if (i < limit) {
+                long lineEnd = chunkStart + i;
+                int breakLength;
+                if (buf.get(i) == LF) {
+                    breakLength = 1;
+                } else if (i + 1 < limit) {
+                    breakLength = buf.get(i + 1) == LF ? 2 : 1;
+                } else {
+                    breakLength = lineEnd + 1 < end && readByte(lineEnd + 1) == LF ? 2 : 1;
+                }
+                emit(buf, (int) (position - chunkStart), i, action);
+                position = lineEnd + breakLength;
+                return true;
+            }
+            if (chunkEnd >= end) {
+                // Last line without line break
+                emit(buf, (int) (position - chunkStart), limit, action);
+                position = end;
+                return true;
+            }
+            // The line crosses the chunk end, map a new chunk from the line start, and continue scanning
+            long scanned = chunkEnd - position;
+            if (scanned >= MAX_CHUNK_SIZE) {
+                throw new IllegalStateException("Line is too long, at position: " + position);
+            }
+            buf = remap(position, Math.max(chunkSize, Math.min(MAX_CHUNK_SIZE, scanned << 1)));
+            from = (int) scanned;
+        }
+    }
+
+    private void emit(ByteBuffer buf, int from, int to, Consumer<? super String> action) {
+        int length = to - from;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length << 1)];
+        }
+        buf.get(from, scratch, 0, length);
+        action.accept(new String(scratch, 0, length, charset));
+    }
+
+    /**
+     * Returns the chunk covering the given position, maps a new one if necessary.
+     */
+    private MappedByteBuffer chunkAt(long at) {
+        var current = this.chunk;
+        if (current != null
+                && at >= chunkStart
+                && at < chunkStart + current.limit()) {
+            return current;
+        }
+        return remap(at, chunkSize);
+    }
+
+    private MappedByteBuffer remap(long from, long size) {
+        var mapped = map(from, Math.min(size, end - from));
+        this.chunk = mapped;
+        this.chunkStart = from;
+        return mapped;
+    }
+
+    private MappedByteBuffer map(long from, long size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte readByte(long at) {
+        var buf = ByteBuffer.allocate(1);
+        try {
+            if (channel.read(buf, at) != 1) {
+                throw new IOException("Unexpected end of file, at position: " + at);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buf.get(0);
+    }
+
+    /**
+     * Find the start of the next line, scanning from the given position.
+     *
+     * @return the position, or {@code -1} if no line break is found before the end
+     */
+    private long nextLineStart(long from) {
+        while (from < end) {
+            var window = map(from, Math.min(SPLIT_WINDOW_SIZE, end - from));
+            int limit = window.limit();
+            for (int i = 0; i < limit; i++) {
+                byte b = window.get(i);
+                if (b == LF) {
+                    return from + i + 1;
+                }
+                if (b == CR) {
+                    long next = from + i + 1;
+                    if (next >= end) {
+                        return -1;
+                    }
+                    byte nextByte = i + 1 < limit ? window.get(i + 1) : readByte(next);
+                    return nextByte == LF ? next + 1 : next;
+                }
+            }
+            from += limit;
+        }
+        return -1;
+    }
+
+    @Nullable
+    @Override
+    public Spliterator<String> trySplit() {
+        long remaining = end - position;
+        if (remaining < minSplitSize) {
+            return null;
+        }
+        long split = nextLineStart(position + remaining / 2);
+        if (split < 0 || split >= end) {
+            return null;
+        }
+        var prefix = new MappedLineSpliterator(channel, charset, chunkSize, minSplitSize, position, split);
+        this.position = split;
+        return prefix;
+    }
+
+    /**
+     * Returns the remaining bytes, as an upper bound of remaining lines.
+     */
+    @Override
+    public long estimateSize() {
+        return end - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
@@ -18,11 +18,120 @@ package org.febit.lang.io;
 import org.febit.lang.func.ClosableConsumer;
 
 import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public interface MpscPipe<E> extends Closeable {
 
     ClosableConsumer<E> createProducer();
 
+    /**
+     * Create a producer that also accepts items in bulk.
+     * <p>
+     * By default, wraps {@link #createProducer()} and puts bulk items one by one.
+     */
+    default Producer<E> createBatchProducer() {
+        return Producer.of(createProducer());
+    }
+
+    /**
+     * Stream of items in arrival order, ends once the pipe is closed and drained.
+     * <p>
+     * Parallel streams split off queued items in batches, only the single consumer is allowed to call.
+     */
     Stream<E> stream();
+
+    /**
+     * Wait until any item is available, then move up to {@code max} queued items to the given collection.
+     * <p>
+     * Only the single consumer is allowed to call.
+     * By default, moves a single item per call through {@link #stream()},
+     * implementations whose streams read ahead must override.
+     *
+     * @param sink the collection to transfer items into
+     * @param max  the maximum number of items to transfer
+     * @return the number of items transferred, {@code 0} only if the pipe is closed and drained
+     * @throws IllegalArgumentException if {@code max} is not positive
+     */
+    default int drainTo(Collection<? super E> sink, int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive: " + max);
+        }
+        var iter = stream().iterator();
+        if (!iter.hasNext()) {
+            return 0;
+        }
+        sink.add(iter.next());
+        return 1;
+    }
+
+    /**
+     * Consume items in batches, until the pipe is closed and drained.
+     * <p>
+     * Each batch holds all items queued at the time of draining, up to {@code maxBatch}.
+     *
+     * @param maxBatch the maximum size of a batch
+     * @param action   the action for each batch, batches are never empty
+     */
+    default void forEachBatch(int maxBatch, Consumer<? super List<E>> action) {
+        for (; ; ) {
+            var batch = new ArrayList<E>();
+            if (drainTo(batch, maxBatch) == 0) {
+                return;
+            }
+            action.accept(batch);
+        }
+    }
+
+    /**
+     * Number of items dropped because the pipe was full, {@code 0} if not tracked.
+     */
+    default long droppedCount() {
+        return 0;
+    }
+
+    /**
+     * Number of items that had to wait for space, because the pipe was full, {@code 0} if not tracked.
+     */
+    default long blockedCount() {
+        return 0;
+    }
+
+    /**
+     * Number of items merged into a queued item, because the pipe was full, {@code 0} if not tracked.
+     */
+    default long coalescedCount() {
+        return 0;
+    }
+
+    interface Producer<E> extends ClosableConsumer<E> {
+
+        /**
+         * Put all items into the pipe, in iteration order.
+         */
+        default void acceptAll(Collection<? extends E> items) {
+            items.forEach(this);
+        }
+
+        static <E> Producer<E> of(ClosableConsumer<E> consumer) {
+            if (consumer instanceof Producer<E> producer) {
+                return producer;
+            }
+            return new Producer<>() {
+                @Override
+                public void accept(E e) {
+                    consumer.accept(e);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    consumer.close();
+                }
+            };
+        }
+    }
 }
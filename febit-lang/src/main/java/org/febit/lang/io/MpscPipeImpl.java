@@ -18,87 +18,139 @@ package org.febit.lang.io;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.febit.lang.func.ClosableConsumer;
 
-import java.util.Iterator;
-import java.util.Set;
-import java.util.Spliterators;
+import java.util.Collection;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 @Slf4j
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
-public class MpscPipeImpl<E> implements MpscPipe<E>, Iterator<E> {
-
-    private final AtomicBoolean closed = new AtomicBoolean(false);
-    private final Set<Object> producers = ConcurrentHashMap.newKeySet();
+public class MpscPipeImpl<E> extends BaseMpscPipe<E> {
 
     private final ReentrantLock consumerLock = new ReentrantLock();
     private final Condition consumerCheck = consumerLock.newCondition();
 
     private final BlockingQueue<E> queue;
+    private final OverflowPolicy<E> overflowPolicy;
 
     public static <E> MpscPipe<E> ofUnbound() {
-        return new MpscPipeImpl<>(new LinkedBlockingQueue<>());
+        return new MpscPipeImpl<>(new LinkedBlockingQueue<>(), OverflowPolicy.block());
     }
 
     public static <E> MpscPipe<E> ofBounded(int capacity) {
-        return new MpscPipeImpl<>(new ArrayBlockingQueue<>(capacity));
+        return ofBounded(capacity, OverflowPolicy.block());
+    }
+
+    /**
+     * Create a bounded pipe, producers follow the given policy when the pipe is full.
+     *
+     * @param capacity       the capacity
+     * @param overflowPolicy the overflow policy
+     * @see OverflowPolicy
+     */
+    public static <E> MpscPipe<E> ofBounded(int capacity, OverflowPolicy<E> overflowPolicy) {
+        BlockingQueue<E> queue = overflowPolicy instanceof OverflowPolicy.Coalesce<E>
+                ? new LinkedBlockingDeque<>(capacity)
+                : new ArrayBlockingQueue<>(capacity);
+        return new MpscPipeImpl<>(queue, overflowPolicy);
+    }
+
+    /**
+     * Create a bounded pipe backed by a lock-free ring buffer.
+     * <p>
+     * Producers never take a lock, the consumer is only unparked when it is actually waiting for items.
+     *
+     * @param capacity the capacity
+     * @see MpscRingBufferPipe
+     */
+    public static <E> MpscPipe<E> ofRingBuffer(int capacity) {
+        return MpscRingBufferPipe.create(capacity);
     }
 
+    @Override
     public int size() {
         return queue.size();
     }
 
     @Override
-    public ClosableConsumer<E> createProducer() {
-        if (closed.get()) {
-            throw new IllegalStateException("Pipe is closed, cannot create new producer");
+    public void put(E e) throws InterruptedException {
+        checkOpen();
+        log.trace("Attempting to put item into queue: {}", e);
+        if (queue.offer(e) || overflow(e)) {
+            signalConsumer();
         }
-        var producer = new Producer();
-        producers.add(producer);
-        return producer;
     }
 
     @Override
-    public Stream<E> stream() {
-        return StreamSupport.stream(
-                Spliterators.spliteratorUnknownSize(this, 0),
-                false
-        );
-    }
-
-    private class Producer implements ClosableConsumer<E> {
-
-        @Override
-        public void accept(E e) {
-            try {
-                MpscPipeImpl.this.put(e);
-            } catch (InterruptedException ex) {
-                throw new IllegalStateException("Failed to put item into queue: interrupted", ex);
-            }
+    public void putAll(Collection<? extends E> items) throws InterruptedException {
+        checkOpen();
+        if (items.isEmpty()) {
+            return;
         }
-
-        @Override
-        public void close() {
-            MpscPipeImpl.this.close(this);
+        for (var e : items) {
+            if (!queue.offer(e)) {
+                // Queue is full, let the consumer know about items queued so far before blocking
+                signalConsumer();
+                overflow(e);
+            }
         }
+        signalConsumer();
     }
 
-    public void put(E e) throws InterruptedException {
-        if (closed.get()) {
-            throw new IllegalStateException("Pipe is closed, cannot put item");
-        }
-        log.trace("Attempting to put item into queue: {}", e);
-        queue.put(e);
+    /**
+     * Handle the given item by the overflow policy, after the queue is found full.
+     *
+     * @return {@code true} if the item, or what it is merged into, is queued
+     */
+    private boolean overflow(E e) throws InterruptedException {
+        return switch (overflowPolicy) {
+            case OverflowPolicy.Block<E> ignored -> {
+                blocked.increment();
+                queue.put(e);
+                yield true;
+            }
+            case OverflowPolicy.BlockWithTimeout<E> policy -> {
+                blocked.increment();
+                if (queue.offer(e, policy.timeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                    yield true;
+                }
+                dropped.increment();
+                yield false;
+            }
+            case OverflowPolicy.DropNewest<E> ignored -> {
+                dropped.increment();
+                yield false;
+            }
+            case OverflowPolicy.DropOldest<E> ignored -> {
+                do {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                } while (!queue.offer(e));
+                yield true;
+            }
+            case OverflowPolicy.Coalesce<E> policy -> {
+                var deque = (BlockingDeque<E>) queue;
+                var merged = e;
+                while (!deque.offerLast(merged)) {
+                    var last = deque.pollLast();
+                    if (last != null) {
+                        merged = policy.merger().apply(last, merged);
+                        coalesced.increment();
+                    }
+                }
+                yield true;
+            }
+        };
+    }
 
+    private void signalConsumer() throws InterruptedException {
         var lock = this.consumerLock;
         lock.lockInterruptibly();
         try {
@@ -108,6 +160,15 @@ public class MpscPipeImpl<E> implements MpscPipe<E>, Iterator<E> {
         }
     }
 
+    @Override
+    public int drainTo(Collection<? super E> sink, int max) {
+        checkBatchSize(max);
+        if (!hasNext()) {
+            return 0;
+        }
+        return queue.drainTo(sink, max);
+    }
+
     @Override
     public E next() {
         try {
@@ -117,19 +178,8 @@ public class MpscPipeImpl<E> implements MpscPipe<E>, Iterator<E> {
         }
     }
 
-    private synchronized void close(Producer producer) {
-        if (closed.get()) {
-            return;
-        }
-        producers.remove(producer);
-        if (producers.isEmpty()) {
-            close();
-        }
-    }
-
     @Override
-    public synchronized void close() {
-        closed.set(true);
+    protected void signalClosed() {
         var lock = this.consumerLock;
         try {
             lock.lockInterruptibly();
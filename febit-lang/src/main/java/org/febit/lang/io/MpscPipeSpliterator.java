@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a {@link BaseMpscPipe}, in arrival order.
+ * <p>
+ * Splits hand off what is already queued as array-backed batches, growing in size,
+ * so that parallel streams get batches big enough to keep workers busy.
+ *
+ * @param <E> element type
+ */
+final class MpscPipeSpliterator<E> implements Spliterator<E> {
+
+    static final int BATCH_UNIT = 1 << 10;
+    static final int MAX_BATCH = 1 << 20;
+
+    private final BaseMpscPipe<E> pipe;
+    private int batchSize = BATCH_UNIT;
+
+    MpscPipeSpliterator(BaseMpscPipe<E> pipe) {
+        this.pipe = pipe;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        if (!pipe.hasNext()) {
+            return false;
+        }
+        action.accept(pipe.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action) {
+        pipe.forEachRemaining(action);
+    }
+
+    /**
+     * Splits off items already queued, waits if the pipe is empty but not closed yet.
+     *
+     * @return {@code null} if the pipe is closed and drained
+     */
+    @Nullable
+    @Override
+    public Spliterator<E> trySplit() {
+        var batch = new ArrayList<E>(Math.min(batchSize, Math.max(pipe.size(), 16)));
+        int n = pipe.drainTo(batch, batchSize);
+        if (n == 0) {
+            return null;
+        }
+        batchSize = Math.min(batchSize + BATCH_UNIT, MAX_BATCH);
+        return Spliterators.spliterator(batch.toArray(), characteristics());
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded {@link MpscPipe} backed by a lock-free, array-based ring buffer.
+ * <p>
+ * Producers claim slots with a CAS on the producer index, and never take a lock.
+ * The consumer is unparked only when it is actually parked, waiting for new items.
+ * If the ring buffer is full, producers spin, yield and then park briefly until slots are released,
+ * that is, only {@link OverflowPolicy#block()} is supported.
+ *
+ * @param <E> element type
+ */
+@Slf4j
+public class MpscRingBufferPipe<E> extends BaseMpscPipe<E> {
+
+    private static final int PRODUCER_SPINS = 64;
+    private static final int PRODUCER_YIELDS = PRODUCER_SPINS + 64;
+    private static final long PRODUCER_PARK_NANOS = 10_000L;
+
+    private final RingBuffer<E> ring;
+
+    @Nullable
+    private volatile Thread parkedConsumer;
+
+    private MpscRingBufferPipe(int capacity) {
+        this.ring = new RingBuffer<>(capacity);
+    }
+
+    public static <E> MpscRingBufferPipe<E> create(int capacity) {
+        return new MpscRingBufferPipe<>(capacity);
+    }
+
+    public int capacity() {
+        return ring.capacity();
+    }
+
+    @Override
+    public int size() {
+        return ring.size();
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        Objects.requireNonNull(e, "Pipe doesn't accept null items");
+        checkOpen();
+        log.trace("Attempting to put item into ring buffer: {}", e);
+        if (!ring.offer(e)) {
+            blocked.increment();
+            for (int tries = 0; !ring.offer(e); tries++) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                backoff(tries);
+            }
+        }
+        unparkConsumer();
+    }
+
+    @Override
+    public void putAll(Collection<? extends E> items) throws InterruptedException {
+        checkOpen();
+        if (items.isEmpty()) {
+            return;
+        }
+        var array = items.toArray();
+        for (var e : array) {
+            Objects.requireNonNull(e, "Pipe doesn't accept null items");
+        }
+        int offset = 0;
+        int tries = 0;
+        boolean stalled = false;
+        while (offset < array.length) {
+            int claimed = ring.offer(array, offset);
+            if (claimed > 0) {
+                offset += claimed;
+                tries = 0;
+                unparkConsumer();
+                continue;
+            }
+            if (!stalled) {
+                // Remaining items are all waiting behind this one
+                stalled = true;
+                blocked.add(array.length - offset);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            backoff(tries++);
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> sink, int max) {
+        checkBatchSize(max);
+        if (!hasNext()) {
+            return 0;
+        }
+        return ring.drain(sink, max);
+    }
+
+    private static void backoff(int tries) {
+        if (tries < PRODUCER_SPINS) {
+            Thread.onSpinWait();
+        } else if (tries < PRODUCER_YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+        }
+    }
+
+    private void unparkConsumer() {
+        var consumer = this.parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    @Override
+    protected void signalClosed() {
+        unparkConsumer();
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Pipe is closed and drained");
+        }
+        return ring.poll();
+    }
+
+    @Override
+    public boolean hasNext() {
+        var current = Thread.currentThread();
+        for (; ; ) {
+            if (!ring.isEmpty()) {
+                return true;
+            }
+            if (closed.get()) {
+                return !ring.isEmpty();
+            }
+            // Publish the consumer before the re-check, pairs with the producer reading it after the offer.
+            parkedConsumer = current;
+            if (ring.isEmpty() && !closed.get()) {
+                LockSupport.park(this);
+            }
+            parkedConsumer = null;
+            if (Thread.interrupted()) {
+                current.interrupt();
+                throw new IllegalStateException("Interrupted while waiting for next item");
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    abstract static class LeftPadding {
+        private long p00, p01, p02, p03, p04, p05, p06, p07;
+        private long p10, p11, p12, p13, p14, p15, p16, p17;
+    }
+
+    abstract static class ProducerFields extends LeftPadding {
+        protected volatile long producerIndex;
+        protected volatile long producerLimit;
+    }
+
+    @SuppressWarnings("unused")
+    abstract static class MiddlePadding extends ProducerFields {
+        private long p00, p01, p02, p03, p04, p05, p06, p07;
+        private long p10, p11, p12, p13, p14, p15, p16, p17;
+    }
+
+    abstract static class ConsumerFields extends MiddlePadding {
+        protected volatile long consumerIndex;
+    }
+
+    @SuppressWarnings("unused")
+    abstract static class RightPadding extends ConsumerFields {
+        private long p00, p01, p02, p03, p04, p05, p06, p07;
+        private long p10, p11, p12, p13, p14, p15, p16, p17;
+    }
+
+    /**
+     * Multi-producer, single-consumer bounded ring buffer.
+     * <p>
+     * Indexes are padded onto separate cache lines, to avoid false sharing between producers and the consumer.
+     */
+    static final class RingBuffer<E> extends RightPadding {
+
+        private static final VarHandle ELEMENTS = MethodHandles.arrayElementVarHandle(Object[].class);
+        private static final VarHandle PRODUCER_INDEX;
+        private static final VarHandle CONSUMER_INDEX;
+
+        static {
+            try {
+                var lookup = MethodHandles.lookup();
+                PRODUCER_INDEX = lookup.findVarHandle(ProducerFields.class, "producerIndex", long.class);
+                CONSUMER_INDEX = lookup.findVarHandle(ConsumerFields.class, "consumerIndex", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final Object[] elements;
+        private final int mask;
+
+        /**
+         * The exact capacity, slots beyond it in the power-of-two sized array are left unused.
+         */
+        private final int capacity;
+
+        RingBuffer(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be positive: " + capacity);
+            }
+            if (capacity > 1 << 30) {
+                throw new IllegalArgumentException("capacity is too large: " + capacity);
+            }
+            int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+            this.elements = new Object[size];
+            this.mask = size - 1;
+            this.capacity = capacity;
+            this.producerLimit = capacity;
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        int size() {
+            // Read consumer index first, to keep the result non-negative
+            long consumer = consumerIndex;
+            long producer = producerIndex;
+            return (int) Math.clamp(producer - consumer, 0L, capacity);
+        }
+
+        boolean isEmpty() {
+            return consumerIndex == producerIndex;
+        }
+
+        /**
+         * Try to claim a slot for the given item.
+         *
+         * @return {@code false} if the buffer is full
+         */
+        boolean offer(E e) {
+            long limit = producerLimit;
+            long index;
+            do {
+                index = producerIndex;
+                if (index >= limit) {
+                    limit = consumerIndex + capacity;
+                    if (index >= limit) {
+                        return false;
+                    }
+                    producerLimit = limit;
+                }
+            } while (!PRODUCER_INDEX.compareAndSet(this, index, index + 1));
+            ELEMENTS.setRelease(elements, (int) (index & mask), e);
+            return true;
+        }
+
+        /**
+         * Claim as many slots as available in one go, for items starting at {@code from}.
+         *
+         * @return the number of items published, {@code 0} if the buffer is full
+         */
+        int offer(Object[] items, int from) {
+            long limit = producerLimit;
+            long index;
+            int count;
+            do {
+                index = producerIndex;
+                if (index >= limit) {
+                    limit = consumerIndex + capacity;
+                    if (index >= limit) {
+                        return 0;
+                    }
+                    producerLimit = limit;
+                }
+                count = (int) Math.min(items.length - from, limit - index);
+            } while (!PRODUCER_INDEX.compareAndSet(this, index, index + count));
+            for (int i = 0; i < count; i++) {
+                ELEMENTS.setRelease(elements, (int) ((index + i) & mask), items[from + i]);
+            }
+            return count;
+        }
+
+        /**
+         * Move up to {@code max} items to the given collection, only the single consumer is allowed to call.
+         * <p>
+         * The consumer index is published once for the whole batch.
+         * If the sink throws, items already added are consumed, and the rest are kept in the buffer.
+         *
+         * @return the number of items moved
+         */
+        @SuppressWarnings("unchecked")
+        int drain(Collection<? super E> sink, int max) {
+            long start = consumerIndex;
+            int count = (int) Math.min(max, producerIndex - start);
+            int i = 0;
+            try {
+                for (; i < count; i++) {
+                    int offset = (int) ((start + i) & mask);
+                    var e = ELEMENTS.getAcquire(elements, offset);
+                    while (e == null) {
+                        Thread.onSpinWait();
+                        e = ELEMENTS.getAcquire(elements, offset);
+                    }
+                    sink.add((E) e);
+                    ELEMENTS.set(elements, offset, (Object) null);
+                }
+            } finally {
+                CONSUMER_INDEX.setRelease(this, start + i);
+            }
+            return i;
+        }
+
+        /**
+         * Take the next item, only the single consumer is allowed to call.
+         *
+         * @return {@code null} if the buffer is empty
+         */
+        @Nullable
+        @SuppressWarnings("unchecked")
+        E poll() {
+            long index = consumerIndex;
+            int offset = (int) (index & mask);
+            var e = ELEMENTS.getAcquire(elements, offset);
+            if (e == null) {
+                if (index == producerIndex) {
+                    return null;
+                }
+                // A producer has claimed the slot, but not yet published the item
+                do {
+                    Thread.onSpinWait();
+                    e = ELEMENTS.getAcquire(elements, offset);
+                } while (e == null);
+            }
+            ELEMENTS.set(elements, offset, (Object) null);
+            CONSUMER_INDEX.setRelease(this, index + 1);
+            return (E) e;
+        }
+    }
+}
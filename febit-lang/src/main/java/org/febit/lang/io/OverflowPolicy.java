@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+/**
+ * What a producer does when a bounded {@link MpscPipe} is full.
+ *
+ * @param <E> element type
+ */
+public sealed interface OverflowPolicy<E> {
+
+    /**
+     * Block the producer until space is available.
+     */
+    static <E> OverflowPolicy<E> block() {
+        return new Block<>();
+    }
+
+    /**
+     * Block the producer up to the given timeout, then drop the item.
+     */
+    static <E> OverflowPolicy<E> blockWithTimeout(Duration timeout) {
+        return new BlockWithTimeout<>(timeout);
+    }
+
+    /**
+     * Drop the item being put.
+     */
+    static <E> OverflowPolicy<E> dropNewest() {
+        return new DropNewest<>();
+    }
+
+    /**
+     * Drop the oldest queued items to make room for the item being put.
+     */
+    static <E> OverflowPolicy<E> dropOldest() {
+        return new DropOldest<>();
+    }
+
+    /**
+     * Merge the item being put into the newest queued item.
+     *
+     * @param merger merges the newest queued item (first argument) with the item being put (second argument)
+     */
+    static <E> OverflowPolicy<E> coalesce(BinaryOperator<E> merger) {
+        return new Coalesce<>(merger);
+    }
+
+    record Block<E>() implements OverflowPolicy<E> {
+    }
+
+    record BlockWithTimeout<E>(Duration timeout) implements OverflowPolicy<E> {
+
+        public BlockWithTimeout {
+            Objects.requireNonNull(timeout, "timeout");
+            if (timeout.isNegative()) {
+                throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+            }
+        }
+    }
+
+    record DropNewest<E>() implements OverflowPolicy<E> {
+    }
+
+    record DropOldest<E>() implements OverflowPolicy<E> {
+    }
+
+    record Coalesce<E>(BinaryOperator<E> merger) implements OverflowPolicy<E> {
+
+        public Coalesce {
+            Objects.requireNonNull(merger, "merger");
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Single-writer variant of {@link LineConsumerWriter}.
+ * <p>
+ * Splits lines with the same rules, but takes no locks.
+ * <p>
+ * NOTE: Not thread-safe, it's expected to be fed by a single thread, for example, a process stream pump.
+ */
+public class UnsynchronizedLineConsumerWriter extends Writer {
+
+    /**
+     * Strings are copied to the scratch buffer in chunks of this size, so it never grows.
+     */
+    private static final int SCRATCH_SIZE = 1024;
+
+    private final LineSplitter<char[]> splitter;
+    private final Consumer<String> consumer;
+    private final char[] scratch = new char[SCRATCH_SIZE];
+    private boolean closed;
+
+    private UnsynchronizedLineConsumerWriter(Consumer<String> consumer) {
+        this.splitter = new LineSplitter.Chars(consumer);
+        this.consumer = consumer;
+    }
+
+    public static UnsynchronizedLineConsumerWriter create(Consumer<String> consumer) {
+        return new UnsynchronizedLineConsumerWriter(consumer);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        var buf = scratch;
+        buf[0] = (char) c;
+        write(buf, 0, 1);
+    }
+
+    @Override
+    public void write(String str, int offset, int total) throws IOException {
+        Objects.checkFromIndexSize(offset, total, str.length());
+        // Chars are never retained after writing, so the scratch buffer is reusable
+        var buf = scratch;
+        final int end = offset + total;
+        do {
+            int count = Math.min(end - offset, buf.length);
+            str.getChars(offset, offset + count, buf, 0);
+            write(buf, 0, count);
+            offset += count;
+        } while (offset < end);
+    }
+
+    @Override
+    public void write(char[] buf, int offset, int total) throws IOException {
+        if (offset < 0) {
+            throw new IndexOutOfBoundsException("offset < 0: " + offset);
+        }
+        if (total < 0) {
+            throw new IllegalArgumentException("total < 0: " + total);
+        }
+        final int end = offset + total;
+        if (buf.length < end) {
+            throw new IndexOutOfBoundsException("buf.length < end: " + buf.length + " < " + end);
+        }
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        splitter.split(buf, offset, end);
+    }
+
+    public boolean closed() {
+        return closed;
+    }
+
+    @Override
+    public void flush() {
+        // No operation
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        splitter.pop();
+        if (consumer instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
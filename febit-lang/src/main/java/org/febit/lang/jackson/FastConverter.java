@@ -0,0 +1,915 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.jackson;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotation;
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.jspecify.annotations.Nullable;
+import tools.jackson.databind.DeserializationConfig;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.JavaType;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.databind.MapperFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SerializationConfig;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.annotation.JsonSerialize;
+import tools.jackson.databind.deser.CreatorProperty;
+import tools.jackson.databind.deser.SettableBeanProperty;
+import tools.jackson.databind.deser.bean.BeanDeserializer;
+import tools.jackson.databind.deser.impl.MethodProperty;
+import tools.jackson.databind.deser.jdk.CollectionDeserializer;
+import tools.jackson.databind.deser.jdk.MapDeserializer;
+import tools.jackson.databind.deser.jdk.NumberDeserializers;
+import tools.jackson.databind.deser.jdk.StringDeserializer;
+import tools.jackson.databind.deser.std.StdDeserializer;
+import tools.jackson.databind.introspect.AnnotatedWithParams;
+import tools.jackson.databind.ser.BeanPropertyWriter;
+import tools.jackson.databind.ser.BeanSerializer;
+import tools.jackson.databind.ser.UnrolledBeanSerializer;
+import tools.jackson.databind.ser.jdk.BooleanSerializer;
+import tools.jackson.databind.ser.jdk.CollectionSerializer;
+import tools.jackson.databind.ser.jdk.IndexedListSerializer;
+import tools.jackson.databind.ser.jdk.JDKKeySerializers;
+import tools.jackson.databind.ser.jdk.MapSerializer;
+import tools.jackson.databind.ser.jdk.NumberSerializers;
+import tools.jackson.databind.ser.jdk.StringSerializer;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.BaseStream;
+
+/**
+ * Converts common shapes without a serialize-deserialize round trip, see {@link JacksonCodecImpl#to(Object, JavaType)}.
+ * <p>
+ * Handles maps and collections of plain JSON values, beans and records to maps, and maps to beans and records.
+ * Plain values are strings, booleans, ints, longs and finite doubles.
+ * Bean properties are the ones reported by the mapper's own default bean (de)serializer,
+ * accessed by method handles resolved once per class.
+ * Only beans without Jackson annotations or mix-ins are handled, and only if the mapper uses Jackson's default
+ * (de)serializers for plain values and containers.
+ * Anything else, including any surprise, results in {@link #UNSUPPORTED},
+ * so the caller falls back to {@link ObjectMapper#convertValue} and gets Jackson's own outcome.
+ */
+final class FastConverter {
+
+    /**
+     * Result of an unsupported conversion.
+     */
+    static final Object UNSUPPORTED = new Object();
+
+    private static final List<Class<?>> SCALARS = List.of(
+            String.class, Boolean.class, Integer.class, Long.class, Double.class
+    );
+
+    private static final Set<Class<?>> SCALAR_SERIALIZERS = Set.of(
+            StringSerializer.class,
+            BooleanSerializer.class,
+            NumberSerializers.IntegerSerializer.class,
+            NumberSerializers.LongSerializer.class,
+            NumberSerializers.DoubleSerializer.class
+    );
+
+    private static final Set<Class<?>> CONTAINER_SERIALIZERS = Set.of(
+            MapSerializer.class, IndexedListSerializer.class, CollectionSerializer.class
+    );
+
+    private static final Set<Class<?>> BEAN_SERIALIZERS = Set.of(
+            BeanSerializer.class, UnrolledBeanSerializer.class
+    );
+
+    private static final List<Class<?>> TARGETS = List.of(
+            String.class,
+            Boolean.class, boolean.class,
+            Integer.class, int.class,
+            Long.class, long.class,
+            Double.class, double.class
+    );
+
+    private static final Set<Class<?>> SCALAR_DESERIALIZERS = Set.of(
+            StringDeserializer.class,
+            NumberDeserializers.BooleanDeserializer.class,
+            NumberDeserializers.IntegerDeserializer.class,
+            NumberDeserializers.LongDeserializer.class,
+            NumberDeserializers.DoubleDeserializer.class
+    );
+
+    private static final List<JavaType> CONTAINER_TARGETS = List.of(
+            JacksonTypes.MAP,
+            JacksonTypes.MAP_NAMED,
+            JacksonTypes.LIST,
+            JacksonTypes.FACTORY.constructMapType(Map.class, Object.class, Object.class),
+            JacksonTypes.FACTORY.constructCollectionType(List.class, Object.class),
+            JacksonTypes.FACTORY.constructCollectionType(Collection.class, Object.class)
+    );
+
+    private static final Set<Class<?>> CONTAINER_DESERIALIZERS = Set.of(
+            MapDeserializer.class, CollectionDeserializer.class
+    );
+
+    private static final List<String> FOREIGN_PACKAGES = List.of(
+            "java.", "javax.", "jdk.", "sun.", "com.sun.", "tools.jackson.", "com.fasterxml.jackson."
+    );
+
+    private static final String DATABIND_PACKAGE = "tools.jackson.databind.";
+
+    /**
+     * Attribute key of the {@link ContextCall}, to run with a context of the mapper.
+     */
+    private static final Object CONTEXT_CALL = ContextCall.class;
+
+    private final ObjectMapper mapper;
+    private final SerializationConfig serializationConfig;
+    private final DeserializationConfig deserializationConfig;
+
+    private final boolean enabled;
+    private final boolean skipNullContents;
+    private final boolean failOnUnknownProperties;
+    private final boolean failOnMissingCreatorProperties;
+    private final boolean failOnNullCreatorProperties;
+
+    /**
+     * Whether the mapper serializes the map or collection class as Jackson does by default.
+     */
+    private final ClassValue<Boolean> stockContainers = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isStockSerializer(type, CONTAINER_SERIALIZERS);
+        }
+    };
+
+    private final ClassValue<@Nullable BeanReader> beanReaders = new ClassValue<>() {
+        @Override
+        @Nullable
+        protected BeanReader computeValue(Class<?> type) {
+            return resolveBeanReader(type);
+        }
+    };
+
+    private final ClassValue<@Nullable BeanCreator> beanCreators = new ClassValue<>() {
+        @Override
+        @Nullable
+        protected BeanCreator computeValue(Class<?> type) {
+            return resolveBeanCreator(type);
+        }
+    };
+
+    FastConverter(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.serializationConfig = mapper.serializationConfig();
+        this.deserializationConfig = mapper.deserializationConfig();
+
+        var inclusion = serializationConfig.getDefaultPropertyInclusion();
+        this.skipNullContents = inclusion.getContentInclusion() == JsonInclude.Include.NON_NULL;
+        this.failOnUnknownProperties = mapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.failOnMissingCreatorProperties = mapper.isEnabled(
+                DeserializationFeature.FAIL_ON_MISSING_CREATOR_PROPERTIES);
+        this.failOnNullCreatorProperties = mapper.isEnabled(DeserializationFeature.FAIL_ON_NULL_CREATOR_PROPERTIES);
+
+        this.enabled = isSupportedInclusion(inclusion.getValueInclusion())
+                && isSupportedInclusion(inclusion.getContentInclusion())
+                && inclusion.equals(serializationConfig.getDefaultPropertyInclusion(Map.class))
+                && inclusion.equals(serializationConfig.getDefaultPropertyInclusion(LinkedHashMap.class))
+                && serializationConfig.getDefaultTyper(JacksonTypes.OBJECT) == null
+                && deserializationConfig.getDefaultTyper(JacksonTypes.OBJECT) == null
+                && !mapper.isEnabled(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                && !mapper.isEnabled(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+                && !mapper.isEnabled(DeserializationFeature.UNWRAP_ROOT_VALUE)
+                && !mapper.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS)
+                && !mapper.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS)
+                && !mapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                && !mapper.isEnabled(DeserializationFeature.USE_JAVA_ARRAY_FOR_JSON_ARRAY)
+                && hasStockSerializers()
+                && hasStockDeserializers();
+    }
+
+    /**
+     * Converts the source to the given type.
+     *
+     * @return converted value, or {@link #UNSUPPORTED} if the conversion is left to Jackson
+     */
+    @Nullable
+    Object convert(@Nullable Object source, JavaType type) {
+        if (!enabled || source == null) {
+            return UNSUPPORTED;
+        }
+        return convertValue(source, type);
+    }
+
+    @Nullable
+    private Object convertValue(Object value, JavaType type) {
+        var raw = type.getRawClass();
+        if (raw == Object.class) {
+            return untyped(value);
+        }
+        if (type.isMapLikeType()) {
+            if (raw != Map.class && raw != LinkedHashMap.class) {
+                return UNSUPPORTED;
+            }
+            var keyType = type.getKeyType().getRawClass();
+            if (keyType != String.class && keyType != Object.class) {
+                return UNSUPPORTED;
+            }
+            return value instanceof Map<?, ?> map
+                    ? copyMap(map, type.getContentType())
+                    : beanToMap(value, type.getContentType());
+        }
+        if (type.isCollectionLikeType()) {
+            if (raw != List.class && raw != ArrayList.class && raw != Collection.class) {
+                return UNSUPPORTED;
+            }
+            return value instanceof Collection<?> collection
+                    ? copyList(collection, type.getContentType())
+                    : UNSUPPORTED;
+        }
+        if (TARGETS.contains(raw)) {
+            return scalar(value, raw);
+        }
+        return value instanceof Map<?, ?> map && !type.hasGenericTypes()
+                ? mapToBean(map, raw)
+                : UNSUPPORTED;
+    }
+
+    @Nullable
+    private Object untyped(Object value) {
+        if (value instanceof String
+                || value instanceof Boolean
+                || value instanceof Integer
+                || value instanceof Long) {
+            return value;
+        }
+        if (value instanceof Double number) {
+            return Double.isFinite(number) ? number : UNSUPPORTED;
+        }
+        if (value instanceof Map<?, ?> map) {
+            return copyMap(map, JacksonTypes.OBJECT);
+        }
+        if (value instanceof Collection<?> collection) {
+            return copyList(collection, JacksonTypes.OBJECT);
+        }
+        return beanToMap(value, JacksonTypes.OBJECT);
+    }
+
+    private static Object scalar(Object value, Class<?> type) {
+        if (type == String.class) {
+            return value instanceof String ? value : UNSUPPORTED;
+        }
+        if (type == Integer.class || type == int.class) {
+            return value instanceof Integer ? value : UNSUPPORTED;
+        }
+        if (type == Long.class || type == long.class) {
+            if (value instanceof Long) {
+                return value;
+            }
+            return value instanceof Integer number ? Long.valueOf(number) : UNSUPPORTED;
+        }
+        if (type == Double.class || type == double.class) {
+            return value instanceof Double number && Double.isFinite(number) ? number : UNSUPPORTED;
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return value instanceof Boolean ? value : UNSUPPORTED;
+        }
+        return UNSUPPORTED;
+    }
+
+    @Nullable
+    private Object copyMap(Map<?, ?> map, JavaType valueType) {
+        if (!stockContainers.get(map.getClass())) {
+            return UNSUPPORTED;
+        }
+        var result = new LinkedHashMap<Object, @Nullable Object>();
+        for (var entry : map.entrySet()) {
+            if (!(entry.getKey() instanceof String key)) {
+                return UNSUPPORTED;
+            }
+            var value = entry.getValue();
+            if (value == null) {
+                if (!skipNullContents) {
+                    result.put(key, null);
+                }
+                continue;
+            }
+            var converted = convertValue(value, valueType);
+            if (converted == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            result.put(key, converted);
+        }
+        return result;
+    }
+
+    @Nullable
+    private Object copyList(Collection<?> collection, JavaType itemType) {
+        if (!stockContainers.get(collection.getClass())) {
+            return UNSUPPORTED;
+        }
+        var result = new ArrayList<@Nullable Object>(collection.size());
+        for (var item : collection) {
+            if (item == null) {
+                result.add(null);
+                continue;
+            }
+            var converted = convertValue(item, itemType);
+            if (converted == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            result.add(converted);
+        }
+        return result;
+    }
+
+    @Nullable
+    private Object beanToMap(Object bean, JavaType valueType) {
+        var reader = beanReaders.get(bean.getClass());
+        if (reader == null) {
+            return UNSUPPORTED;
+        }
+        var names = reader.names;
+        var getters = reader.getters;
+        var result = new LinkedHashMap<String, @Nullable Object>();
+        for (int i = 0; i < names.length; i++) {
+            Object value;
+            try {
+                value = getters[i].invokeExact(bean);
+            } catch (Throwable e) {
+                // Let Jackson report it in its own way
+                return UNSUPPORTED;
+            }
+            if (value == null) {
+                if (!reader.suppressNulls[i]) {
+                    result.put(names[i], null);
+                }
+                continue;
+            }
+            var converted = convertValue(value, valueType);
+            if (converted == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            result.put(names[i], converted);
+        }
+        return result;
+    }
+
+    @Nullable
+    private Object mapToBean(Map<?, ?> map, Class<?> type) {
+        var creator = beanCreators.get(type);
+        if (creator == null) {
+            return UNSUPPORTED;
+        }
+        var types = creator.types;
+        var values = new Object[types.length];
+        var present = new boolean[types.length];
+        for (var entry : map.entrySet()) {
+            if (!(entry.getKey() instanceof String key)) {
+                return UNSUPPORTED;
+            }
+            var index = creator.indexes.get(key);
+            if (index == null) {
+                if (failOnUnknownProperties) {
+                    return UNSUPPORTED;
+                }
+                continue;
+            }
+            var value = entry.getValue();
+            if (value == null) {
+                if (skipNullContents) {
+                    // Not written by Jackson, so absent
+                    continue;
+                }
+                if (failOnNullCreatorProperties && creator.setters == null) {
+                    return UNSUPPORTED;
+                }
+                present[index] = true;
+                continue;
+            }
+            present[index] = true;
+            var converted = convertValue(value, types[index]);
+            if (converted == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            values[index] = converted;
+        }
+        var setters = creator.setters;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                continue;
+            }
+            if (setters == null) {
+                // Jackson decides on absent and null values of records, which could be defaults or failures
+                if (types[i].isPrimitive() || (!present[i] && failOnMissingCreatorProperties)) {
+                    return UNSUPPORTED;
+                }
+            } else if (present[i] && types[i].isPrimitive()) {
+                return UNSUPPORTED;
+            }
+        }
+        try {
+            if (setters == null) {
+                return creator.constructor.invokeExact(values);
+            }
+            var bean = creator.constructor.invokeExact(new Object[0]);
+            for (int i = 0; i < values.length; i++) {
+                if (present[i]) {
+                    setters[i].invokeExact(bean, values[i]);
+                }
+            }
+            return bean;
+        } catch (Throwable e) {
+            return UNSUPPORTED;
+        }
+    }
+
+    @Nullable
+    private BeanReader resolveBeanReader(Class<?> type) {
+        if (!isBeanCandidate(type)
+                || !serializationConfig.getDefaultPropertyInclusion()
+                .equals(serializationConfig.getDefaultPropertyInclusion(type))
+                || hasJacksonAnnotations(type)) {
+            return null;
+        }
+        var names = new ArrayList<String>();
+        var getters = new ArrayList<MethodHandle>();
+        var suppressNulls = new ArrayList<Boolean>();
+        var getterType = MethodType.methodType(Object.class, Object.class);
+        try {
+            var serializer = withSerializationContext(context -> context.findValueSerializer(type));
+            if (serializer == null || !BEAN_SERIALIZERS.contains(serializer.getClass())) {
+                return null;
+            }
+            for (var it = serializer.properties(); it.hasNext(); ) {
+                if (!(it.next() instanceof BeanPropertyWriter property)
+                        || property.getClass() != BeanPropertyWriter.class
+                        || hasViews(property)) {
+                    return null;
+                }
+                var handle = switch (property.getMember().getMember()) {
+                    case Method method when method.getParameterCount() == 0 -> lookup(method.getDeclaringClass())
+                            .unreflect(method);
+                    case Field field -> lookup(field.getDeclaringClass())
+                            .unreflectGetter(field);
+                    default -> null;
+                };
+                if (handle == null) {
+                    return null;
+                }
+                names.add(property.getName());
+                getters.add(handle.asType(getterType));
+                suppressNulls.add(property.willSuppressNulls());
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+        if (names.isEmpty()) {
+            return null;
+        }
+        var suppress = new boolean[suppressNulls.size()];
+        for (int i = 0; i < suppress.length; i++) {
+            suppress[i] = suppressNulls.get(i);
+        }
+        return new BeanReader(names.toArray(new String[0]), getters.toArray(new MethodHandle[0]), suppress);
+    }
+
+    /**
+     * Resolve creator of records by the canonical constructor,
+     * or of beans by the default constructor and property setters.
+     */
+    @Nullable
+    private BeanCreator resolveBeanCreator(Class<?> type) {
+        if (!isBeanCandidate(type)
+                || Modifier.isAbstract(type.getModifiers())
+                || type.getTypeParameters().length != 0
+                || hasJacksonAnnotations(type)) {
+            return null;
+        }
+        try {
+            var deserializer = withDeserializationContext(
+                    context -> context.findRootValueDeserializer(mapper.constructType(type)));
+            if (deserializer == null || deserializer.getClass() != BeanDeserializer.class) {
+                return null;
+            }
+            var bean = (BeanDeserializer) deserializer;
+            var instantiator = bean.getValueInstantiator();
+            if (bean.hasAnySetter() || instantiator.canCreateUsingDelegate()) {
+                return null;
+            }
+            var properties = new ArrayList<SettableBeanProperty>();
+            bean.properties().forEachRemaining(properties::add);
+            if (properties.isEmpty()) {
+                return null;
+            }
+            if (type.isRecord()) {
+                return resolveRecordCreator(type, instantiator.canCreateFromObjectWith()
+                        ? instantiator.getWithArgsCreator()
+                        : null, properties);
+            }
+            if (!instantiator.canCreateUsingDefault() || instantiator.canCreateFromObjectWith()) {
+                return null;
+            }
+            return resolveSetterCreator(type, properties);
+        } catch (IllegalAccessException | NoSuchMethodException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static BeanCreator resolveRecordCreator(
+            Class<?> type,
+            @Nullable AnnotatedWithParams creator,
+            List<SettableBeanProperty> properties
+    ) throws IllegalAccessException {
+        if (creator == null
+                || !(creator.getAnnotated() instanceof Constructor<?> constructor)
+                || constructor.getParameterCount() != properties.size()) {
+            return null;
+        }
+        var types = new JavaType[properties.size()];
+        var indexes = new HashMap<String, Integer>();
+        for (var property : properties) {
+            if (property.getClass() != CreatorProperty.class) {
+                return null;
+            }
+            var index = property.getCreatorIndex();
+            if (!isSupportedAbsent(property.getType())) {
+                return null;
+            }
+            types[index] = property.getType();
+            indexes.put(property.getName(), index);
+        }
+        var handle = lookup(type)
+                .unreflectConstructor(constructor)
+                .asSpreader(Object[].class, types.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        return new BeanCreator(Map.copyOf(indexes), types, handle, null);
+    }
+
+    @Nullable
+    private static BeanCreator resolveSetterCreator(Class<?> type, List<SettableBeanProperty> properties)
+            throws IllegalAccessException, NoSuchMethodException {
+        var types = new JavaType[properties.size()];
+        var setters = new MethodHandle[properties.size()];
+        var indexes = new HashMap<String, Integer>();
+        var setterType = MethodType.methodType(void.class, Object.class, Object.class);
+        for (int i = 0; i < types.length; i++) {
+            var property = properties.get(i);
+            if (property.getClass() != MethodProperty.class) {
+                return null;
+            }
+            var handle = switch (property.getMember().getMember()) {
+                case Method method when method.getParameterCount() == 1 -> lookup(method.getDeclaringClass())
+                        .unreflect(method);
+                case Field field when !Modifier.isFinal(field.getModifiers()) -> lookup(field.getDeclaringClass())
+                        .unreflectSetter(field);
+                default -> null;
+            };
+            if (handle == null) {
+                return null;
+            }
+            types[i] = property.getType();
+            setters[i] = handle.asType(setterType);
+            indexes.put(property.getName(), i);
+        }
+        var constructor = lookup(type)
+                .unreflectConstructor(type.getDeclaredConstructor())
+                .asSpreader(Object[].class, 0)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        return new BeanCreator(Map.copyOf(indexes), types, constructor, setters);
+    }
+
+    /**
+     * Run the action with a serialization context of the mapper, by writing a probe value.
+     *
+     * @throws RuntimeException if the mapper is not able to write the probe
+     */
+    @Nullable
+    private <T> T withSerializationContext(Function<SerializationContext, @Nullable T> action) {
+        var call = new ContextCall(action, null);
+        mapper.writer()
+                .withAttribute(CONTEXT_CALL, call)
+                .writeValueAsString(ContextProbe.INSTANCE);
+        return call.result();
+    }
+
+    /**
+     * Run the action with a deserialization context of the mapper, by reading a probe value.
+     *
+     * @throws RuntimeException if the mapper is not able to read the probe
+     */
+    @Nullable
+    private <T> T withDeserializationContext(Function<DeserializationContext, @Nullable T> action) {
+        var call = new ContextCall(null, action);
+        mapper.readerFor(ContextProbe.class)
+                .withAttribute(CONTEXT_CALL, call)
+                .readValue("0");
+        return call.result();
+    }
+
+    private boolean hasStockSerializers() {
+        try {
+            return Boolean.TRUE.equals(withSerializationContext(context -> {
+                for (var type : SCALARS) {
+                    if (!SCALAR_SERIALIZERS.contains(context.findValueSerializer(type).getClass())) {
+                        return false;
+                    }
+                }
+                return context.findKeySerializer(String.class, null).getClass()
+                        == JDKKeySerializers.StringKeySerializer.class;
+            }));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private boolean isStockSerializer(Class<?> type, Set<Class<?>> stock) {
+        try {
+            return Boolean.TRUE.equals(withSerializationContext(
+                    context -> stock.contains(context.findValueSerializer(type).getClass())));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private boolean hasStockDeserializers() {
+        try {
+            return Boolean.TRUE.equals(withDeserializationContext(context -> {
+                for (var target : TARGETS) {
+                    var deserializer = context.findRootValueDeserializer(JacksonTypes.FACTORY.constructType(target));
+                    if (!SCALAR_DESERIALIZERS.contains(deserializer.getClass())) {
+                        return false;
+                    }
+                }
+                for (var type : CONTAINER_TARGETS) {
+                    if (!CONTAINER_DESERIALIZERS.contains(context.findRootValueDeserializer(type).getClass())) {
+                        return false;
+                    }
+                }
+                // Default untyped and key deserializers are not public, but never outside databind
+                return isDatabindClass(context.findRootValueDeserializer(JacksonTypes.OBJECT))
+                        && isDatabindClass(context.findKeyDeserializer(JacksonTypes.STRING, null))
+                        && isDatabindClass(context.findKeyDeserializer(JacksonTypes.OBJECT, null));
+            }));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasViews(BeanPropertyWriter property) {
+        var views = property.getViews();
+        return views != null && views.length != 0;
+    }
+
+    private static boolean isDatabindClass(@Nullable Object instance) {
+        return instance != null && instance.getClass().getName().startsWith(DATABIND_PACKAGE);
+    }
+
+    private static boolean isSupportedInclusion(JsonInclude.Include inclusion) {
+        return inclusion == JsonInclude.Include.ALWAYS
+                || inclusion == JsonInclude.Include.USE_DEFAULTS
+                || inclusion == JsonInclude.Include.NON_NULL;
+    }
+
+    /**
+     * Whether Jackson would use {@code null} as the absent value of the type, as {@link #mapToBean} does.
+     */
+    private static boolean isSupportedAbsent(JavaType type) {
+        if (type.isPrimitive()) {
+            // Left to Jackson if absent, see mapToBean
+            return true;
+        }
+        if (type.isReferenceType() || type.isArrayType()) {
+            return false;
+        }
+        var raw = type.getRawClass();
+        return raw == Object.class
+                || TARGETS.contains(raw)
+                || type.isContainerType()
+                || isBeanCandidate(raw);
+    }
+
+    private static boolean isBeanCandidate(Class<?> type) {
+        if (type.isArray()
+                || type.isPrimitive()
+                || type.isInterface()
+                || type.isEnum()
+                || Iterable.class.isAssignableFrom(type)
+                || Iterator.class.isAssignableFrom(type)
+                || BaseStream.class.isAssignableFrom(type)
+                || Map.class.isAssignableFrom(type)
+                || CharSequence.class.isAssignableFrom(type)
+                || Number.class.isAssignableFrom(type)) {
+            return false;
+        }
+        var name = type.getName();
+        for (var prefix : FOREIGN_PACKAGES) {
+            if (name.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the type, its super types, or any of their members, has Jackson annotations or mix-ins.
+     */
+    private boolean hasJacksonAnnotations(Class<?> type) {
+        var visited = new HashSet<Class<?>>();
+        var pending = new ArrayList<Class<?>>();
+        pending.add(type);
+        while (!pending.isEmpty()) {
+            var current = pending.removeLast();
+            if (current == Object.class || current == Record.class || !visited.add(current)) {
+                continue;
+            }
+            if (serializationConfig.findMixInClassFor(current) != null
+                    || deserializationConfig.findMixInClassFor(current) != null
+                    || hasJacksonAnnotations((AnnotatedElement) current)) {
+                return true;
+            }
+            for (var field : current.getDeclaredFields()) {
+                if (hasJacksonAnnotations(field)) {
+                    return true;
+                }
+            }
+            for (var method : current.getDeclaredMethods()) {
+                if (hasJacksonAnnotations(method)) {
+                    return true;
+                }
+            }
+            for (var constructor : current.getDeclaredConstructors()) {
+                if (hasJacksonAnnotations(constructor)) {
+                    return true;
+                }
+                for (var annotations : constructor.getParameterAnnotations()) {
+                    for (var annotation : annotations) {
+                        if (isJacksonAnnotation(annotation)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            var components = current.getRecordComponents();
+            if (components != null) {
+                for (var component : components) {
+                    if (hasJacksonAnnotations(component)) {
+                        return true;
+                    }
+                }
+            }
+            var superclass = current.getSuperclass();
+            if (superclass != null) {
+                pending.add(superclass);
+            }
+            pending.addAll(List.of(current.getInterfaces()));
+        }
+        return false;
+    }
+
+    private static boolean hasJacksonAnnotations(AnnotatedElement element) {
+        for (var annotation : element.getDeclaredAnnotations()) {
+            if (isJacksonAnnotation(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isJacksonAnnotation(Annotation annotation) {
+        var type = annotation.annotationType();
+        return type.isAnnotationPresent(JacksonAnnotation.class)
+                || type.isAnnotationPresent(JacksonAnnotationsInside.class)
+                || type.getName().startsWith("tools.jackson.")
+                || type.getName().startsWith("com.fasterxml.jackson.")
+                || type.getName().equals("java.beans.ConstructorProperties");
+    }
+
+    /**
+     * Action to run with a context of the mapper, see {@link ContextProbe}.
+     */
+    private static final class ContextCall {
+
+        @Nullable
+        private final Function<SerializationContext, ?> serialization;
+        @Nullable
+        private final Function<DeserializationContext, ?> deserialization;
+        @Nullable
+        private Object result;
+        private boolean done;
+
+        private ContextCall(
+                @Nullable Function<SerializationContext, ?> serialization,
+                @Nullable Function<DeserializationContext, ?> deserialization
+        ) {
+            this.serialization = serialization;
+            this.deserialization = deserialization;
+        }
+
+        @Nullable
+        @SuppressWarnings("unchecked")
+        private <T> T result() {
+            if (!done) {
+                throw new IllegalStateException("Probe is not handled by the mapper");
+            }
+            return (T) result;
+        }
+    }
+
+    /**
+     * Value handled by its own (de)serializer, which runs the {@link ContextCall} with the given context.
+     * <p>
+     * This way the contexts are created by the mapper as usual, with all registered modules.
+     */
+    @JsonSerialize(using = ContextProbe.Serializer.class)
+    @JsonDeserialize(using = ContextProbe.Deserializer.class)
+    static final class ContextProbe {
+
+        static final ContextProbe INSTANCE = new ContextProbe();
+
+        static final class Serializer extends StdSerializer<ContextProbe> {
+
+            Serializer() {
+                super(ContextProbe.class);
+            }
+
+            @Override
+            public void serialize(ContextProbe value, JsonGenerator gen, SerializationContext context) {
+                if (context.getAttribute(CONTEXT_CALL) instanceof ContextCall call && call.serialization != null) {
+                    call.result = call.serialization.apply(context);
+                    call.done = true;
+                }
+                gen.writeNull();
+            }
+        }
+
+        static final class Deserializer extends StdDeserializer<ContextProbe> {
+
+            Deserializer() {
+                super(ContextProbe.class);
+            }
+
+            @Override
+            public ContextProbe deserialize(JsonParser parser, DeserializationContext context) {
+                if (context.getAttribute(CONTEXT_CALL) instanceof ContextCall call && call.deserialization != null) {
+                    call.result = call.deserialization.apply(context);
+                    call.done = true;
+                }
+                return INSTANCE;
+            }
+        }
+    }
+
+    private static MethodHandles.Lookup lookup(Class<?> type) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+    }
+
+    /**
+     * Reads bean properties, in the order the bean serializer writes them.
+     */
+    private record BeanReader(String[] names, MethodHandle[] getters, boolean[] suppressNulls) {
+    }
+
+    /**
+     * Creates beans, by the record constructor taking all values, or by the default constructor and setters.
+     */
+    private record BeanCreator(
+            Map<String, Integer> indexes,
+            JavaType[] types,
+            MethodHandle constructor,
+            MethodHandle @Nullable [] setters
+    ) {
+    }
+}
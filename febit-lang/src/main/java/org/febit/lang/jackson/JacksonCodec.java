@@ -17,20 +17,33 @@ package org.febit.lang.jackson;
 
 import org.jspecify.annotations.Nullable;
 import tools.jackson.core.JacksonException;
+import tools.jackson.core.StreamWriteFeature;
 import tools.jackson.databind.JavaType;
+import tools.jackson.databind.MappingIterator;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
 import tools.jackson.databind.type.TypeFactory;
+import tools.jackson.databind.util.ByteBufferBackedInputStream;
+import tools.jackson.databind.util.ByteBufferBackedOutputStream;
 
 import javax.annotation.WillNotClose;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Serializable;
 import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface JacksonCodec extends Serializable {
 
@@ -44,6 +57,67 @@ public interface JacksonCodec extends Serializable {
         return typeFactory().constructType(type);
     }
 
+    /**
+     * Type of {@code LinkedHashMap<K, V>}.
+     */
+    default JavaType mapType(JavaType keyType, JavaType valueType) {
+        return typeFactory().constructMapType(LinkedHashMap.class, keyType, valueType);
+    }
+
+    default JavaType mapType(Class<?> keyType, Class<?> valueType) {
+        return mapType(typeOf(keyType), typeOf(valueType));
+    }
+
+    /**
+     * Type of {@code LinkedHashMap<String, V>}.
+     */
+    default JavaType namedMapType(JavaType valueType) {
+        return mapType(JacksonTypes.STRING, valueType);
+    }
+
+    /**
+     * Type of {@code ArrayList<T>}.
+     */
+    default JavaType listType(JavaType itemType) {
+        return typeFactory().constructCollectionType(ArrayList.class, itemType);
+    }
+
+    default JavaType listType(Class<?> itemType) {
+        return listType(typeOf(itemType));
+    }
+
+    /**
+     * Type of {@code T[]}.
+     */
+    default JavaType arrayType(JavaType itemType) {
+        return typeFactory().constructArrayType(itemType);
+    }
+
+    default JavaType arrayType(Class<?> itemType) {
+        return arrayType(typeOf(itemType));
+    }
+
+    /**
+     * Reader for the type, hot callers are supposed to keep and reuse it.
+     */
+    default ObjectReader reader(JavaType type) {
+        return this.mapper().readerFor(type);
+    }
+
+    /**
+     * Writer for values of runtime types.
+     */
+    default ObjectWriter writer() {
+        return this.mapper().writer();
+    }
+
+    /**
+     * Writer for the type, hot callers are supposed to keep and reuse it.
+     */
+    default ObjectWriter writer(JavaType type) {
+        return this.mapper().writerFor(type);
+    }
+
     /**
      * Convert object to JSON string, alias of {@link #stringify(Object)}.
      *
@@ -62,17 +136,84 @@ public interface JacksonCodec extends Serializable {
      * @throws JacksonException if conversion failed
      */
     default String stringify(@Nullable Object data) throws JacksonException {
-        return this.mapper().writeValueAsString(data);
+        return writer().writeValueAsString(data);
     }
 
     @WillNotClose
     default void writeTo(Writer writer, @Nullable Object data) throws JacksonException {
-        this.mapper().writeValue(writer, data);
+        writer().writeValue(writer, data);
     }
 
     @WillNotClose
     default void writeTo(OutputStream out, @Nullable Object data) throws JacksonException {
-        this.mapper().writeValue(out, data);
+        writer().writeValue(out, data);
+    }
+
+    /**
+     * Write to the buffer, from its position.
+     *
+     * @throws java.nio.BufferOverflowException if there is insufficient space in the buffer
+     */
+    default void writeTo(ByteBuffer buffer, @Nullable Object data) throws JacksonException {
+        writer().writeValue(new ByteBufferBackedOutputStream(buffer), data);
+    }
+
+    /**
+     * Convert object to UTF-8 bytes, without an intermediate string.
+     */
+    default byte[] toBytes(@Nullable Object data) throws JacksonException {
+        return writer().writeValueAsBytes(data);
+    }
+
+    /**
+     * Write values as newline-delimited JSON (NDJSON), one value at a time.
+     */
+    @WillNotClose
+    default void writeAll(OutputStream out, Stream<?> values) throws JacksonException {
+        try (var seq = ndjsonWriter().writeValues(out)) {
+            values.forEachOrdered(seq::write);
+        }
+    }
+
+    /**
+     * Write values as newline-delimited JSON (NDJSON), one value at a time.
+     */
+    @WillNotClose
+    default void writeAll(Writer writer, Stream<?> values) throws JacksonException {
+        try (var seq = ndjsonWriter().writeValues(writer)) {
+            values.forEachOrdered(seq::write);
+        }
+    }
+
+    /**
+     * Write values as a JSON array, one value at a time.
+     */
+    @WillNotClose
+    default void writeAllAsArray(OutputStream out, Stream<?> values) throws JacksonException {
+        try (var seq = sequenceWriter().writeValuesAsArray(out)) {
+            values.forEachOrdered(seq::write);
+        }
+    }
+
+    /**
+     * Write values as a JSON array, one value at a time.
+     */
+    @WillNotClose
+    default void writeAllAsArray(Writer writer, Stream<?> values) throws JacksonException {
+        try (var seq = sequenceWriter().writeValuesAsArray(writer)) {
+            values.forEachOrdered(seq::write);
+        }
+    }
+
+    private ObjectWriter sequenceWriter() {
+        return writer()
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET);
+    }
+
+    private ObjectWriter ndjsonWriter() {
+        return sequenceWriter()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .withRootValueSeparator("\n");
     }
 
     @Nullable
@@ -80,12 +221,36 @@ public interface JacksonCodec extends Serializable {
         if (text == null) {
             return null;
         }
-        return this.mapper().readValue(text, type);
+        return reader(type).readValue(text);
     }
 
     @Nullable
     default <T> T parse(Reader reader, JavaType type) throws JacksonException {
-        return this.mapper().readValue(reader, type);
+        return reader(type).readValue(reader);
+    }
+
+    @Nullable
+    default <T> T parse(InputStream in, JavaType type) throws JacksonException {
+        return reader(type).readValue(in);
+    }
+
+    /**
+     * Parse encoded bytes directly, without an intermediate string.
+     */
+    @Nullable
+    default <T> T parse(byte[] bytes, int offset, int len, JavaType type) throws JacksonException {
+        return reader(type).readValue(bytes, offset, len);
+    }
+
+    /**
+     * Parse remaining bytes of the buffer, the position of the buffer is not changed.
+     */
+    @Nullable
+    default <T> T parse(ByteBuffer buffer, JavaType type) throws JacksonException {
+        if (buffer.hasArray()) {
+            return parse(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), type);
+        }
+        return parse(new ByteBufferBackedInputStream(buffer.duplicate()), type);
     }
 
     @Nullable
@@ -108,6 +273,57 @@ public interface JacksonCodec extends Serializable {
         return parse(reader, typeOf(type));
     }
 
+    /**
+     * Iterate values of a JSON array, or a sequence of root-level values like NDJSON, one at a time.
+     * <p>
+     * NOTE: The reader is closed when the iterator is closed.
+     */
+    default <T> MappingIterator<T> iterateArray(Reader reader, JavaType type) throws JacksonException {
+        return reader(type).readValues(reader);
+    }
+
+    /**
+     * Iterate values of a JSON array, or a sequence of root-level values like NDJSON, one at a time.
+     * <p>
+     * NOTE: The input stream is closed when the iterator is closed.
+     */
+    default <T> MappingIterator<T> iterateArray(InputStream in, JavaType type) throws JacksonException {
+        return reader(type).readValues(in);
+    }
+
+    /**
+     * Lazy stream of a JSON array, or a sequence of root-level values like NDJSON.
+     * <p>
+     * NOTE: The reader is closed when the stream is closed.
+     */
+    default <T> Stream<T> streamArray(Reader reader, JavaType type) throws JacksonException {
+        return stream(iterateArray(reader, type));
+    }
+
+    /**
+     * Lazy stream of a JSON array, or a sequence of root-level values like NDJSON.
+     * <p>
+     * NOTE: The input stream is closed when the stream is closed.
+     */
+    default <T> Stream<T> streamArray(InputStream in, JavaType type) throws JacksonException {
+        return stream(iterateArray(in, type));
+    }
+
+    default <T> Stream<T> streamArray(Reader reader, Class<T> type) throws JacksonException {
+        return streamArray(reader, typeOf(type));
+    }
+
+    default <T> Stream<T> streamArray(InputStream in, Class<T> type) throws JacksonException {
+        return streamArray(in, typeOf(type));
+    }
+
+    private static <T> Stream<T> stream(MappingIterator<T> iter) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iter, Spliterator.ORDERED),
+                false
+        ).onClose(iter::close);
+    }
+
     @Nullable
     default Map<Object, Object> parseToMap(@Nullable String text) throws JacksonException {
         return parse(text, JacksonTypes.MAP);
@@ -122,7 +338,7 @@ public interface JacksonCodec extends Serializable {
     default <K, V> Map<K, V> parseToMap(@Nullable String text, Class<K> keyType, Class<V> valueType)
             throws JacksonException {
         return parse(text,
-                typeFactory().constructMapType(LinkedHashMap.class, keyType, valueType)
+                mapType(keyType, valueType)
         );
     }
 
@@ -130,7 +346,7 @@ public interface JacksonCodec extends Serializable {
     default <K, V> Map<K, V> parseToMap(Reader reader, Class<K> keyType, Class<V> valueType)
             throws JacksonException {
         return parse(reader,
-                typeFactory().constructMapType(LinkedHashMap.class, keyType, valueType)
+                mapType(keyType, valueType)
         );
     }
 
@@ -138,7 +354,7 @@ public interface JacksonCodec extends Serializable {
     default <K, V> Map<K, V> parseToMap(@Nullable String text, JavaType keyType, JavaType valueType)
             throws JacksonException {
         return parse(text,
-                typeFactory().constructMapType(LinkedHashMap.class, keyType, valueType)
+                mapType(keyType, valueType)
         );
     }
 
@@ -146,7 +362,7 @@ public interface JacksonCodec extends Serializable {
     default <K, V> Map<K, V> parseToMap(Reader reader, JavaType keyType, JavaType valueType)
             throws JacksonException {
         return parse(reader,
-                typeFactory().constructMapType(LinkedHashMap.class, keyType, valueType)
+                mapType(keyType, valueType)
         );
     }
 
@@ -163,36 +379,26 @@ public interface JacksonCodec extends Serializable {
     @Nullable
     default <V> Map<String, V> parseToNamedMap(@Nullable String text, Class<V> valueType)
             throws JacksonException {
-        var tf = typeFactory();
-        return parse(text,
-                tf.constructMapType(LinkedHashMap.class, JacksonTypes.STRING,
-                        tf.constructType(valueType)
-                )
-        );
+        return parse(text, namedMapType(typeOf(valueType)));
     }
 
     @Nullable
     default <V> Map<String, V> parseToNamedMap(Reader reader, Class<V> valueType) throws JacksonException {
-        var tf = typeFactory();
-        return parse(reader,
-                tf.constructMapType(LinkedHashMap.class, JacksonTypes.STRING,
-                        tf.constructType(valueType)
-                )
-        );
+        return parse(reader, namedMapType(typeOf(valueType)));
     }
 
     @Nullable
     default <V> Map<String, V> parseToNamedMap(@Nullable String text, JavaType valueType)
             throws JacksonException {
         return parse(text,
-                typeFactory().constructMapType(LinkedHashMap.class, JacksonTypes.STRING, valueType)
+                namedMapType(valueType)
         );
     }
 
     @Nullable
     default <V> Map<String, V> parseToNamedMap(Reader reader, JavaType valueType) throws JacksonException {
         return parse(reader,
-                typeFactory().constructMapType(LinkedHashMap.class, JacksonTypes.STRING, valueType)
+                namedMapType(valueType)
         );
     }
 
@@ -209,28 +415,28 @@ public interface JacksonCodec extends Serializable {
     @Nullable
     default <V> List<V> parseToList(@Nullable String text, Class<V> itemType) throws JacksonException {
         return parse(text,
-                typeFactory().constructCollectionType(ArrayList.class, itemType)
+                listType(itemType)
         );
     }
 
     @Nullable
     default <V> List<V> parseToList(Reader reader, Class<V> itemType) throws JacksonException {
         return parse(reader,
-                typeFactory().constructCollectionType(ArrayList.class, itemType)
+                listType(itemType)
         );
     }
 
     @Nullable
     default <V> List<V> parseToList(@Nullable String text, JavaType itemType) throws JacksonException {
         return parse(text,
-                typeFactory().constructCollectionType(ArrayList.class, itemType)
+                listType(itemType)
         );
     }
 
     @Nullable
     default <V> List<V> parseToList(Reader reader, JavaType itemType) throws JacksonException {
         return parse(reader,
-                typeFactory().constructCollectionType(ArrayList.class, itemType)
+                listType(itemType)
         );
     }
 
@@ -253,19 +459,19 @@ public interface JacksonCodec extends Serializable {
     }
 
     default <V> V @Nullable [] parseToArray(@Nullable String text, Class<V> itemType) throws JacksonException {
-        return parse(text, typeFactory().constructArrayType(itemType));
+        return parse(text, arrayType(itemType));
     }
 
     default <V> V @Nullable [] parseToArray(Reader reader, Class<V> itemType) throws JacksonException {
-        return parse(reader, typeFactory().constructArrayType(itemType));
+        return parse(reader, arrayType(itemType));
     }
 
     default <V> V @Nullable [] parseToArray(@Nullable String text, JavaType itemType) throws JacksonException {
-        return parse(text, typeFactory().constructArrayType(itemType));
+        return parse(text, arrayType(itemType));
     }
 
     default <V> V @Nullable [] parseToArray(Reader reader, JavaType itemType) throws JacksonException {
-        return parse(reader, typeFactory().constructArrayType(itemType));
+        return parse(reader, arrayType(itemType));
     }
 
     default String @Nullable [] parseToStringArray(@Nullable String text) throws JacksonException {
@@ -300,7 +506,7 @@ public interface JacksonCodec extends Serializable {
     default <K, V> Map<K, V> toMap(@Nullable Object source, Class<K> keyType, Class<V> valueType)
             throws JacksonException {
         return to(source,
-                typeFactory().constructMapType(LinkedHashMap.class, keyType, valueType)
+                mapType(keyType, valueType)
         );
     }
 
@@ -308,7 +514,7 @@ public interface JacksonCodec extends Serializable {
     default <K, V> Map<K, V> toMap(@Nullable Object source, JavaType keyType, JavaType valueType)
             throws JacksonException {
         return to(source,
-                typeFactory().constructMapType(LinkedHashMap.class, keyType, valueType)
+                mapType(keyType, valueType)
         );
     }
 
@@ -319,19 +525,13 @@ public interface JacksonCodec extends Serializable {
 
     @Nullable
     default <V> Map<String, V> toNamedMap(@Nullable Object source, Class<V> valueType) throws JacksonException {
-        var tf = typeFactory();
-        return to(source,
-                tf.constructMapType(
-                        LinkedHashMap.class, JacksonTypes.STRING,
-                        tf.constructType(valueType)
-                )
-        );
+        return to(source, namedMapType(typeOf(valueType)));
     }
 
     @Nullable
     default <V> Map<String, V> toNamedMap(@Nullable Object source, JavaType valueType) throws JacksonException {
         return to(source,
-                typeFactory().constructMapType(LinkedHashMap.class, JacksonTypes.STRING, valueType)
+                namedMapType(valueType)
         );
     }
 
@@ -343,14 +543,14 @@ public interface JacksonCodec extends Serializable {
     @Nullable
     default <V> List<V> toList(@Nullable Object source, Class<V> itemType) throws JacksonException {
         return to(source,
-                typeFactory().constructCollectionType(ArrayList.class, itemType)
+                listType(itemType)
         );
     }
 
     @Nullable
     default <V> List<V> toList(@Nullable Object source, JavaType itemType) throws JacksonException {
         return to(source,
-                typeFactory().constructCollectionType(ArrayList.class, itemType)
+                listType(itemType)
         );
     }
 
@@ -364,11 +564,11 @@ public interface JacksonCodec extends Serializable {
     }
 
     default <V> V @Nullable [] toArray(@Nullable Object source, Class<V> itemType) throws JacksonException {
-        return to(source, typeFactory().constructArrayType(itemType));
+        return to(source, arrayType(itemType));
     }
 
     default <V> V @Nullable [] toArray(@Nullable Object source, JavaType itemType) throws JacksonException {
-        return to(source, typeFactory().constructArrayType(itemType));
+        return to(source, arrayType(itemType));
     }
 
     default String @Nullable [] toStringArray(@Nullable Object source) throws JacksonException {
@@ -18,10 +18,17 @@ package org.febit.lang.jackson;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
+import org.jspecify.annotations.Nullable;
+import tools.jackson.databind.JavaType;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
 import tools.jackson.databind.cfg.MapperBuilder;
+import tools.jackson.databind.util.LookupCache;
+import tools.jackson.databind.util.SimpleLookupCache;
 
 import java.io.Serial;
+import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 
 @Accessors(fluent = true)
@@ -31,9 +38,32 @@ public class JacksonCodecImpl<M extends ObjectMapper> implements JacksonCodec {
     @Serial
     private static final long serialVersionUID = 2L;
 
+    private static final int CACHE_MAX_SIZE = 1024;
+
     @Getter
     private final M mapper;
 
+    /**
+     * Readers by type, resolved on demand.
+     */
+    private final transient LookupCache<JavaType, ObjectReader> readers = new SimpleLookupCache<>(16, CACHE_MAX_SIZE);
+
+    /**
+     * Writers by type, resolved on demand.
+     */
+    private final transient LookupCache<JavaType, ObjectWriter> writers = new SimpleLookupCache<>(16, CACHE_MAX_SIZE);
+
+    /**
+     * Composite types, like {@code LinkedHashMap<K, V>} and {@code ArrayList<T>}.
+     */
+    private final transient LookupCache<Object, JavaType> types = new SimpleLookupCache<>(16, CACHE_MAX_SIZE);
+
+    @Nullable
+    private transient volatile ObjectWriter writer;
+
+    @Nullable
+    private transient volatile FastConverter converter;
+
     public static <M extends ObjectMapper, B extends MapperBuilder<M, B>> JacksonCodecImpl<M> ofStandard(B builder) {
         var mapper = JacksonStandard.standard(builder)
                 .build();
@@ -47,4 +77,102 @@ public class JacksonCodecImpl<M extends ObjectMapper> implements JacksonCodec {
                 .build();
         return of(mapper);
     }
+
+    @Override
+    public ObjectReader reader(JavaType type) {
+        var reader = readers.get(type);
+        if (reader == null) {
+            reader = mapper.readerFor(type);
+            readers.put(type, reader);
+        }
+        return reader;
+    }
+
+    @Override
+    public ObjectWriter writer() {
+        var writer = this.writer;
+        if (writer == null) {
+            writer = mapper.writer();
+            this.writer = writer;
+        }
+        return writer;
+    }
+
+    @Override
+    public ObjectWriter writer(JavaType type) {
+        var writer = writers.get(type);
+        if (writer == null) {
+            writer = mapper.writerFor(type);
+            writers.put(type, writer);
+        }
+        return writer;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Maps and lists of plain JSON values, and plain beans and records from or to maps, are converted directly,
+     * others by {@link ObjectMapper#convertValue}.
+     */
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T to(@Nullable Object source, JavaType type) {
+        var converted = converter().convert(source, type);
+        if (converted != FastConverter.UNSUPPORTED) {
+            return (T) converted;
+        }
+        return JacksonCodec.super.to(source, type);
+    }
+
+    private FastConverter converter() {
+        var converter = this.converter;
+        if (converter == null) {
+            converter = new FastConverter(mapper);
+            this.converter = converter;
+        }
+        return converter;
+    }
+
+    @Override
+    public JavaType mapType(JavaType keyType, JavaType valueType) {
+        return compositeType(new MapTypeKey(keyType, valueType),
+                () -> JacksonCodec.super.mapType(keyType, valueType));
+    }
+
+    @Override
+    public JavaType listType(JavaType itemType) {
+        return compositeType(new ListTypeKey(itemType),
+                () -> JacksonCodec.super.listType(itemType));
+    }
+
+    @Override
+    public JavaType arrayType(JavaType itemType) {
+        return compositeType(new ArrayTypeKey(itemType),
+                () -> JacksonCodec.super.arrayType(itemType));
+    }
+
+    private JavaType compositeType(Object key, Supplier<JavaType> factory) {
+        var type = types.get(key);
+        if (type == null) {
+            type = factory.get();
+            types.put(key, type);
+        }
+        return type;
+    }
+
+    @Serial
+    private Object readResolve() {
+        // Re-create transient caches
+        return of(mapper);
+    }
+
+    private record MapTypeKey(JavaType keyType, JavaType valueType) {
+    }
+
+    private record ListTypeKey(JavaType itemType) {
+    }
+
+    private record ArrayTypeKey(JavaType itemType) {
+    }
 }
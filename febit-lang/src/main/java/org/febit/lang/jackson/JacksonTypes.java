@@ -27,6 +27,7 @@ public class JacksonTypes {
 
     public static final TypeFactory FACTORY = TypeFactory.createDefaultInstance();
 
+    public static final JavaType OBJECT = FACTORY.constructType(Object.class);
     public static final JavaType STRING = FACTORY.constructType(String.class);
     public static final JavaType INTEGER = FACTORY.constructType(Integer.class);
 
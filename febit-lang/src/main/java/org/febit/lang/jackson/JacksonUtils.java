@@ -24,12 +24,14 @@ import tools.jackson.databind.json.JsonMapper;
 import tools.jackson.dataformat.yaml.YAMLMapper;
 
 import javax.annotation.WillNotClose;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Jackson Utils.
@@ -97,6 +99,42 @@ public class JacksonUtils {
         JsonLazyHolder.JSON.writeTo(out, data);
     }
 
+    @WillNotClose
+    public static void writeAll(Writer writer, Stream<?> values) throws JacksonException {
+        JsonLazyHolder.JSON.writeAll(writer, values);
+    }
+
+    @WillNotClose
+    public static void writeAll(OutputStream out, Stream<?> values) throws JacksonException {
+        JsonLazyHolder.JSON.writeAll(out, values);
+    }
+
+    @WillNotClose
+    public static void writeAllAsArray(Writer writer, Stream<?> values) throws JacksonException {
+        JsonLazyHolder.JSON.writeAllAsArray(writer, values);
+    }
+
+    @WillNotClose
+    public static void writeAllAsArray(OutputStream out, Stream<?> values) throws JacksonException {
+        JsonLazyHolder.JSON.writeAllAsArray(out, values);
+    }
+
+    public static <T> Stream<T> streamArray(Reader reader, JavaType type) throws JacksonException {
+        return JsonLazyHolder.JSON.streamArray(reader, type);
+    }
+
+    public static <T> Stream<T> streamArray(Reader reader, Class<T> type) throws JacksonException {
+        return JsonLazyHolder.JSON.streamArray(reader, type);
+    }
+
+    public static <T> Stream<T> streamArray(InputStream in, JavaType type) throws JacksonException {
+        return JsonLazyHolder.JSON.streamArray(in, type);
+    }
+
+    public static <T> Stream<T> streamArray(InputStream in, Class<T> type) throws JacksonException {
+        return JsonLazyHolder.JSON.streamArray(in, type);
+    }
+
     @Nullable
     public static <T> T parse(@Nullable String json, JavaType type) {
         return JsonLazyHolder.JSON.parse(json, type);
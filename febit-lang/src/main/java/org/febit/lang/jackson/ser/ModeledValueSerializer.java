@@ -18,13 +18,18 @@ package org.febit.lang.jackson.ser;
 import org.febit.lang.jackson.JacksonUtils;
 import org.febit.lang.jackson.JacksonCodec;
 import org.febit.lang.modeler.ModeledValue;
+import org.febit.lang.modeler.PackedStruct;
 import org.febit.lang.modeler.Schema;
 import org.febit.lang.modeler.StructSpec;
 import org.jspecify.annotations.Nullable;
 import tools.jackson.core.JacksonException;
 import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
 import tools.jackson.databind.SerializationContext;
 import tools.jackson.databind.ser.std.StdSerializer;
+import tools.jackson.databind.util.LookupCache;
+import tools.jackson.databind.util.SimpleLookupCache;
 
 import java.util.List;
 import java.util.Map;
@@ -32,16 +37,31 @@ import java.util.Map;
 /**
  * Serializer for {@link ModeledValue} which writes the modeled value according to its schema.
  * <p>
- * This serializer delegates primitive/simple types to the Jackson provider and handles
- * composite types (struct/array/list/map) recursively. JSON type is rendered by
- * converting the inner value to a JSON string.
+ * Writing plans are compiled per schema and cached, field names are pre-encoded,
+ * the last used plan is checked by schema identity first, so rows of one schema skip schema hashing,
+ * and scalars are written directly to the generator.
+ * Decimal, temporal and raw types are delegated to the Jackson provider.
+ * <p>
+ * NOTE: since {@link String}, {@link Boolean} and primitive wrapper values are written directly,
+ * custom serializers registered for those types are ignored.
+ * JSON type is rendered by converting the inner value to a JSON string.
  */
 public class ModeledValueSerializer extends StdSerializer<ModeledValue> {
 
     public static final ModeledValueSerializer INSTANCE = new ModeledValueSerializer();
 
+    private static final int PLAN_CACHE_SIZE = 256;
+
     private final JacksonCodec codec;
 
+    private final LookupCache<Schema, ValueWriter> plans = new SimpleLookupCache<>(16, PLAN_CACHE_SIZE);
+
+    /**
+     * The last used plan, immutable, so it is safe to publish and replace without locking.
+     */
+    @Nullable
+    private volatile Plan lastPlan;
+
     public ModeledValueSerializer() {
         this(JacksonUtils.json());
     }
@@ -52,15 +72,30 @@ public class ModeledValueSerializer extends StdSerializer<ModeledValue> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public void serialize(ModeledValue modeled, JsonGenerator gen, SerializationContext context)
             throws JacksonException {
-        writeValue(modeled.structSpec(), modeled.schema(), modeled.value(), gen, context);
+        var plan = plan(modeled.schema());
+        write(plan, (StructSpec<Object, ?>) modeled.structSpec(), modeled.value(), gen, context);
     }
 
-    @SuppressWarnings("unchecked")
-    private void writeValue(
-            StructSpec<?, ?> structSpec,
-            Schema schema,
+    private ValueWriter plan(Schema schema) {
+        var last = lastPlan;
+        if (last != null && last.schema == schema) {
+            return last.writer;
+        }
+        var writer = plans.get(schema);
+        if (writer == null) {
+            writer = compile(schema);
+            plans.put(schema, writer);
+        }
+        lastPlan = new Plan(schema, writer);
+        return writer;
+    }
+
+    private static void write(
+            ValueWriter writer,
+            StructSpec<Object, ?> spec,
             @Nullable Object value,
             JsonGenerator gen,
             SerializationContext context
@@ -69,81 +104,178 @@ public class ModeledValueSerializer extends StdSerializer<ModeledValue> {
             gen.writeNull();
             return;
         }
+        writer.write(spec, value, gen, context);
+    }
 
-        switch (schema.type()) {
-            case JSON -> gen.writeString(codec.stringify(value));
-            case STRUCT -> writeStruct((StructSpec<Object, ?>) structSpec, schema, value, gen, context);
-            case ARRAY -> writeArray(structSpec, schema, (Object[]) value, gen, context);
-            case LIST -> writeList(structSpec, schema, (List<?>) value, gen, context);
-            case MAP -> writeMap(structSpec, schema, (Map<?, ?>) value, gen, context);
-            case STRING, BOOLEAN, BYTE, SHORT, INT, LONG, FLOAT, DOUBLE,
-                 DECIMAL, INSTANT, DATE, TIME, DATETIME, DATETIME_ZONED,
-                 RAW, BYTES -> context.writeValue(gen, value);
-            case OPTIONAL, ENUM -> writeValue(structSpec, schema.valueType(), value, gen, context);
-            default -> throw new IllegalArgumentException("Unsupported type: " + schema.type());
+    private ValueWriter compile(Schema schema) {
+        return switch (schema.type()) {
+            case OPTIONAL, ENUM -> compile(schema.valueType());
+            case JSON -> (spec, value, gen, context) -> gen.writeString(codec.stringify(value));
+            case STRUCT -> struct(schema);
+            case ARRAY -> {
+                var element = compile(schema.valueType());
+                yield array(element, list(element));
+            }
+            case LIST -> list(compile(schema.valueType()));
+            case MAP -> map(compile(schema.valueType()));
+            case STRING -> ModeledValueSerializer::writeString;
+            case BOOLEAN -> ModeledValueSerializer::writeBoolean;
+            case BYTE, SHORT, INT, LONG, FLOAT, DOUBLE -> ModeledValueSerializer::writeNumber;
+            case BYTES -> ModeledValueSerializer::writeBytes;
+            case DECIMAL, INSTANT, DATE, TIME, DATETIME, DATETIME_ZONED, RAW ->
+                    (spec, value, gen, context) -> context.writeValue(gen, value);
+        };
+    }
+
+    private static void writeString(StructSpec<Object, ?> spec, Object value,
+                                    JsonGenerator gen, SerializationContext context) {
+        if (value instanceof String str) {
+            gen.writeString(str);
+            return;
         }
+        context.writeValue(gen, value);
     }
 
-    private void writeArray(
-            StructSpec<?, ?> spec,
-            Schema schema,
-            Object[] array,
-            JsonGenerator gen,
-            SerializationContext context
-    ) throws JacksonException {
-        var elemType = schema.valueType();
-        gen.writeStartArray();
-        for (Object e : array) {
-            writeValue(spec, elemType, e, gen, context);
+    private static void writeBoolean(StructSpec<Object, ?> spec, Object value,
+                                     JsonGenerator gen, SerializationContext context) {
+        if (value instanceof Boolean bool) {
+            gen.writeBoolean(bool);
+            return;
         }
-        gen.writeEndArray();
+        context.writeValue(gen, value);
     }
 
-    private void writeList(
-            StructSpec<?, ?> spec,
-            Schema schema,
-            List<?> list,
-            JsonGenerator gen,
-            SerializationContext context
-    ) throws JacksonException {
-        var elemType = schema.valueType();
-        gen.writeStartArray();
-        for (Object e : list) {
-            writeValue(spec, elemType, e, gen, context);
+    private static void writeNumber(StructSpec<Object, ?> spec, Object value,
+                                    JsonGenerator gen, SerializationContext context) {
+        switch (value) {
+            case Integer i -> gen.writeNumber(i);
+            case Long l -> gen.writeNumber(l);
+            case Double d -> gen.writeNumber(d);
+            case Float f -> gen.writeNumber(f);
+            case Short s -> gen.writeNumber(s);
+            case Byte b -> gen.writeNumber(b.intValue());
+            default -> context.writeValue(gen, value);
         }
-        gen.writeEndArray();
     }
 
-    private void writeMap(
-            StructSpec<?, ?> spec,
-            Schema schema,
-            Map<?, ?> map,
-            JsonGenerator gen,
-            SerializationContext context
-    ) throws JacksonException {
-        var valueType = schema.valueType();
-        gen.writeStartObject();
-        for (var entry : map.entrySet()) {
-            gen.writeName(String.valueOf(entry.getKey()));
-            writeValue(spec, valueType, entry.getValue(), gen, context);
+    private static void writeBytes(StructSpec<Object, ?> spec, Object value,
+                                   JsonGenerator gen, SerializationContext context) {
+        if (value instanceof byte[] bytes) {
+            gen.writeBinary(context.getConfig().getBase64Variant(), bytes, 0, bytes.length);
+            return;
         }
-        gen.writeEndObject();
+        context.writeValue(gen, value);
+    }
+
+    private static ValueWriter array(ValueWriter element, ValueWriter list) {
+        return (spec, value, gen, context) -> {
+            if (value instanceof List<?>) {
+                // Lazy arrays are lists
+                list.write(spec, value, gen, context);
+                return;
+            }
+            var array = (Object[]) value;
+            gen.writeStartArray(array, array.length);
+            for (var e : array) {
+                write(element, spec, e, gen, context);
+            }
+            gen.writeEndArray();
+        };
+    }
+
+    private static ValueWriter list(ValueWriter element) {
+        return (spec, value, gen, context) -> {
+            var list = (List<?>) value;
+            gen.writeStartArray(list, list.size());
+            for (var e : list) {
+                write(element, spec, e, gen, context);
+            }
+            gen.writeEndArray();
+        };
+    }
+
+    private static ValueWriter map(ValueWriter valueWriter) {
+        return (spec, value, gen, context) -> {
+            var map = (Map<?, ?>) value;
+            gen.writeStartObject(map, map.size());
+            for (var entry : map.entrySet()) {
+                gen.writeName(String.valueOf(entry.getKey()));
+                write(valueWriter, spec, entry.getValue(), gen, context);
+            }
+            gen.writeEndObject();
+        };
+    }
+
+    private ValueWriter struct(Schema schema) {
+        var fields = schema.fields().toArray(new Schema.Field[0]);
+        var names = new SerializableString[fields.length];
+        var writers = new ValueWriter[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            names[i] = new SerializedString(fields[i].name());
+            writers[i] = compile(fields[i].schema());
+        }
+        return (spec, struct, gen, context) -> {
+            if (struct instanceof PackedStruct packed) {
+                writePackedStruct(fields, names, writers, spec, packed, gen, context);
+                return;
+            }
+            gen.writeStartObject(struct, fields.length);
+            for (int i = 0; i < fields.length; i++) {
+                gen.writeName(names[i]);
+                write(writers[i], spec, spec.get(struct, fields[i]), gen, context);
+            }
+            gen.writeEndObject();
+        };
     }
 
-    private void writeStruct(
+    /**
+     * Write packed struct, primitive fields are written without boxing.
+     */
+    private static void writePackedStruct(
+            Schema.Field[] fields,
+            SerializableString[] names,
+            ValueWriter[] writers,
             StructSpec<Object, ?> spec,
-            Schema schema,
-            Object struct,
+            PackedStruct struct,
             JsonGenerator gen,
             SerializationContext context
     ) throws JacksonException {
-        gen.writeStartObject();
-        for (var field : schema.fields()) {
-            var v = spec.get(struct, field);
-            gen.writeName(field.name());
-            writeValue(spec, field.schema(), v, gen, context);
+        gen.writeStartObject(struct, fields.length);
+        for (int i = 0; i < fields.length; i++) {
+            var field = fields[i];
+            gen.writeName(names[i]);
+            if (!struct.isPrimitive(field)) {
+                write(writers[i], spec, struct.get(field), gen, context);
+                continue;
+            }
+            if (struct.isNull(field)) {
+                gen.writeNull();
+                continue;
+            }
+            var type = field.schema().isOptionalType()
+                    ? field.schema().valueType().type()
+                    : field.schema().type();
+            switch (type) {
+                case BOOLEAN -> gen.writeBoolean(struct.getBoolean(field));
+                case BYTE, SHORT, INT -> gen.writeNumber(struct.getInt(field));
+                case LONG -> gen.writeNumber(struct.getLong(field));
+                case FLOAT -> gen.writeNumber((float) struct.getDouble(field));
+                default -> gen.writeNumber(struct.getDouble(field));
+            }
         }
         gen.writeEndObject();
     }
 
+    private record Plan(Schema schema, ValueWriter writer) {
+    }
+
+    /**
+     * Writer of non-null values, compiled for a schema.
+     */
+    @FunctionalInterface
+    private interface ValueWriter {
+
+        void write(StructSpec<Object, ?> spec, Object value, JsonGenerator gen, SerializationContext context)
+                throws JacksonException;
+    }
 }
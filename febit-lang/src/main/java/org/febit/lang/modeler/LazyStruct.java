@@ -0,0 +1,267 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * A struct which wraps the raw source, and converts fields on first access.
+ * <p>
+ * Converted fields are memoized, nested structs, lists, arrays and maps are also lazy.
+ * Memoized values are published safely to concurrent readers,
+ * but without locking, concurrent readers might convert a field more than once.
+ *
+ * @see Modeler#processAsLazyModeled(Schema, Object)
+ */
+public final class LazyStruct {
+
+    private static final Object UNRESOLVED = new Object();
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final Schema schema;
+    private final Map<?, ?> raw;
+    private final ModelPlan.Converter[] converters;
+    private final @Nullable Object[] values;
+
+    LazyStruct(Schema schema, Map<?, ?> raw, ModelPlan.Converter[] converters) {
+        this.schema = schema;
+        this.raw = raw;
+        this.converters = converters;
+        this.values = new Object[converters.length];
+        Arrays.fill(values, UNRESOLVED);
+    }
+
+    public Schema schema() {
+        return schema;
+    }
+
+    /**
+     * Returns the converted value of the field, converts it if not yet.
+     */
+    @Nullable
+    public Object get(Schema.Field field) {
+        int pos = field.pos();
+        Object value = VALUES.getAcquire(values, pos);
+        if (value == UNRESOLVED) {
+            value = converters[pos].convert(raw.get(field.name()));
+            VALUES.setRelease(values, pos, value);
+        }
+        return value;
+    }
+
+    /**
+     * Whether the field is converted already.
+     */
+    public boolean isResolved(Schema.Field field) {
+        return VALUES.getAcquire(values, field.pos()) != UNRESOLVED;
+    }
+
+    @Override
+    public String toString() {
+        var buf = new StringBuilder();
+        buf.append('{');
+        for (var field : schema.fields()) {
+            if (field.pos() != 0) {
+                buf.append(", ");
+            }
+            buf.append(field.name())
+                    .append('=')
+                    .append(get(field));
+        }
+        return buf.append('}').toString();
+    }
+
+    /**
+     * Struct spec for lazy structs, and delegates to the given spec for other structs.
+     */
+    @SuppressWarnings("unchecked")
+    public static StructSpec<Object, Object> spec(StructSpec<?, ?> delegate) {
+        if (delegate instanceof LazySpec) {
+            return (LazySpec) delegate;
+        }
+        return new LazySpec((StructSpec<Object, Object>) delegate);
+    }
+
+    @RequiredArgsConstructor
+    private static final class LazySpec implements StructSpec<Object, Object> {
+
+        private final StructSpec<Object, Object> delegate;
+
+        @Override
+        public Object builder(Schema schema) {
+            return delegate.builder(schema);
+        }
+
+        @Override
+        public Object build(Schema schema, Object builder) {
+            return delegate.build(schema, builder);
+        }
+
+        @Override
+        public void set(Object builder, Schema.Field field, @Nullable Object value) {
+            delegate.set(builder, field, value);
+        }
+
+        @Nullable
+        @Override
+        public Object get(Object struct, Schema.Field field) {
+            if (struct instanceof LazyStruct lazy) {
+                return lazy.get(field);
+            }
+            return delegate.get(struct, field);
+        }
+    }
+
+    /**
+     * A list which converts elements on first access.
+     */
+    static final class LazyList extends AbstractList<@Nullable Object> implements RandomAccess {
+
+        private final List<?> raw;
+        private final ModelPlan.Converter converter;
+        private final @Nullable Object[] values;
+
+        LazyList(List<?> raw, ModelPlan.Converter converter) {
+            this.raw = raw;
+            this.converter = converter;
+            this.values = new Object[raw.size()];
+            Arrays.fill(values, UNRESOLVED);
+        }
+
+        @Nullable
+        @Override
+        public Object get(int index) {
+            Object value = VALUES.getAcquire(values, index);
+            if (value == UNRESOLVED) {
+                value = converter.convert(raw.get(index));
+                VALUES.setRelease(values, index, value);
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    /**
+     * A map which converts keys upfront, and values on first access.
+     * <p>
+     * If several raw keys convert to the same key, the last one wins.
+     */
+    static final class LazyMap extends AbstractMap<@Nullable Object, @Nullable Object> {
+
+        private final Map<@Nullable Object, Integer> index;
+        private final @Nullable Object[] keys;
+        private final @Nullable Object[] raw;
+        private final ModelPlan.Converter converter;
+        private final @Nullable Object[] values;
+
+        LazyMap(Map<?, ?> source, ModelPlan.Converter keyConverter, ModelPlan.Converter converter) {
+            this.index = HashMap.newHashMap(source.size());
+            this.keys = new Object[source.size()];
+            this.raw = new Object[source.size()];
+            this.converter = converter;
+            int size = 0;
+            for (var entry : source.entrySet()) {
+                var key = keyConverter.convert(entry.getKey());
+                var pos = index.get(key);
+                if (pos == null) {
+                    pos = size++;
+                    index.put(key, pos);
+                    keys[pos] = key;
+                }
+                raw[pos] = entry.getValue();
+            }
+            this.values = new Object[size];
+            Arrays.fill(values, UNRESOLVED);
+        }
+
+        @Nullable
+        private Object value(int pos) {
+            Object value = VALUES.getAcquire(values, pos);
+            if (value == UNRESOLVED) {
+                value = converter.convert(raw[pos]);
+                VALUES.setRelease(values, pos, value);
+            }
+            return value;
+        }
+
+        @Nullable
+        @Override
+        public Object get(@Nullable Object key) {
+            var pos = index.get(key);
+            return pos != null ? value(pos) : null;
+        }
+
+        @Override
+        public boolean containsKey(@Nullable Object key) {
+            return index.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Set<Entry<@Nullable Object, @Nullable Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<@Nullable Object, @Nullable Object>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < values.length;
+                        }
+
+                        @Override
+                        public Entry<@Nullable Object, @Nullable Object> next() {
+                            if (next >= values.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int pos = next++;
+                            return new SimpleImmutableEntry<>(keys[pos], value(pos));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+    }
+}
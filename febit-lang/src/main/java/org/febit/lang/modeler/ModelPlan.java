@@ -0,0 +1,298 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.febit.lang.jackson.JacksonUtils;
+import org.febit.lang.util.Iterators;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import static org.febit.lang.util.ConvertUtils.toBigDecimal;
+import static org.febit.lang.util.ConvertUtils.toBoolean;
+import static org.febit.lang.util.ConvertUtils.toByteOrDefault;
+import static org.febit.lang.util.ConvertUtils.toDate;
+import static org.febit.lang.util.ConvertUtils.toDateTime;
+import static org.febit.lang.util.ConvertUtils.toDoubleOrDefault;
+import static org.febit.lang.util.ConvertUtils.toFloatOrDefault;
+import static org.febit.lang.util.ConvertUtils.toInstant;
+import static org.febit.lang.util.ConvertUtils.toIntOrDefault;
+import static org.febit.lang.util.ConvertUtils.toLongOrDefault;
+import static org.febit.lang.util.ConvertUtils.toShortOrDefault;
+import static org.febit.lang.util.ConvertUtils.toTime;
+import static org.febit.lang.util.ConvertUtils.toZonedDateTime;
+
+/**
+ * A compiled plan to model values of a schema, see {@link Modeler#compile(Schema)}.
+ * <p>
+ * Converters are resolved up front for the whole schema tree, including struct fields,
+ * so that processing does not dispatch on schema types per value.
+ * Results are the same as {@link Modeler#process(Schema, Object)}.
+ * <p>
+ * Plans are immutable and thread-safe, and supposed to be reused.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ModelPlan {
+
+    @Getter
+    private final Schema schema;
+
+    @Getter
+    private final Modeler modeler;
+
+    private final Converter converter;
+
+    /**
+     * Whether structs, lists, arrays and maps are materialized lazily, see {@link LazyStruct}.
+     * <p>
+     * NOTE: Lazy arrays are lists, since elements of a Java array cannot be converted on access.
+     */
+    @Getter
+    private final boolean lazy;
+
+    /**
+     * Converters of fields, only if the schema is a struct.
+     */
+    private final Converter @Nullable [] fieldConverters;
+
+    static ModelPlan compile(Modeler modeler, Schema schema) {
+        return compile(modeler, schema, false);
+    }
+
+    static ModelPlan compile(Modeler modeler, Schema schema, boolean lazy) {
+        var compiler = new Compiler(modeler, lazy);
+        if (schema.isStructType()) {
+            var fieldConverters = compiler.fields(schema);
+            return new ModelPlan(schema, modeler,
+                    compiler.withDefault(schema, compiler.compileStruct(schema, fieldConverters)),
+                    lazy, fieldConverters);
+        }
+        return new ModelPlan(schema, modeler, compiler.compile(schema), lazy, null);
+    }
+
+    @Nullable
+    public Object process(@Nullable Object source) {
+        return converter.convert(source);
+    }
+
+    public ModeledValue processAsModeled(@Nullable Object source) {
+        var spec = lazy
+                ? LazyStruct.spec(modeler.getStructSpec())
+                : modeler.getStructSpec();
+        return new ModeledValue(schema, process(source), spec);
+    }
+
+    /**
+     * Process rows of a struct schema into columns.
+     *
+     * @throws IllegalArgumentException if the schema is not a struct
+     * @see StructBatch
+     */
+    public StructBatch processBatch(Iterable<?> rows) {
+        if (fieldConverters == null) {
+            throw new IllegalArgumentException("Not a struct: " + schema);
+        }
+        return StructBatch.collect(schema, fieldConverters, modeler, rows);
+    }
+
+    @FunctionalInterface
+    interface Converter {
+
+        @Nullable
+        Object convert(@Nullable Object source);
+    }
+
+    @RequiredArgsConstructor
+    private static class Compiler {
+
+        private final Modeler modeler;
+        private final boolean lazy;
+
+        Converter compile(Schema schema) {
+            return withDefault(schema, compileNonNull(schema));
+        }
+
+        Converter withDefault(Schema schema, Converter nonNull) {
+            return source -> source != null
+                    ? nonNull.convert(source)
+                    : modeler.defaultValueFor(schema);
+        }
+
+        /**
+         * Compile converter for non-null sources.
+         */
+        private Converter compileNonNull(Schema schema) {
+            return switch (schema.type()) {
+                case OPTIONAL -> compileNonNull(schema.valueType());
+                case STRING -> Object::toString;
+                case BOOLEAN -> source -> source instanceof Boolean ? source : toBoolean(source);
+                case BYTE -> source -> source instanceof Byte ? source : toByteOrDefault(source, (byte) 0);
+                case SHORT -> source -> source instanceof Short ? source : toShortOrDefault(source, (short) 0);
+                case INT -> source -> source instanceof Integer ? source : toIntOrDefault(source, 0);
+                case LONG -> source -> source instanceof Long ? source : toLongOrDefault(source, 0L);
+                case FLOAT -> source -> source instanceof Float ? source : toFloatOrDefault(source, 0F);
+                case DOUBLE -> source -> source instanceof Double ? source : toDoubleOrDefault(source, 0D);
+                case DECIMAL -> source -> toBigDecimal(source);
+                case INSTANT -> source -> toInstant(source);
+                case DATE -> source -> toDate(source);
+                case TIME -> source -> toTime(source);
+                case DATETIME -> source -> toDateTime(source);
+                case DATETIME_ZONED -> source -> toZonedDateTime(source);
+                case ARRAY -> lazy ? lazyList(schema) : array(schema);
+                case LIST -> lazy ? lazyList(schema) : list(schema);
+                case MAP -> lazy ? lazyMap(schema) : map(schema);
+                case STRUCT -> compileStruct(schema, fields(schema));
+                case BYTES -> modeler::toBytes;
+                case ENUM, JSON, RAW -> source -> {
+                    throw new IllegalArgumentException("Unsupported type: " + schema.type());
+                };
+            };
+        }
+
+        private Converter array(Schema schema) {
+            var list = list(schema);
+            return source -> ((List<?>) list.convert(source)).toArray();
+        }
+
+        private Converter list(Schema schema) {
+            var element = compile(schema.valueType());
+            return source -> {
+                if (source instanceof Collection<?> collection) {
+                    if (modeler.isParallel(collection.size())) {
+                        var items = collection.toArray();
+                        modeler.transformAll(items, element::convert);
+                        return new ArrayList<>(Arrays.asList(items));
+                    }
+                    var buf = new ArrayList<>(collection.size());
+                    for (var item : collection) {
+                        buf.add(element.convert(item));
+                    }
+                    return buf;
+                }
+                var iter = Iterators.forAny(source);
+                var buf = new ArrayList<>();
+                while (iter.hasNext()) {
+                    buf.add(element.convert(iter.next()));
+                }
+                return buf;
+            };
+        }
+
+        private Converter lazyList(Schema schema) {
+            var element = compile(schema.valueType());
+            return source -> {
+                if (source instanceof List<?> list && list instanceof RandomAccess) {
+                    return new LazyStruct.LazyList(list, element);
+                }
+                var buf = new ArrayList<>();
+                Iterators.forAny(source).forEachRemaining(buf::add);
+                return new LazyStruct.LazyList(buf, element);
+            };
+        }
+
+        private Converter lazyMap(Schema schema) {
+            var key = compile(schema.keyType());
+            var value = compile(schema.valueType());
+            return source -> {
+                var raw = source instanceof Map<?, ?> map ? map
+                        : JacksonUtils.toMap(source);
+                return new LazyStruct.LazyMap(raw != null ? raw : Map.of(), key, value);
+            };
+        }
+
+        private Converter map(Schema schema) {
+            var key = compile(schema.keyType());
+            var value = compile(schema.valueType());
+            return source -> {
+                var raw = source instanceof Map<?, ?> map ? map
+                        : JacksonUtils.toMap(source);
+                if (raw == null) {
+                    return new HashMap<>();
+                }
+                var distMap = HashMap.newHashMap(raw.size());
+                if (modeler.isParallel(raw.size())) {
+                    var keys = raw.entrySet().toArray();
+                    var values = keys.clone();
+                    modeler.transformAll(keys, e -> key.convert(((Map.Entry<?, ?>) e).getKey()));
+                    modeler.transformAll(values, e -> value.convert(((Map.Entry<?, ?>) e).getValue()));
+                    for (int i = 0; i < keys.length; i++) {
+                        distMap.put(keys[i], values[i]);
+                    }
+                    return distMap;
+                }
+                for (var entry : raw.entrySet()) {
+                    distMap.put(
+                            key.convert(entry.getKey()),
+                            value.convert(entry.getValue())
+                    );
+                }
+                return distMap;
+            };
+        }
+
+        Converter[] fields(Schema schema) {
+            var fields = schema.fields();
+            var converters = new Converter[fields.size()];
+            for (int i = 0; i < converters.length; i++) {
+                converters[i] = compile(fields.get(i).schema());
+            }
+            return converters;
+        }
+
+        Converter compileStruct(Schema schema, Converter[] converters) {
+            return lazy ? lazyStruct(schema, converters) : struct(schema, converters);
+        }
+
+        private static Converter lazyStruct(Schema schema, Converter[] converters) {
+            return source -> {
+                Map<?, ?> raw = source instanceof Map<?, ?> map ? map
+                        : JacksonUtils.toMap(source);
+                return new LazyStruct(schema, raw != null ? raw : Map.of(), converters);
+            };
+        }
+
+        private Converter struct(Schema schema, Converter[] converters) {
+            var fields = schema.fields().toArray(new Schema.Field[0]);
+            var names = new String[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                names[i] = fields[i].name();
+            }
+            @SuppressWarnings("unchecked")
+            var spec = (StructSpec<Object, Object>) modeler.getStructSpec();
+            return source -> {
+                Map<?, ?> raw = source instanceof Map<?, ?> map ? map
+                        : JacksonUtils.toMap(source);
+                if (raw == null) {
+                    raw = Map.of();
+                }
+                var builder = spec.builder(schema);
+                for (int i = 0; i < fields.length; i++) {
+                    spec.set(builder, fields[i], converters[i].convert(raw.get(names[i])));
+                }
+                return spec.build(schema, builder);
+            };
+        }
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import lombok.experimental.UtilityClass;
+import org.jspecify.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link ModeledValue}, driven by schema.
+ * <p>
+ * No field names or type tags are written, so the same schema is required to decode.
+ * <ul>
+ *     <li>{@code SHORT}, {@code INT} and {@code LONG} as zig-zag varints</li>
+ *     <li>{@code FLOAT} and {@code DOUBLE} as fixed little-endian bits</li>
+ *     <li>{@code STRING} and {@code BYTES} as varint length-prefixed bytes, strings in UTF-8</li>
+ *     <li>{@code LIST}, {@code ARRAY} and {@code MAP} as varint count, null bitmaps, then items</li>
+ *     <li>{@code STRUCT} as a null bitmap of fields, then non-null fields in order</li>
+ *     <li>{@code OPTIONAL} and {@code ENUM} as their value type</li>
+ * </ul>
+ * A value is self-delimited, so values could be concatenated in a stream.
+ * {@code JSON} and {@code RAW} types are not supported.
+ */
+@UtilityClass
+public class ModeledValueCodec {
+
+    public static byte[] encode(ModeledValue value) {
+        var encoder = new Encoder(value.structSpec());
+        encoder.writeRoot(value.schema(), value.value());
+        return Arrays.copyOf(encoder.buf, encoder.size);
+    }
+
+    public static void encode(ModeledValue value, OutputStream out) throws IOException {
+        var encoder = new Encoder(value.structSpec());
+        encoder.writeRoot(value.schema(), value.value());
+        out.write(encoder.buf, 0, encoder.size);
+    }
+
+    public static ModeledValue decode(Schema schema, StructSpec<?, ?> structSpec, byte[] bytes) {
+        return decode(schema, structSpec, ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decode a value from the buffer, and advance its position to the end of the value.
+     *
+     * @throws IllegalArgumentException if the buffer ends before the value
+     */
+    public static ModeledValue decode(Schema schema, StructSpec<?, ?> structSpec, ByteBuffer buffer) {
+        try {
+            var value = new BufferDecoder(structSpec, buffer).readRoot(schema);
+            return new ModeledValue(schema, value, structSpec);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Unexpected end of buffer", e);
+        }
+    }
+
+    /**
+     * Decode a value from the stream, only bytes of the value are consumed.
+     *
+     * @throws UncheckedIOException if failed to read, or the stream ends before the value
+     */
+    public static ModeledValue decode(Schema schema, StructSpec<?, ?> structSpec, InputStream in) {
+        var value = new StreamDecoder(structSpec, in).readRoot(schema);
+        return new ModeledValue(schema, value, structSpec);
+    }
+
+    private static Schema unwrap(Schema schema) {
+        while (schema.isOptionalType() || schema.isEnumType()) {
+            schema = schema.valueType();
+        }
+        return schema;
+    }
+
+    private static IllegalArgumentException unsupported(Schema schema) {
+        return new IllegalArgumentException("Unsupported type for binary codec: " + schema.type());
+    }
+
+    private static final class Encoder {
+
+        private final StructSpec<Object, ?> structSpec;
+        private byte[] buf = new byte[64];
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        Encoder(StructSpec<?, ?> structSpec) {
+            this.structSpec = (StructSpec<Object, ?>) structSpec;
+        }
+
+        void writeRoot(Schema schema, @Nullable Object value) {
+            writeByte(value == null ? 0 : 1);
+            if (value != null) {
+                write(schema, value);
+            }
+        }
+
+        private void write(Schema schema, Object value) {
+            schema = unwrap(schema);
+            switch (schema.type()) {
+                case STRING -> writeString(value.toString());
+                case BOOLEAN -> writeByte((Boolean) value ? 1 : 0);
+                case BYTE -> writeByte(((Number) value).byteValue());
+                case SHORT, INT, LONG -> writeZigZag(((Number) value).longValue());
+                case FLOAT -> writeFixed(Float.floatToRawIntBits(((Number) value).floatValue()), 4);
+                case DOUBLE -> writeFixed(Double.doubleToRawLongBits(((Number) value).doubleValue()), 8);
+                case DECIMAL -> {
+                    var decimal = (BigDecimal) value;
+                    writeZigZag(decimal.scale());
+                    writeBytes(decimal.unscaledValue().toByteArray());
+                }
+                case BYTES -> writeBytes((byte[]) value);
+                case INSTANT -> {
+                    var instant = (Instant) value;
+                    writeZigZag(instant.getEpochSecond());
+                    writeVarLong(instant.getNano());
+                }
+                case DATE -> writeZigZag(((LocalDate) value).toEpochDay());
+                case TIME -> writeVarLong(((LocalTime) value).toNanoOfDay());
+                case DATETIME -> writeDateTime((LocalDateTime) value);
+                case DATETIME_ZONED -> {
+                    var zoned = (ZonedDateTime) value;
+                    writeDateTime(zoned.toLocalDateTime());
+                    writeZigZag(zoned.getOffset().getTotalSeconds());
+                    writeString(zoned.getZone().getId());
+                }
+                case ARRAY -> writeItems(schema.valueType(), value instanceof List<?> list ? list
+                        : Arrays.asList((Object[]) value));
+                case LIST -> writeItems(schema.valueType(), (List<?>) value);
+                case MAP -> writeMap(schema, (Map<?, ?>) value);
+                case STRUCT -> writeStruct(schema, value);
+                default -> throw unsupported(schema);
+            }
+        }
+
+        private void writeDateTime(LocalDateTime dateTime) {
+            writeZigZag(dateTime.toLocalDate().toEpochDay());
+            writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+        }
+
+        private void writeItems(Schema valueType, Collection<?> items) {
+            writeVarLong(items.size());
+            writeNullBitmap(items);
+            for (var item : items) {
+                if (item != null) {
+                    write(valueType, item);
+                }
+            }
+        }
+
+        private void writeMap(Schema schema, Map<?, ?> map) {
+            var keyType = schema.keyType();
+            var valueType = schema.valueType();
+            writeVarLong(map.size());
+            writeNullBitmap(map.keySet());
+            writeNullBitmap(map.values());
+            for (var entry : map.entrySet()) {
+                if (entry.getKey() != null) {
+                    write(keyType, entry.getKey());
+                }
+                if (entry.getValue() != null) {
+                    write(valueType, entry.getValue());
+                }
+            }
+        }
+
+        private void writeStruct(Schema schema, Object struct) {
+            var fields = schema.fields();
+            var values = new Object[fields.size()];
+            for (var field : fields) {
+                values[field.pos()] = structSpec.get(struct, field);
+            }
+            writeNullBitmap(Arrays.asList(values));
+            for (var field : fields) {
+                var value = values[field.pos()];
+                if (value != null) {
+                    write(field.schema(), value);
+                }
+            }
+        }
+
+        private void writeNullBitmap(Collection<?> items) {
+            int start = size;
+            int length = (items.size() + 7) >>> 3;
+            ensureCapacity(length);
+            Arrays.fill(buf, start, start + length, (byte) 0);
+            int i = 0;
+            for (var item : items) {
+                if (item == null) {
+                    buf[start + (i >>> 3)] |= (byte) (1 << (i & 7));
+                }
+                i++;
+            }
+            size += length;
+        }
+
+        private void writeString(String str) {
+            writeBytes(str.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+
+        private void writeFixed(long bits, int bytes) {
+            ensureCapacity(bytes);
+            for (int i = 0; i < bytes; i++) {
+                buf[size++] = (byte) (bits >>> (i << 3));
+            }
+        }
+
+        private void writeByte(int b) {
+            ensureCapacity(1);
+            buf[size++] = (byte) b;
+        }
+
+        private void ensureCapacity(int more) {
+            if (size + more > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, size + more));
+            }
+        }
+    }
+
+    private abstract static class Decoder {
+
+        /**
+         * Max initial capacity of lists and maps, counts are not trusted before items are read.
+         */
+        private static final int MAX_PRESIZE = 1024;
+
+        private final StructSpec<Object, Object> structSpec;
+
+        @SuppressWarnings("unchecked")
+        Decoder(StructSpec<?, ?> structSpec) {
+            this.structSpec = (StructSpec<Object, Object>) structSpec;
+        }
+
+        abstract byte readByte();
+
+        /**
+         * Read exactly the given number of bytes, without allocating beyond the input.
+         */
+        abstract byte[] readBytes(int length);
+
+        @Nullable
+        Object readRoot(Schema schema) {
+            return readByte() == 0 ? null : read(schema);
+        }
+
+        private Object read(Schema schema) {
+            schema = unwrap(schema);
+            return switch (schema.type()) {
+                case STRING -> new String(readBytes(), StandardCharsets.UTF_8);
+                case BOOLEAN -> readByte() != 0;
+                case BYTE -> readByte();
+                case SHORT -> (short) readZigZag();
+                case INT -> (int) readZigZag();
+                case LONG -> readZigZag();
+                case FLOAT -> Float.intBitsToFloat((int) readFixed(4));
+                case DOUBLE -> Double.longBitsToDouble(readFixed(8));
+                case DECIMAL -> {
+                    int scale = (int) readZigZag();
+                    yield new BigDecimal(new BigInteger(readBytes()), scale);
+                }
+                case BYTES -> readBytes();
+                case INSTANT -> {
+                    long seconds = readZigZag();
+                    yield Instant.ofEpochSecond(seconds, readVarLong());
+                }
+                case DATE -> LocalDate.ofEpochDay(readZigZag());
+                case TIME -> LocalTime.ofNanoOfDay(readVarLong());
+                case DATETIME -> readDateTime();
+                case DATETIME_ZONED -> {
+                    var dateTime = readDateTime();
+                    var offset = ZoneOffset.ofTotalSeconds((int) readZigZag());
+                    var zone = ZoneId.of(new String(readBytes(), StandardCharsets.UTF_8));
+                    yield ZonedDateTime.ofLocal(dateTime, zone, offset);
+                }
+                case ARRAY -> readItems(schema.valueType()).toArray();
+                case LIST -> readItems(schema.valueType());
+                case MAP -> readMap(schema);
+                case STRUCT -> readStruct(schema);
+                default -> throw unsupported(schema);
+            };
+        }
+
+        private LocalDateTime readDateTime() {
+            var date = LocalDate.ofEpochDay(readZigZag());
+            return LocalDateTime.of(date, LocalTime.ofNanoOfDay(readVarLong()));
+        }
+
+        private List<Object> readItems(Schema valueType) {
+            int count = readCount();
+            var nulls = readNullBitmap(count);
+            var list = new ArrayList<>(Math.min(count, MAX_PRESIZE));
+            for (int i = 0; i < count; i++) {
+                list.add(isNull(nulls, i) ? null : read(valueType));
+            }
+            return list;
+        }
+
+        private Map<Object, Object> readMap(Schema schema) {
+            var keyType = schema.keyType();
+            var valueType = schema.valueType();
+            int count = readCount();
+            var keyNulls = readNullBitmap(count);
+            var valueNulls = readNullBitmap(count);
+            var map = HashMap.newHashMap(Math.min(count, MAX_PRESIZE));
+            for (int i = 0; i < count; i++) {
+                var key = isNull(keyNulls, i) ? null : read(keyType);
+                var value = isNull(valueNulls, i) ? null : read(valueType);
+                map.put(key, value);
+            }
+            return map;
+        }
+
+        private Object readStruct(Schema schema) {
+            var fields = schema.fields();
+            var nulls = readNullBitmap(fields.size());
+            var builder = structSpec.builder(schema);
+            for (var field : fields) {
+                var value = isNull(nulls, field.pos()) ? null : read(field.schema());
+                structSpec.set(builder, field, value);
+            }
+            return structSpec.build(schema, builder);
+        }
+
+        private byte[] readNullBitmap(int count) {
+            return readBytes((count + 7) >>> 3);
+        }
+
+        private static boolean isNull(byte[] bitmap, int index) {
+            return (bitmap[index >>> 3] & (1 << (index & 7))) != 0;
+        }
+
+        private byte[] readBytes() {
+            return readBytes(readCount());
+        }
+
+        private int readCount() {
+            long count = readVarLong();
+            if (count < 0 || count > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Illegal length: " + count);
+            }
+            return (int) count;
+        }
+
+        private long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private long readFixed(int bytes) {
+            long bits = 0;
+            for (int i = 0; i < bytes; i++) {
+                bits |= (readByte() & 0xFFL) << (i << 3);
+            }
+            return bits;
+        }
+    }
+
+    private static final class BufferDecoder extends Decoder {
+
+        private final ByteBuffer buffer;
+
+        BufferDecoder(StructSpec<?, ?> structSpec, ByteBuffer buffer) {
+            super(structSpec);
+            this.buffer = buffer;
+        }
+
+        @Override
+        byte readByte() {
+            return buffer.get();
+        }
+
+        @Override
+        byte[] readBytes(int length) {
+            if (length > buffer.remaining()) {
+                throw new IllegalArgumentException("Illegal length: " + length
+                        + ", only " + buffer.remaining() + " bytes left");
+            }
+            var bytes = new byte[length];
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+
+    private static final class StreamDecoder extends Decoder {
+
+        private final InputStream in;
+
+        StreamDecoder(StructSpec<?, ?> structSpec, InputStream in) {
+            super(structSpec);
+            this.in = in;
+        }
+
+        @Override
+        byte readByte() {
+            try {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("Unexpected end of stream");
+                }
+                return (byte) b;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        byte[] readBytes(int length) {
+            try {
+                // Grows with the bytes actually read, rather than trusting the length
+                var bytes = in.readNBytes(length);
+                if (bytes.length != length) {
+                    throw new EOFException("Unexpected end of stream");
+                }
+                return bytes;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
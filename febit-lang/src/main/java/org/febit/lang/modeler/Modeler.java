@@ -16,22 +16,36 @@
 package org.febit.lang.modeler;
 
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import org.febit.lang.jackson.JacksonUtils;
 import org.febit.lang.util.Iterators;
 import org.jspecify.annotations.Nullable;
+import tools.jackson.core.JsonParser;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.UnaryOperator;
 
 import static org.febit.lang.util.ConvertUtils.toBigDecimal;
 import static org.febit.lang.util.ConvertUtils.toBoolean;
+import static org.febit.lang.util.ConvertUtils.toByteOrDefault;
 import static org.febit.lang.util.ConvertUtils.toDate;
 import static org.febit.lang.util.ConvertUtils.toDateTime;
+import static org.febit.lang.util.ConvertUtils.toDoubleOrDefault;
+import static org.febit.lang.util.ConvertUtils.toFloatOrDefault;
 import static org.febit.lang.util.ConvertUtils.toInstant;
-import static org.febit.lang.util.ConvertUtils.toNumber;
+import static org.febit.lang.util.ConvertUtils.toIntOrDefault;
+import static org.febit.lang.util.ConvertUtils.toLongOrDefault;
+import static org.febit.lang.util.ConvertUtils.toShortOrDefault;
 import static org.febit.lang.util.ConvertUtils.toTime;
 import static org.febit.lang.util.ConvertUtils.toZonedDateTime;
 
@@ -40,6 +54,13 @@ import static org.febit.lang.util.ConvertUtils.toZonedDateTime;
 )
 public class Modeler {
 
+    /**
+     * Default minimum size of a list or map, to be converted in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+    private static final int MIN_PARALLEL_BATCH = 256;
+
     @Getter
     @lombok.Builder.Default
     private final StructSpec<?, ?> structSpec = StructSpecs.asMap();
@@ -48,6 +69,20 @@ public class Modeler {
     @lombok.Builder.Default
     private final DefaultValueProvider defaultValueProvider = DefaultValues::nullable;
 
+    /**
+     * Pool to convert large lists and maps in parallel, {@code null} if sequential.
+     */
+    @Getter
+    @Nullable
+    private final ForkJoinPool parallelPool;
+
+    /**
+     * Minimum size of a list or map, to be converted in parallel.
+     */
+    @Getter
+    @lombok.Builder.Default
+    private final int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
     @Nullable
     public Object process(Schema schema, @Nullable Object source) {
         if (source == null) {
@@ -57,12 +92,12 @@ public class Modeler {
             case OPTIONAL -> process(schema.valueType(), source);
             case STRING -> source.toString();
             case BOOLEAN -> toBoolean(source);
-            case BYTE -> toNumber(source, n -> n instanceof Byte ? n : n.byteValue(), (byte) 0);
-            case SHORT -> toNumber(source, n -> n instanceof Short ? n : n.shortValue(), (short) 0);
-            case INT -> toNumber(source, n -> n instanceof Integer ? n : n.intValue(), 0);
-            case LONG -> toNumber(source, n -> n instanceof Long ? n : n.longValue(), 0L);
-            case FLOAT -> toNumber(source, n -> n instanceof Float ? n : n.floatValue(), 0F);
-            case DOUBLE -> toNumber(source, n -> n instanceof Double ? n : n.doubleValue(), 0D);
+            case BYTE -> source instanceof Byte ? source : toByteOrDefault(source, (byte) 0);
+            case SHORT -> source instanceof Short ? source : toShortOrDefault(source, (short) 0);
+            case INT -> source instanceof Integer ? source : toIntOrDefault(source, 0);
+            case LONG -> source instanceof Long ? source : toLongOrDefault(source, 0L);
+            case FLOAT -> source instanceof Float ? source : toFloatOrDefault(source, 0F);
+            case DOUBLE -> source instanceof Double ? source : toDoubleOrDefault(source, 0D);
             case DECIMAL -> toBigDecimal(source);
             case INSTANT -> toInstant(source);
             case DATE -> toDate(source);
@@ -78,6 +113,47 @@ public class Modeler {
         };
     }
 
+    /**
+     * Read the next value from the JSON parser, directly into the modeled value.
+     * <p>
+     * Struct fields are read from tokens into the struct builder, unknown fields are skipped,
+     * and absent fields are filled with default values, same as {@link #process(Schema, Object)}.
+     * The parser should be positioned on the first token of the value, or before it,
+     * and once returned it's positioned on the last token of the value.
+     */
+    @Nullable
+    public Object processJson(Schema schema, JsonParser parser) {
+        return new ModelerJsonReader(this).read(schema, parser);
+    }
+
+    /**
+     * Compile a reusable plan for the schema, to process values without per-value dispatching.
+     *
+     * @see ModelPlan
+     */
+    public ModelPlan compile(Schema schema) {
+        return ModelPlan.compile(this, schema);
+    }
+
+    /**
+     * Compile a reusable plan for the schema, which materializes structs, lists, arrays and maps lazily.
+     *
+     * @see LazyStruct
+     */
+    public ModelPlan compileLazy(Schema schema) {
+        return ModelPlan.compile(this, schema, true);
+    }
+
+    /**
+     * Process rows of a struct schema into columns.
+     *
+     * @throws IllegalArgumentException if the schema is not a struct
+     * @see StructBatch
+     */
+    public StructBatch processBatch(Schema schema, Iterable<?> rows) {
+        return compile(schema).processBatch(rows);
+    }
+
     /**
      * Process the given source using the schema and return a ModeledValue
      */
@@ -86,6 +162,16 @@ public class Modeler {
         return new ModeledValue(schema, value, this.structSpec);
     }
 
+    /**
+     * Process the given source using the schema and return a ModeledValue,
+     * fields and elements are converted on first access.
+     *
+     * @see LazyStruct
+     */
+    public ModeledValue processAsLazyModeled(Schema schema, @Nullable Object source) {
+        return compileLazy(schema).processAsModeled(source);
+    }
+
     public byte @Nullable [] toBytes(@Nullable Object source) {
         return switch (source) {
             case null -> null;
@@ -106,14 +192,32 @@ public class Modeler {
     }
 
     public Object[] constructArray(Schema schema, @Nullable Object raw) {
+        var valueType = schema.valueType();
+        if (raw instanceof Collection<?> collection && isParallel(collection.size())) {
+            var items = collection.toArray();
+            transformAll(items, item -> process(valueType, item));
+            return items;
+        }
         return constructList(schema, raw)
                 .toArray();
     }
 
     public List<Object> constructList(Schema schema, @Nullable Object raw) {
+        var valueType = schema.valueType();
+        if (raw instanceof Collection<?> collection) {
+            if (isParallel(collection.size())) {
+                var items = collection.toArray();
+                transformAll(items, item -> process(valueType, item));
+                return new ArrayList<>(Arrays.asList(items));
+            }
+            var buf = new ArrayList<>(collection.size());
+            for (var item : collection) {
+                buf.add(process(valueType, item));
+            }
+            return buf;
+        }
         var iter = Iterators.forAny(raw);
         var buf = new ArrayList<>();
-        var valueType = schema.valueType();
         while (iter.hasNext()) {
             buf.add(process(valueType, iter.next()));
         }
@@ -137,6 +241,16 @@ public class Modeler {
         var distMap = HashMap.newHashMap(raw.size());
         var keyType = schema.keyType();
         var valueType = schema.valueType();
+        if (isParallel(raw.size())) {
+            var keys = raw.entrySet().toArray();
+            var values = keys.clone();
+            transformAll(keys, e -> process(keyType, ((Map.Entry<?, ?>) e).getKey()));
+            transformAll(values, e -> process(valueType, ((Map.Entry<?, ?>) e).getValue()));
+            for (int i = 0; i < keys.length; i++) {
+                distMap.put(keys[i], values[i]);
+            }
+            return distMap;
+        }
         for (var entry : raw.entrySet()) {
             var key = process(keyType, entry.getKey());
             var value = process(valueType, entry.getValue());
@@ -145,6 +259,52 @@ public class Modeler {
         return distMap;
     }
 
+    /**
+     * Whether a list or map of the size should be converted in parallel.
+     */
+    boolean isParallel(int size) {
+        return parallelPool != null && size >= parallelThreshold;
+    }
+
+    /**
+     * Transform items in place, in parallel.
+     */
+    void transformAll(@Nullable Object[] items, UnaryOperator<@Nullable Object> transformer) {
+        var pool = Objects.requireNonNull(parallelPool);
+        int batch = Math.max(MIN_PARALLEL_BATCH, items.length / (pool.getParallelism() * 4));
+        var task = new TransformTask(items, transformer, 0, items.length, batch);
+        if (ForkJoinTask.getPool() == pool) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class TransformTask extends RecursiveAction {
+
+        private final @Nullable Object[] items;
+        private final UnaryOperator<@Nullable Object> transformer;
+        private final int from;
+        private final int to;
+        private final int batch;
+
+        @Override
+        protected void compute() {
+            if (to - from > batch) {
+                int mid = (from + to) >>> 1;
+                invokeAll(
+                        new TransformTask(items, transformer, from, mid, batch),
+                        new TransformTask(items, transformer, mid, to, batch)
+                );
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                items[i] = transformer.apply(items[i]);
+            }
+        }
+    }
+
     public <T> T constructStruct(Schema schema, @Nullable Object raw) {
         if (raw == null) {
             return constructStruct0(schema, Map.of());
@@ -190,6 +350,24 @@ public class Modeler {
             return defaultValueProvider(DefaultValues::nullable);
         }
 
+        /**
+         * Convert large lists and maps in parallel, on the common fork-join pool.
+         *
+         * @see #parallelThreshold(int)
+         */
+        public Builder parallel() {
+            return parallelPool(ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Convert large lists and maps in parallel, on the given fork-join pool.
+         *
+         * @see #parallelThreshold(int)
+         */
+        public Builder parallel(ForkJoinPool pool) {
+            return parallelPool(pool);
+        }
+
         public Builder structAsMap() {
             return structSpec(StructSpecs.asMap());
         }
@@ -202,15 +380,35 @@ public class Modeler {
             return structSpec(StructSpecs.asArray());
         }
 
+        public Builder structAsPacked() {
+            return structSpec(StructSpecs.asPacked());
+        }
+
+        public Builder structAsRecord(Schema schema, Class<? extends Record> type) {
+            return structSpec(StructSpecs.asRecord(schema, type));
+        }
+
         @Nullable
         public Object process(Schema schema, @Nullable Object source) {
             return build().process(schema, source);
         }
 
+        public ModelPlan compile(Schema schema) {
+            return build().compile(schema);
+        }
+
+        public ModelPlan compileLazy(Schema schema) {
+            return build().compileLazy(schema);
+        }
+
         @Nullable
         public ModeledValue processAsModeled(Schema schema, @Nullable Object source) {
             return build().processAsModeled(schema, source);
         }
+
+        public ModeledValue processAsLazyModeled(Schema schema, @Nullable Object source) {
+            return build().processAsLazyModeled(schema, source);
+        }
     }
 
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads JSON tokens directly into modeled values, without building intermediate maps.
+ *
+ * @see Modeler#processJson(Schema, JsonParser)
+ */
+@RequiredArgsConstructor
+final class ModelerJsonReader {
+
+    private final Modeler modeler;
+
+    /**
+     * Read a value, the parser should be positioned on the first token of it, or before it.
+     * <p>
+     * Once returned, the parser is positioned on the last token of the value.
+     */
+    @Nullable
+    Object read(Schema schema, JsonParser parser) throws JacksonException {
+        var token = parser.currentToken();
+        if (token == null || token == JsonToken.PROPERTY_NAME) {
+            token = parser.nextToken();
+            if (token == null) {
+                return modeler.defaultValueFor(schema);
+            }
+        }
+        return read(schema, parser, token);
+    }
+
+    @Nullable
+    private Object read(Schema schema, JsonParser parser, JsonToken token) throws JacksonException {
+        if (token == JsonToken.VALUE_NULL) {
+            return modeler.defaultValueFor(schema);
+        }
+        return switch (schema.type()) {
+            case OPTIONAL -> read(schema.valueType(), parser, token);
+            case BOOLEAN -> token.isBoolean() ? parser.getBooleanValue()
+                    : token.isNumeric() ? parser.getDoubleValue() == 1D
+                    : modeler.process(schema, readAny(parser, token));
+            case BYTE -> isLong(parser, token) ? (byte) parser.getLongValue()
+                    : isDouble(token) ? (byte) (int) parser.getDoubleValue()
+                    : modeler.process(schema, readAny(parser, token));
+            case SHORT -> isLong(parser, token) ? (short) parser.getLongValue()
+                    : isDouble(token) ? (short) (int) parser.getDoubleValue()
+                    : modeler.process(schema, readAny(parser, token));
+            case INT -> isLong(parser, token) ? (int) parser.getLongValue()
+                    : isDouble(token) ? (int) parser.getDoubleValue()
+                    : modeler.process(schema, readAny(parser, token));
+            case LONG -> isLong(parser, token) ? parser.getLongValue()
+                    : isDouble(token) ? (long) parser.getDoubleValue()
+                    : modeler.process(schema, readAny(parser, token));
+            case FLOAT -> isLong(parser, token) ? (float) parser.getLongValue()
+                    : isDouble(token) ? (float) parser.getDoubleValue()
+                    : modeler.process(schema, readAny(parser, token));
+            case DOUBLE -> token.isNumeric() ? parser.getDoubleValue()
+                    : modeler.process(schema, readAny(parser, token));
+            case STRING -> token == JsonToken.VALUE_STRING
+                    ? parser.getString()
+                    : modeler.process(schema, readAny(parser, token));
+            case DECIMAL -> token.isNumeric()
+                    ? parser.getDecimalValue()
+                    : modeler.process(schema, readAny(parser, token));
+            case STRUCT -> token == JsonToken.START_OBJECT
+                    ? readStruct(schema, parser)
+                    : modeler.process(schema, readAny(parser, token));
+            case MAP -> token == JsonToken.START_OBJECT
+                    ? readMap(schema, parser)
+                    : modeler.process(schema, readAny(parser, token));
+            case LIST -> token == JsonToken.START_ARRAY
+                    ? readList(schema, parser)
+                    : modeler.process(schema, readAny(parser, token));
+            case ARRAY -> token == JsonToken.START_ARRAY
+                    ? readList(schema, parser).toArray()
+                    : modeler.process(schema, readAny(parser, token));
+            default -> modeler.process(schema, readAny(parser, token));
+        };
+    }
+
+    /**
+     * Whether the token is an integer that fits in long, narrowed by casts as {@link Number#intValue()} does.
+     */
+    private static boolean isLong(JsonParser parser, JsonToken token) throws JacksonException {
+        if (token != JsonToken.VALUE_NUMBER_INT) {
+            return false;
+        }
+        var type = parser.getNumberType();
+        return type == JsonParser.NumberType.INT || type == JsonParser.NumberType.LONG;
+    }
+
+    private static boolean isDouble(JsonToken token) {
+        return token == JsonToken.VALUE_NUMBER_FLOAT;
+    }
+
+    private List<Object> readList(Schema schema, JsonParser parser) throws JacksonException {
+        var valueType = schema.valueType();
+        var list = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            list.add(read(valueType, parser, token));
+        }
+        return list;
+    }
+
+    private Map<Object, Object> readMap(Schema schema, JsonParser parser) throws JacksonException {
+        var keyType = schema.keyType();
+        var valueType = schema.valueType();
+        var map = new HashMap<>();
+        String name;
+        while ((name = parser.nextName()) != null) {
+            var key = modeler.process(keyType, name);
+            map.put(key, read(valueType, parser, parser.nextToken()));
+        }
+        return map;
+    }
+
+    private <T, B> T readStruct(Schema schema, JsonParser parser) throws JacksonException {
+        @SuppressWarnings("unchecked")
+        var spec = (StructSpec<T, B>) modeler.getStructSpec();
+        var builder = spec.builder(schema);
+        var assigned = new BitSet(schema.fieldsSize());
+        String name;
+        while ((name = parser.nextName()) != null) {
+            var token = parser.nextToken();
+            var field = findField(schema, name);
+            if (field == null) {
+                parser.skipChildren();
+                continue;
+            }
+            spec.set(builder, field, read(field.schema(), parser, token));
+            assigned.set(field.pos());
+        }
+        for (var field : schema.fields()) {
+            if (!assigned.get(field.pos())) {
+                spec.set(builder, field, modeler.defaultValueFor(field.schema()));
+            }
+        }
+        return spec.build(schema, builder);
+    }
+
+    private static Schema.@Nullable Field findField(Schema schema, String name) {
+        if (schema instanceof StructSchema struct) {
+            return struct.findField(name);
+        }
+        for (var field : schema.fields()) {
+            if (field.name().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read any value as plain java objects, like parsing JSON into a map.
+     */
+    @Nullable
+    private static Object readAny(JsonParser parser, JsonToken token) throws JacksonException {
+        return switch (token) {
+            case VALUE_STRING -> parser.getString();
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_EMBEDDED_OBJECT -> parser.getEmbeddedObject();
+            case START_ARRAY -> {
+                var list = new ArrayList<>();
+                JsonToken next;
+                while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    list.add(readAny(parser, next));
+                }
+                yield list;
+            }
+            case START_OBJECT -> {
+                var map = new LinkedHashMap<String, Object>();
+                String name;
+                while ((name = parser.nextName()) != null) {
+                    map.put(name, readAny(parser, parser.nextToken()));
+                }
+                yield map;
+            }
+            default -> null;
+        };
+    }
+}
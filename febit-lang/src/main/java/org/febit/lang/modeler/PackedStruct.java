@@ -0,0 +1,264 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A struct laid out as a {@code long[]} of primitive slots, and an {@code Object[]} of references.
+ * <p>
+ * {@code BOOLEAN}, {@code BYTE}, {@code SHORT}, {@code INT}, {@code LONG}, {@code FLOAT} and {@code DOUBLE}
+ * fields (also optional ones) are packed in slots without boxing, followed by null bits of them.
+ * Other fields are kept in references.
+ *
+ * @see StructSpecs#asPacked()
+ */
+public final class PackedStruct {
+
+    private final Layout layout;
+    private final long[] slots;
+    private final @Nullable Object[] refs;
+
+    PackedStruct(Layout layout) {
+        this.layout = layout;
+        this.slots = layout.initialSlots.clone();
+        this.refs = new Object[layout.refsSize];
+    }
+
+    public Schema schema() {
+        return layout.schema;
+    }
+
+    /**
+     * Whether the field is packed in primitive slots.
+     */
+    public boolean isPrimitive(Schema.Field field) {
+        return layout.kinds[field.pos()] != Layout.REF;
+    }
+
+    public boolean isNull(Schema.Field field) {
+        int pos = field.pos();
+        if (layout.kinds[pos] == Layout.REF) {
+            return refs[layout.offsets[pos]] == null;
+        }
+        return isNullSlot(layout.offsets[pos]);
+    }
+
+    /**
+     * Returns the boxed value of the field.
+     */
+    @Nullable
+    public Object get(Schema.Field field) {
+        int pos = field.pos();
+        int offset = layout.offsets[pos];
+        var kind = layout.kinds[pos];
+        if (kind == Layout.REF) {
+            return refs[offset];
+        }
+        if (isNullSlot(offset)) {
+            return null;
+        }
+        long slot = slots[offset];
+        return switch (kind) {
+            case BOOLEAN -> slot != 0;
+            case BYTE -> (byte) slot;
+            case SHORT -> (short) slot;
+            case INT -> (int) slot;
+            case LONG -> slot;
+            case FLOAT -> Float.intBitsToFloat((int) slot);
+            case DOUBLE -> Double.longBitsToDouble(slot);
+            default -> throw new IllegalStateException("Unexpected kind: " + kind);
+        };
+    }
+
+    /**
+     * Returns the int value, {@code 0} if null.
+     *
+     * @throws UnsupportedOperationException if the field is not a byte, short or int field
+     */
+    public int getInt(Schema.Field field) {
+        return switch (kind(field)) {
+            case BYTE, SHORT, INT -> (int) slot(field);
+            default -> throw unsupported(field, "int");
+        };
+    }
+
+    /**
+     * Returns the long value, {@code 0} if null.
+     *
+     * @throws UnsupportedOperationException if the field is not an integral field
+     */
+    public long getLong(Schema.Field field) {
+        return switch (kind(field)) {
+            case BYTE, SHORT, INT, LONG -> slot(field);
+            default -> throw unsupported(field, "long");
+        };
+    }
+
+    /**
+     * Returns the double value, {@code 0} if null.
+     *
+     * @throws UnsupportedOperationException if the field is not a numeric primitive field
+     */
+    public double getDouble(Schema.Field field) {
+        return switch (kind(field)) {
+            case BYTE, SHORT, INT, LONG -> slot(field);
+            case FLOAT -> Float.intBitsToFloat((int) slot(field));
+            case DOUBLE -> Double.longBitsToDouble(slot(field));
+            default -> throw unsupported(field, "double");
+        };
+    }
+
+    /**
+     * Returns the boolean value, {@code false} if null.
+     *
+     * @throws UnsupportedOperationException if the field is not a boolean field
+     */
+    public boolean getBoolean(Schema.Field field) {
+        if (kind(field) != SchemaType.BOOLEAN) {
+            throw unsupported(field, "boolean");
+        }
+        return slot(field) != 0;
+    }
+
+    void set(Schema.Field field, @Nullable Object value) {
+        int pos = field.pos();
+        int offset = layout.offsets[pos];
+        var kind = layout.kinds[pos];
+        if (kind == Layout.REF) {
+            refs[offset] = value;
+            return;
+        }
+        int nullWord = layout.primitivesSize + (offset >>> 6);
+        long nullBit = 1L << offset;
+        if (value == null) {
+            slots[offset] = 0;
+            slots[nullWord] |= nullBit;
+            return;
+        }
+        slots[nullWord] &= ~nullBit;
+        slots[offset] = switch (kind) {
+            case BOOLEAN -> (Boolean) value ? 1 : 0;
+            case FLOAT -> Float.floatToRawIntBits(((Number) value).floatValue());
+            case DOUBLE -> Double.doubleToRawLongBits(((Number) value).doubleValue());
+            default -> ((Number) value).longValue();
+        };
+    }
+
+    private boolean isNullSlot(int offset) {
+        return (slots[layout.primitivesSize + (offset >>> 6)] & (1L << offset)) != 0;
+    }
+
+    private SchemaType kind(Schema.Field field) {
+        return layout.kinds[field.pos()];
+    }
+
+    private long slot(Schema.Field field) {
+        return slots[layout.offsets[field.pos()]];
+    }
+
+    private static UnsupportedOperationException unsupported(Schema.Field field, String type) {
+        return new UnsupportedOperationException("Field '" + field.name() + "' is not readable as " + type);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PackedStruct other)) {
+            return false;
+        }
+        return layout.schema.equals(other.layout.schema)
+                && Arrays.equals(slots, other.slots)
+                && Arrays.deepEquals(refs, other.refs);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(slots) + Arrays.deepHashCode(refs);
+    }
+
+    @Override
+    public String toString() {
+        var buf = new StringBuilder();
+        buf.append('{');
+        for (var field : layout.schema.fields()) {
+            if (field.pos() != 0) {
+                buf.append(", ");
+            }
+            buf.append(field.name())
+                    .append('=')
+                    .append(get(field));
+        }
+        return buf.append('}').toString();
+    }
+
+    /**
+     * Offsets of fields, pre-computed per struct schema.
+     */
+    static final class Layout {
+
+        /**
+         * Kind of reference fields.
+         */
+        private static final SchemaType REF = SchemaType.RAW;
+
+        private final Schema schema;
+        private final SchemaType[] kinds;
+        private final int[] offsets;
+        private final int primitivesSize;
+        private final int refsSize;
+
+        /**
+         * Initial slots, all primitives are null.
+         */
+        private final long[] initialSlots;
+
+        Layout(Schema schema) {
+            this.schema = schema;
+            List<Schema.Field> fields = schema.fields();
+            this.kinds = new SchemaType[fields.size()];
+            this.offsets = new int[fields.size()];
+            int primitives = 0;
+            int references = 0;
+            for (var field : fields) {
+                var kind = kindOf(field.schema());
+                kinds[field.pos()] = kind;
+                offsets[field.pos()] = kind == REF ? references++ : primitives++;
+            }
+            this.primitivesSize = primitives;
+            this.refsSize = references;
+            this.initialSlots = new long[primitives + ((primitives + 63) >>> 6)];
+            for (int i = 0; i < primitives; i++) {
+                initialSlots[primitives + (i >>> 6)] |= 1L << i;
+            }
+        }
+
+        private static SchemaType kindOf(Schema schema) {
+            var type = schema.isOptionalType()
+                    ? schema.valueType().type()
+                    : schema.type();
+            return switch (type) {
+                case BOOLEAN, BYTE, SHORT, INT, LONG, FLOAT, DOUBLE -> type;
+                default -> REF;
+            };
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import org.jspecify.annotations.Nullable;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structs as user-declared Java records, see {@link StructSpecs#asRecord(Schema, Class)}.
+ * <p>
+ * Record components are bound to fields by name, nested structs are bound to records of component types,
+ * including element types of lists, arrays and maps.
+ * Constructors and accessors are resolved once per record, as method handles.
+ * Bindings are looked up by schema identity first, so rows of the bound schema skip deep schema hashing.
+ * <p>
+ * Method handles are not serializable, only the root schema and record type are serialized,
+ * and bindings are resolved again on deserialization.
+ */
+class RecordStructSpec implements StructSpec<Record, RecordStructSpec.Builder>, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Schema schema;
+    private final Class<? extends Record> type;
+
+    private final transient Map<Schema, Binding> byIdentity = new IdentityHashMap<>();
+    private final transient Map<Schema, Binding> bySchema = new HashMap<>();
+    private final transient Map<Class<?>, Binding> byType = new HashMap<>();
+
+    RecordStructSpec(Schema schema, Class<? extends Record> type) {
+        this.schema = schema;
+        this.type = type;
+        bind(schema, type);
+    }
+
+    @Serial
+    private Object readResolve() {
+        return new RecordStructSpec(schema, type);
+    }
+
+    private void bind(Schema schema, Class<?> type) {
+        if (!type.isRecord()) {
+            throw new IllegalArgumentException("Not a record: " + type.getName() + ", for schema: " + schema);
+        }
+        var exists = bySchema.get(schema);
+        if (exists != null) {
+            if (exists.type != type) {
+                throw new IllegalArgumentException("Schema is already bound to "
+                        + exists.type.getName() + ": " + schema);
+            }
+            byIdentity.putIfAbsent(schema, exists);
+            return;
+        }
+        var bound = byType.get(type);
+        if (bound != null) {
+            // Accessors are indexed by field positions, so fields must be the same.
+            if (!fieldNames(bound.schema).equals(fieldNames(schema))) {
+                throw new IllegalArgumentException("Record is already bound to another schema: " + type.getName());
+            }
+            bySchema.put(schema, bound);
+            byIdentity.put(schema, bound);
+            return;
+        }
+        var binding = new Binding(schema, type);
+        bySchema.put(schema, binding);
+        byIdentity.put(schema, binding);
+        byType.put(type, binding);
+
+        for (var field : schema.fields()) {
+            var component = binding.components[binding.indexes[field.pos()]];
+            bindNested(field.schema(), component.getGenericType());
+        }
+    }
+
+    private void bindNested(Schema schema, Type type) {
+        switch (schema.type()) {
+            case OPTIONAL -> bindNested(schema.valueType(), type);
+            case STRUCT -> bind(schema, rawType(type));
+            case LIST, ARRAY, MAP -> {
+                var elementType = elementType(type);
+                if (elementType != null) {
+                    bindNested(schema.valueType(), elementType);
+                }
+            }
+            default -> {
+                // Scalars, no need to bind.
+            }
+        }
+    }
+
+    private static List<String> fieldNames(Schema schema) {
+        return schema.fields().stream()
+                .map(Schema.Field::name)
+                .toList();
+    }
+
+    private static Class<?> rawType(Type type) {
+        return switch (type) {
+            case Class<?> cls -> cls;
+            case ParameterizedType parameterized -> rawType(parameterized.getRawType());
+            default -> Object.class;
+        };
+    }
+
+    @Nullable
+    private static Type elementType(Type type) {
+        return switch (type) {
+            case Class<?> cls when cls.isArray() -> cls.getComponentType();
+            case GenericArrayType array -> array.getGenericComponentType();
+            case ParameterizedType parameterized -> {
+                var args = parameterized.getActualTypeArguments();
+                yield args[args.length - 1];
+            }
+            default -> null;
+        };
+    }
+
+    private Binding binding(Schema schema) {
+        var binding = byIdentity.get(schema);
+        if (binding != null) {
+            return binding;
+        }
+        // Equal schema but another instance, maps are never modified after construction.
+        binding = bySchema.get(schema);
+        if (binding == null) {
+            throw new IllegalArgumentException("No record bound for schema: " + schema);
+        }
+        return binding;
+    }
+
+    @Override
+    public Builder builder(Schema schema) {
+        var binding = binding(schema);
+        return new Builder(binding, binding.defaults.clone());
+    }
+
+    @Override
+    public Record build(Schema schema, Builder builder) {
+        try {
+            return (Record) builder.binding.constructor.invokeExact(builder.args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to construct record: " + builder.binding.type.getName(), e);
+        }
+    }
+
+    @Override
+    public void set(Builder builder, Schema.Field field, @Nullable Object value) {
+        var binding = builder.binding;
+        int index = binding.indexes[field.pos()];
+        builder.args[index] = value != null ? value : binding.defaults[index];
+    }
+
+    @Nullable
+    @Override
+    public Object get(Record struct, Schema.Field field) {
+        var binding = byType.get(struct.getClass());
+        if (binding == null) {
+            throw new IllegalArgumentException("No schema bound for record: " + struct.getClass().getName());
+        }
+        try {
+            return (Object) binding.getters[field.pos()].invokeExact((Object) struct);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to get field: " + field.name(), e);
+        }
+    }
+
+    static final class Builder {
+
+        private final Binding binding;
+        private final @Nullable Object[] args;
+
+        private Builder(Binding binding, @Nullable Object[] args) {
+            this.binding = binding;
+            this.args = args;
+        }
+    }
+
+    private static final class Binding {
+
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+        final Schema schema;
+        final Class<?> type;
+        final RecordComponent[] components;
+
+        /**
+         * Component index by field position.
+         */
+        final int[] indexes;
+
+        /**
+         * Accessor by field position.
+         */
+        final MethodHandle[] getters;
+
+        /**
+         * Default value by component index, zero for primitives.
+         */
+        final @Nullable Object[] defaults;
+
+        /**
+         * Canonical constructor, as {@code (Object[]) -> Record}.
+         */
+        final MethodHandle constructor;
+
+        Binding(Schema schema, Class<?> type) {
+            this.schema = schema;
+            this.type = type;
+            this.components = type.getRecordComponents();
+
+            var componentTypes = new Class<?>[components.length];
+            var componentIndexes = new HashMap<String, Integer>();
+            this.defaults = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                var componentType = components[i].getType();
+                componentTypes[i] = componentType;
+                componentIndexes.put(components[i].getName(), i);
+                if (componentType.isPrimitive()) {
+                    defaults[i] = Array.get(Array.newInstance(componentType, 1), 0);
+                }
+            }
+
+            var fields = schema.fields();
+            this.indexes = new int[fields.size()];
+            this.getters = new MethodHandle[fields.size()];
+            try {
+                var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                for (var field : fields) {
+                    var index = componentIndexes.get(field.name());
+                    if (index == null) {
+                        throw new IllegalArgumentException("No component '" + field.name()
+                                + "' in record " + type.getName() + ", for schema: " + schema);
+                    }
+                    indexes[field.pos()] = index;
+                    getters[field.pos()] = lookup.unreflect(components[index].getAccessor())
+                            .asType(GETTER_TYPE);
+                }
+                this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class, componentTypes))
+                        .asSpreader(Object[].class, components.length)
+                        .asType(MethodType.methodType(Record.class, Object[].class));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Record is not accessible: " + type.getName(), e);
+            }
+        }
+    }
+}
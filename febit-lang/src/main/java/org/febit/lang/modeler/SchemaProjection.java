@@ -0,0 +1,348 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.febit.lang.util.ConvertUtils;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Projection of structs written by a writer schema, to be read as a reader schema.
+ * <p>
+ * Fields are mapped by name, and the mapping is resolved up front:
+ * <ul>
+ *     <li>fields only in the reader are filled with default values, or {@code null} without a modeler</li>
+ *     <li>{@code null} of optional fields, read as required fields, are replaced with default values</li>
+ *     <li>fields only in the writer are dropped</li>
+ *     <li>numbers are widened to wider types: byte, short, int, long, float, double, decimal</li>
+ *     <li>nested structs, lists, arrays and maps are projected recursively</li>
+ * </ul>
+ * Fields of the same schema are copied as is, without re-running {@link Modeler#process(Schema, Object)}.
+ * <p>
+ * Projections are immutable and thread-safe, and supposed to be reused.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class SchemaProjection {
+
+    /**
+     * Number types, and the types they can be widened to.
+     */
+    private static final Map<SchemaType, Set<SchemaType>> WIDENING = new EnumMap<>(SchemaType.class);
+
+    static {
+        WIDENING.put(SchemaType.BYTE, EnumSet.of(SchemaType.SHORT, SchemaType.INT, SchemaType.LONG,
+                SchemaType.FLOAT, SchemaType.DOUBLE, SchemaType.DECIMAL));
+        WIDENING.put(SchemaType.SHORT, EnumSet.of(SchemaType.INT, SchemaType.LONG,
+                SchemaType.FLOAT, SchemaType.DOUBLE, SchemaType.DECIMAL));
+        WIDENING.put(SchemaType.INT, EnumSet.of(SchemaType.LONG,
+                SchemaType.FLOAT, SchemaType.DOUBLE, SchemaType.DECIMAL));
+        WIDENING.put(SchemaType.LONG, EnumSet.of(SchemaType.FLOAT, SchemaType.DOUBLE, SchemaType.DECIMAL));
+        WIDENING.put(SchemaType.FLOAT, EnumSet.of(SchemaType.DOUBLE, SchemaType.DECIMAL));
+        WIDENING.put(SchemaType.DOUBLE, EnumSet.of(SchemaType.DECIMAL));
+        WIDENING.put(SchemaType.DECIMAL, EnumSet.noneOf(SchemaType.class));
+    }
+
+    @Getter
+    private final Schema writer;
+
+    @Getter
+    private final Schema reader;
+
+    @Nullable
+    private final Modeler modeler;
+
+    /**
+     * Writer fields by reader field position, {@code null} if absent in writer.
+     */
+    private final Schema.@Nullable Field[] sources;
+
+    /**
+     * Mappers by reader field position, {@code null} if copy as is.
+     */
+    private final @Nullable Mapper[] mappers;
+
+    /**
+     * Whether {@code null} is replaced with the default value, by reader field position.
+     */
+    private final boolean[] defaults;
+
+    /**
+     * Whether writer fields are at the same positions, and all copied as is.
+     */
+    @Getter
+    private final boolean identity;
+
+    /**
+     * Create projection, fields absent in writer are {@code null}.
+     *
+     * @throws IllegalArgumentException if schemas are not structs, or not compatible
+     */
+    public static SchemaProjection of(Schema writer, Schema reader) {
+        return create(writer, reader, null);
+    }
+
+    /**
+     * Create projection, fields absent in writer are default values of the modeler.
+     *
+     * @throws IllegalArgumentException if schemas are not structs, or not compatible
+     */
+    public static SchemaProjection of(Schema writer, Schema reader, Modeler modeler) {
+        return create(writer, reader, modeler);
+    }
+
+    private static SchemaProjection create(Schema writer, Schema reader, @Nullable Modeler modeler) {
+        if (!writer.isStructType() || !reader.isStructType()) {
+            throw new IllegalArgumentException("Projection requires structs, but got: "
+                    + writer + " -> " + reader);
+        }
+        var fields = reader.fields();
+        var sources = new Schema.Field[fields.size()];
+        var mappers = new Mapper[fields.size()];
+        var defaults = new boolean[fields.size()];
+        boolean identity = writer.fieldsSize() == reader.fieldsSize();
+        for (var field : fields) {
+            var source = findField(writer, field.name());
+            if (source == null) {
+                identity = false;
+                continue;
+            }
+            var mapper = mapper(source.schema(), field.schema(), modeler, field.name());
+            var useDefault = modeler != null
+                    && source.schema().isOptionalType()
+                    && !field.schema().isOptionalType();
+            sources[field.pos()] = source;
+            mappers[field.pos()] = mapper;
+            defaults[field.pos()] = useDefault;
+            identity &= mapper == null && !useDefault && source.pos() == field.pos();
+        }
+        return new SchemaProjection(writer, reader, modeler, sources, mappers, defaults, identity);
+    }
+
+    /**
+     * Project the struct of writer schema, to a struct of reader schema, in the same spec.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public Object project(StructSpec<?, ?> spec, @Nullable Object struct) {
+        if (struct == null || identity) {
+            return struct;
+        }
+        var typed = (StructSpec<Object, Object>) spec;
+        if (struct instanceof Object[] array && spec == StructSpecs.asArray()) {
+            var result = new Object[sources.length];
+            for (int i = 0; i < result.length; i++) {
+                var source = sources[i];
+                result[i] = source == null ? defaultValue(i)
+                        : map(typed, i, array[source.pos()]);
+            }
+            return result;
+        }
+        if (struct instanceof List<?> list && spec == StructSpecs.asList()) {
+            var result = new ArrayList<>(sources.length);
+            for (int i = 0; i < sources.length; i++) {
+                var source = sources[i];
+                result.add(source == null ? defaultValue(i)
+                        : map(typed, i, list.get(source.pos())));
+            }
+            return result;
+        }
+        var fields = reader.fields();
+        var builder = typed.builder(reader);
+        for (int i = 0; i < sources.length; i++) {
+            var source = sources[i];
+            typed.set(builder, fields.get(i), source == null ? defaultValue(i)
+                    : map(typed, i, typed.get(struct, source)));
+        }
+        return typed.build(reader, builder);
+    }
+
+    /**
+     * Project the modeled value, to a value of reader schema.
+     *
+     * @throws IllegalArgumentException if schema of the value is not the writer schema
+     */
+    public ModeledValue project(ModeledValue value) {
+        if (!writer.equals(value.schema())) {
+            throw new IllegalArgumentException("Schema mismatch, expected: " + writer
+                    + ", but got: " + value.schema());
+        }
+        var spec = value.structSpec();
+        return new ModeledValue(reader, project(spec, value.value()), spec);
+    }
+
+    @Nullable
+    private Object map(StructSpec<Object, Object> spec, int index, @Nullable Object value) {
+        if (value == null) {
+            return defaults[index] ? defaultValue(index) : null;
+        }
+        var mapper = mappers[index];
+        if (mapper == null) {
+            return value;
+        }
+        return mapper.map(spec, value);
+    }
+
+    @Nullable
+    private Object defaultValue(int index) {
+        return modeler == null ? null
+                : modeler.defaultValueFor(reader.fields().get(index).schema());
+    }
+
+    private static Schema.@Nullable Field findField(Schema schema, String name) {
+        if (schema instanceof StructSchema struct) {
+            return struct.findField(name);
+        }
+        for (var field : schema.fields()) {
+            if (field.name().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static Schema unwrapOptional(Schema schema) {
+        return schema.isOptionalType() ? schema.valueType() : schema;
+    }
+
+    private static boolean isWidening(SchemaType from, SchemaType to) {
+        var targets = WIDENING.get(from);
+        return targets != null && targets.contains(to);
+    }
+
+    /**
+     * Resolve mapper from writer to reader, {@code null} if copy as is.
+     * <p>
+     * Values are copied as is only if both schemas are equal.
+     *
+     * @throws IllegalArgumentException if no conversion applies
+     */
+    @Nullable
+    private static Mapper mapper(Schema writer, Schema reader, @Nullable Modeler modeler, String path) {
+        writer = unwrapOptional(writer);
+        reader = unwrapOptional(reader);
+        if (writer.equals(reader)) {
+            return null;
+        }
+        var from = writer.type();
+        var to = reader.type();
+        if (isWidening(from, to)) {
+            return number(to);
+        }
+        if (from == to) {
+            return switch (to) {
+                case STRUCT -> {
+                    var nested = create(writer, reader, modeler);
+                    yield nested.identity ? null : nested::project;
+                }
+                case LIST -> list(mapper(writer.valueType(), reader.valueType(), modeler, path + "[]"));
+                case ARRAY -> array(mapper(writer.valueType(), reader.valueType(), modeler, path + "[]"));
+                case MAP -> map(
+                        mapper(writer.keyType(), reader.keyType(), modeler, path + "{key}"),
+                        mapper(writer.valueType(), reader.valueType(), modeler, path + "{}")
+                );
+                // Same type but different schemas, e.g. enums or JSON of other value types
+                default -> throw cannotProject(writer, reader, path);
+            };
+        }
+        throw cannotProject(writer, reader, path);
+    }
+
+    private static IllegalArgumentException cannotProject(Schema writer, Schema reader, String path) {
+        return new IllegalArgumentException("Cannot project '" + path + "' from "
+                + writer + " to " + reader);
+    }
+
+    private static Mapper number(SchemaType to) {
+        return switch (to) {
+            case SHORT -> (spec, v) -> ((Number) v).shortValue();
+            case INT -> (spec, v) -> ((Number) v).intValue();
+            case LONG -> (spec, v) -> ((Number) v).longValue();
+            case FLOAT -> (spec, v) -> ((Number) v).floatValue();
+            case DOUBLE -> (spec, v) -> ((Number) v).doubleValue();
+            case DECIMAL -> (spec, v) -> ConvertUtils.toBigDecimal(v);
+            default -> throw new IllegalArgumentException("Not a widening number type: " + to);
+        };
+    }
+
+    @Nullable
+    private static Mapper list(@Nullable Mapper element) {
+        if (element == null) {
+            return null;
+        }
+        return (spec, v) -> {
+            var list = (List<?>) v;
+            var result = new ArrayList<>(list.size());
+            for (var item : list) {
+                result.add(item == null ? null : element.map(spec, item));
+            }
+            return result;
+        };
+    }
+
+    @Nullable
+    private static Mapper array(@Nullable Mapper element) {
+        if (element == null) {
+            return null;
+        }
+        return (spec, v) -> {
+            // Lazy arrays are lists
+            var array = v instanceof List<?> list ? list.toArray() : (Object[]) v;
+            var result = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                var item = array[i];
+                result[i] = item == null ? null : element.map(spec, item);
+            }
+            return result;
+        };
+    }
+
+    @Nullable
+    private static Mapper map(@Nullable Mapper key, @Nullable Mapper value) {
+        if (key == null && value == null) {
+            return null;
+        }
+        return (spec, v) -> {
+            var map = (Map<?, ?>) v;
+            var result = HashMap.newHashMap(map.size());
+            for (var entry : map.entrySet()) {
+                var k = entry.getKey();
+                var val = entry.getValue();
+                result.put(
+                        key == null || k == null ? k : key.map(spec, k),
+                        value == null || val == null ? val : value.map(spec, val)
+                );
+            }
+            return result;
+        };
+    }
+
+    @FunctionalInterface
+    private interface Mapper {
+
+        @Nullable
+        Object map(StructSpec<Object, Object> spec, Object value);
+    }
+}
@@ -19,7 +19,10 @@ import lombok.experimental.UtilityClass;
 import org.apache.commons.lang3.StringUtils;
 import org.febit.lang.util.StringWalker;
 import org.jspecify.annotations.Nullable;
+import tools.jackson.databind.util.LookupCache;
+import tools.jackson.databind.util.SimpleLookupCache;
 
+import java.io.Serial;
 import java.util.regex.Pattern;
 
 import static org.febit.lang.modeler.SchemaType.STRING;
@@ -35,6 +38,21 @@ public class Schemas {
 
     private static final Pattern NAME_PATTERN = Pattern.compile("^[_a-zA-Z][_a-zA-Z0-9]{0,64}$");
 
+    private static final int PARSE_CACHE_SIZE = 1024;
+    private static final int INTERNED_SIZE = 4096;
+
+    /**
+     * Parsed schemas, by type string, bounded in LRU.
+     */
+    private static final LookupCache<ParseKey, Schema> PARSE_CACHE = new SimpleLookupCache<>(
+            64, PARSE_CACHE_SIZE);
+
+    /**
+     * Interned element and map schemas, bounded in LRU, so that equal schemas are shared.
+     */
+    private static final LookupCache<Schema, Schema> INTERNED = new SimpleLookupCache<>(
+            64, INTERNED_SIZE);
+
     static void checkName(String name) {
         if (!NAME_PATTERN.matcher(name).matches()) {
             throw new IllegalArgumentException("Illegal name: " + name);
@@ -195,8 +213,21 @@ public class Schemas {
     }
 
     static Schema parse(@Nullable String space, @Nullable String name, String str) {
+        var key = new ParseKey(space, name, str);
+        var schema = PARSE_CACHE.get(key);
+        if (schema != null) {
+            return schema;
+        }
         var walker = new StringWalker(str);
-        return readType(space, name, walker);
+        schema = readType(space, name, walker);
+        PARSE_CACHE.put(key, schema);
+        return schema;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S extends Schema> S intern(S schema) {
+        var existing = INTERNED.putIfAbsent(schema, schema);
+        return existing != null ? (S) existing : schema;
     }
 
     private static void parseField(String space, String line, StructSchemaBuilder builder) {
@@ -257,10 +288,30 @@ public class Schemas {
         };
     }
 
+    private record ParseKey(@Nullable String space, @Nullable String name, String str) {
+    }
+
     private record PrimitiveSchema(SchemaType type) implements Schema {
 
+        private static final PrimitiveSchema[] INSTANCES;
+
+        static {
+            var types = SchemaType.values();
+            INSTANCES = new PrimitiveSchema[types.length];
+            for (var type : types) {
+                if (type.basicType() || type == SchemaType.BYTES) {
+                    INSTANCES[type.ordinal()] = new PrimitiveSchema(type);
+                }
+            }
+        }
+
         public static PrimitiveSchema of(SchemaType type) {
-            return new PrimitiveSchema(type);
+            return INSTANCES[type.ordinal()];
+        }
+
+        @Serial
+        private Object readResolve() {
+            return of(type);
         }
 
         @Override
@@ -309,7 +360,7 @@ public class Schemas {
     private record ElementSchema(SchemaType type, Schema valueType) implements Schema {
 
         public static ElementSchema of(SchemaType type, Schema valueType) {
-            return new ElementSchema(type, valueType);
+            return intern(new ElementSchema(type, valueType));
         }
 
         @Override
@@ -340,7 +391,7 @@ public class Schemas {
     private record MapSchema(Schema keyType, Schema valueType) implements Schema {
 
         public static MapSchema of(Schema keyType, Schema valueType) {
-            return new MapSchema(keyType, valueType);
+            return intern(new MapSchema(keyType, valueType));
         }
 
         @Override
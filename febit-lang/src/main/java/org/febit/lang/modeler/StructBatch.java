@@ -0,0 +1,504 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.febit.lang.jackson.JacksonUtils;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A batch of modeled structs, in columns.
+ * <p>
+ * {@code INT}, {@code LONG}, {@code DOUBLE} and {@code BOOLEAN} fields (also optional ones)
+ * are stored in primitive arrays with null bitmaps, other fields in object arrays.
+ * Rows are read through typed getters, or the flyweight {@link Row} view, see {@link #rowSpec()}.
+ *
+ * @see Modeler#processBatch(Schema, Iterable)
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class StructBatch {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    @Getter
+    private final Schema schema;
+
+    @Getter
+    private final int size;
+
+    private final Column[] columns;
+
+    /**
+     * Rows modeled as {@code null}, by the default value of the struct schema.
+     */
+    private final BitSet nullRows;
+
+    static StructBatch collect(Schema schema, ModelPlan.Converter[] converters,
+                               Modeler modeler, Iterable<?> rows) {
+        var fields = schema.fields();
+        int capacity = rows instanceof Collection<?> collection
+                ? Math.max(collection.size(), 1)
+                : DEFAULT_CAPACITY;
+        var columns = new Column[fields.size()];
+        var names = new String[fields.size()];
+        for (int i = 0; i < columns.length; i++) {
+            var field = fields.get(i);
+            columns[i] = Column.create(field.schema(), capacity);
+            names[i] = field.name();
+        }
+
+        var nullRows = new BitSet();
+        int size = 0;
+        for (var row : rows) {
+            Map<?, ?> raw;
+            if (row == null) {
+                if (modeler.defaultValueFor(schema) == null) {
+                    nullRows.set(size);
+                }
+                raw = Map.of();
+            } else {
+                raw = row instanceof Map<?, ?> map ? map
+                        : JacksonUtils.toMap(row);
+                if (raw == null) {
+                    raw = Map.of();
+                }
+            }
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].append(size, converters[i].convert(raw.get(names[i])));
+            }
+            size++;
+        }
+        return new StructBatch(schema, size, columns, nullRows);
+    }
+
+    public boolean isNullRow(int row) {
+        checkRow(row);
+        return nullRows.get(row);
+    }
+
+    public boolean isNull(int row, Schema.Field field) {
+        return isNullRow(row) || column(field).isNull(row);
+    }
+
+    @Nullable
+    public Object get(int row, Schema.Field field) {
+        return isNullRow(row) ? null : column(field).get(row);
+    }
+
+    /**
+     * Returns the int value, {@code 0} if null.
+     *
+     * @throws UnsupportedOperationException if the field is not an int column
+     */
+    public int getInt(int row, Schema.Field field) {
+        checkRow(row);
+        return column(field).getInt(row);
+    }
+
+    /**
+     * Returns the long value, {@code 0} if null, int columns are widened.
+     *
+     * @throws UnsupportedOperationException if the field is not an int or long column
+     */
+    public long getLong(int row, Schema.Field field) {
+        checkRow(row);
+        return column(field).getLong(row);
+    }
+
+    /**
+     * Returns the double value, {@code 0} if null, int and long columns are widened.
+     *
+     * @throws UnsupportedOperationException if the field is not a numeric primitive column
+     */
+    public double getDouble(int row, Schema.Field field) {
+        checkRow(row);
+        return column(field).getDouble(row);
+    }
+
+    /**
+     * Returns the boolean value, {@code false} if null.
+     *
+     * @throws UnsupportedOperationException if the field is not a boolean column
+     */
+    public boolean getBoolean(int row, Schema.Field field) {
+        checkRow(row);
+        return column(field).getBoolean(row);
+    }
+
+    /**
+     * Returns a view of the given row.
+     */
+    public Row row(int row) {
+        checkRow(row);
+        return new Row(this, row);
+    }
+
+    /**
+     * Iterate rows, using a single flyweight view which moves forward on each {@code next()}.
+     * <p>
+     * NOTE: Don't hold the returned row across iterations.
+     */
+    public Iterator<Row> rows() {
+        var view = new Row(this, -1);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return view.index + 1 < size;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                view.index++;
+                return view;
+            }
+        };
+    }
+
+    /**
+     * Read-only struct spec of rows, for example to wrap a row as {@link ModeledValue}.
+     */
+    public static StructSpec<Row, Row> rowSpec() {
+        return RowStructSpec.INSTANCE;
+    }
+
+    private Column column(Schema.Field field) {
+        return columns[field.pos()];
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row index out of range: " + row + ", size: " + size);
+        }
+    }
+
+    /**
+     * A row view of the batch.
+     */
+    public static final class Row {
+
+        private final StructBatch batch;
+        private int index;
+
+        private Row(StructBatch batch, int index) {
+            this.batch = batch;
+            this.index = index;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public Schema schema() {
+            return batch.schema;
+        }
+
+        public boolean isNull(Schema.Field field) {
+            return batch.isNull(index, field);
+        }
+
+        @Nullable
+        public Object get(Schema.Field field) {
+            return batch.get(index, field);
+        }
+
+        public int getInt(Schema.Field field) {
+            return batch.getInt(index, field);
+        }
+
+        public long getLong(Schema.Field field) {
+            return batch.getLong(index, field);
+        }
+
+        public double getDouble(Schema.Field field) {
+            return batch.getDouble(index, field);
+        }
+
+        public boolean getBoolean(Schema.Field field) {
+            return batch.getBoolean(index, field);
+        }
+
+        @Override
+        public String toString() {
+            return "Row#" + index;
+        }
+    }
+
+    private static class RowStructSpec implements StructSpec<Row, Row> {
+
+        private static final RowStructSpec INSTANCE = new RowStructSpec();
+
+        @Override
+        public Row builder(Schema schema) {
+            throw new UnsupportedOperationException("Rows of struct batch are read-only");
+        }
+
+        @Override
+        public Row build(Schema schema, Row builder) {
+            throw new UnsupportedOperationException("Rows of struct batch are read-only");
+        }
+
+        @Override
+        public void set(Row builder, Schema.Field field, @Nullable Object value) {
+            throw new UnsupportedOperationException("Rows of struct batch are read-only");
+        }
+
+        @Nullable
+        @Override
+        public Object get(Row struct, Schema.Field field) {
+            return struct.get(field);
+        }
+    }
+
+    private abstract static class Column {
+
+        final BitSet nulls = new BitSet();
+
+        static Column create(Schema schema, int capacity) {
+            var type = schema.isOptionalType()
+                    ? schema.valueType().type()
+                    : schema.type();
+            return switch (type) {
+                case INT -> new IntColumn(capacity);
+                case LONG -> new LongColumn(capacity);
+                case DOUBLE -> new DoubleColumn(capacity);
+                case BOOLEAN -> new BooleanColumn();
+                default -> new ObjectColumn(capacity);
+            };
+        }
+
+        void append(int row, @Nullable Object value) {
+            if (value == null) {
+                nulls.set(row);
+                ensureCapacity(row + 1);
+                return;
+            }
+            appendNonNull(row, value);
+        }
+
+        abstract void ensureCapacity(int capacity);
+
+        abstract void appendNonNull(int row, Object value);
+
+        boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Nullable
+        abstract Object get(int row);
+
+        int getInt(int row) {
+            throw new UnsupportedOperationException("Not an int column");
+        }
+
+        long getLong(int row) {
+            throw new UnsupportedOperationException("Not an int or long column");
+        }
+
+        double getDouble(int row) {
+            throw new UnsupportedOperationException("Not a numeric column");
+        }
+
+        boolean getBoolean(int row) {
+            throw new UnsupportedOperationException("Not a boolean column");
+        }
+
+        static int grow(int length, int capacity) {
+            return Math.max(capacity, length << 1);
+        }
+    }
+
+    private static class IntColumn extends Column {
+
+        private int[] values;
+
+        IntColumn(int capacity) {
+            this.values = new int[capacity];
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (values.length < capacity) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void appendNonNull(int row, Object value) {
+            ensureCapacity(row + 1);
+            values[row] = ((Number) value).intValue();
+        }
+
+        @Nullable
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        int getInt(int row) {
+            return values[row];
+        }
+
+        @Override
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+    }
+
+    private static class LongColumn extends Column {
+
+        private long[] values;
+
+        LongColumn(int capacity) {
+            this.values = new long[capacity];
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (values.length < capacity) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void appendNonNull(int row, Object value) {
+            ensureCapacity(row + 1);
+            values[row] = ((Number) value).longValue();
+        }
+
+        @Nullable
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+
+        private double[] values;
+
+        DoubleColumn(int capacity) {
+            this.values = new double[capacity];
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (values.length < capacity) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void appendNonNull(int row, Object value) {
+            ensureCapacity(row + 1);
+            values[row] = ((Number) value).doubleValue();
+        }
+
+        @Nullable
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+    }
+
+    private static class BooleanColumn extends Column {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        void ensureCapacity(int capacity) {
+            // BitSet grows as needed
+        }
+
+        @Override
+        void appendNonNull(int row, Object value) {
+            if ((Boolean) value) {
+                values.set(row);
+            }
+        }
+
+        @Nullable
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : values.get(row);
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            return values.get(row);
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+
+        private @Nullable Object[] values;
+
+        ObjectColumn(int capacity) {
+            this.values = new Object[capacity];
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (values.length < capacity) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void appendNonNull(int row, Object value) {
+            ensureCapacity(row + 1);
+            values[row] = value;
+        }
+
+        @Nullable
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+    }
+}
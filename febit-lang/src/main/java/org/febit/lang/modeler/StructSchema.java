@@ -55,6 +55,9 @@ class StructSchema implements Schema {
     @EqualsAndHashCode.Exclude
     private final Map<String, Field> fieldMap;
 
+    @EqualsAndHashCode.Exclude
+    private transient PackedStruct.@Nullable Layout packedLayout;
+
     StructSchema(
             @Nullable String namespace,
             @Nullable String name,
@@ -138,6 +141,11 @@ class StructSchema implements Schema {
         return field;
     }
 
+    @Nullable
+    Field findField(String name) {
+        return fieldMap.get(name);
+    }
+
     @Override
     public List<Field> fields() {
         return fields;
@@ -153,6 +161,15 @@ class StructSchema implements Schema {
         return toTypeString();
     }
 
+    PackedStruct.Layout packedLayout() {
+        var layout = this.packedLayout;
+        if (layout == null) {
+            layout = new PackedStruct.Layout(this);
+            this.packedLayout = layout;
+        }
+        return layout;
+    }
+
     record FieldImpl(
             int pos,
             String name,
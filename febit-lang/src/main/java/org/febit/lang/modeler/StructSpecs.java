@@ -40,6 +40,25 @@ public class StructSpecs {
         return MapStructSpec.INSTANCE;
     }
 
+    /**
+     * Structs as {@link PackedStruct}, primitive fields are stored without boxing.
+     */
+    public static StructSpec<PackedStruct, PackedStruct> asPacked() {
+        return PackedStructSpec.INSTANCE;
+    }
+
+    /**
+     * Structs as the given record, nested structs as records of component types.
+     * <p>
+     * Components are bound to fields by name, and should accept modeled values,
+     * for example, {@code List} for lists, {@code Map} for maps and {@code Object[]} for arrays.
+     *
+     * @throws IllegalArgumentException if any struct in the schema cannot be bound to a record
+     */
+    public static StructSpec<Record, ?> asRecord(Schema schema, Class<? extends Record> type) {
+        return new RecordStructSpec(schema, type);
+    }
+
     private static class ListStructSpec implements StructSpec<List<Object>, List<Object>>, Serializable {
 
         private static final ListStructSpec INSTANCE = new ListStructSpec();
@@ -119,4 +138,33 @@ public class StructSpecs {
         }
     }
 
+    private static class PackedStructSpec implements StructSpec<PackedStruct, PackedStruct>, Serializable {
+
+        private static final PackedStructSpec INSTANCE = new PackedStructSpec();
+
+        @Override
+        public PackedStruct builder(Schema schema) {
+            var layout = schema instanceof StructSchema struct
+                    ? struct.packedLayout()
+                    : new PackedStruct.Layout(schema);
+            return new PackedStruct(layout);
+        }
+
+        @Override
+        public PackedStruct build(Schema schema, PackedStruct builder) {
+            return builder;
+        }
+
+        @Override
+        public void set(PackedStruct struct, Schema.Field field, @Nullable Object value) {
+            struct.set(field, value);
+        }
+
+        @Nullable
+        @Override
+        public Object get(PackedStruct struct, Schema.Field field) {
+            return struct.get(field);
+        }
+    }
+
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.protocol;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Keyset (seek) pagination, as an alternative of {@link Pagination}.
+ * <p>
+ * The {@code token} is opaque to clients, it's issued by the api as {@link Page#getNext()},
+ * and usually encodes the sort keys of the last returned row,
+ * so that the next page is sought by keys instead of skipping by offset.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor(staticName = "of")
+public class Cursor {
+
+    /**
+     * Position after the last row of previous page, {@code null} for the first page.
+     */
+    @Nullable
+    private String token;
+    private int size;
+
+    public static Cursor first(int size) {
+        return of(null, size);
+    }
+
+    public Cursor next(String token) {
+        return of(token, size);
+    }
+
+    @JsonIgnore
+    public boolean isFirst() {
+        return token == null;
+    }
+}
@@ -16,6 +16,7 @@
 package org.febit.lang.protocol;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -34,6 +35,15 @@ public class Page<T> {
     private Meta meta;
     private List<T> rows;
 
+    /**
+     * Cursor of the next page, only for keyset pagination, {@code null} if no more pages.
+     *
+     * @see Cursor
+     */
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Cursor next;
+
     public static <T> Page<T> empty() {
         return Page.of(1, 0, 0, List.of());
     }
@@ -43,7 +53,25 @@ public class Page<T> {
     }
 
     public static <T> Page<T> of(Meta meta, List<T> rows) {
-        return new Page<>(meta, rows);
+        return new Page<>(meta, rows, null);
+    }
+
+    /**
+     * Create a page of keyset pagination.
+     * <p>
+     * Page number and total are unknown in keyset pagination, so both are {@code 0} in meta,
+     * and meta is marked as {@link Meta#isKeyset() keyset}.
+     *
+     * @param cursor    the requested cursor
+     * @param rows      the rows
+     * @param nextToken token of the next page, {@code null} if this is the last page
+     */
+    public static <T> Page<T> of(Cursor cursor, List<T> rows, @Nullable String nextToken) {
+        return new Page<>(
+                Meta.keyset(cursor.getSize()),
+                rows,
+                nextToken != null ? cursor.next(nextToken) : null
+        );
     }
 
     public static <T> Page<T> of(int page, int size, long total, List<T> rows) {
@@ -59,9 +87,10 @@ public class Page<T> {
      * @since 3.2.1
      */
     public <D> Page<D> map(Function<T, D> mapping) {
-        return Page.of(
+        return new Page<>(
                 getMeta(),
-                Lists.collect(getRows(), mapping)
+                Lists.collect(getRows(), mapping),
+                getNext()
         );
     }
 
@@ -73,18 +102,41 @@ public class Page<T> {
     @JsonIgnore
     @SuppressWarnings("ConstantValue")
     public boolean isLastPage() {
+        if (next != null) {
+            return false;
+        }
+        if (meta != null && meta.keyset) {
+            return true;
+        }
         if (meta != null && meta.total > 0) {
             return meta.total <= (long) meta.page * meta.size;
         }
         return rows == null || rows.isEmpty();
     }
 
+    /**
+     * Meta of page, {@code page} is {@code 0} for keyset pagination.
+     */
     @Data
     @NoArgsConstructor
-    @AllArgsConstructor(staticName = "of")
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
     public static class Meta {
         private int page;
         private int size;
         private long total;
+
+        /**
+         * Whether of keyset pagination, where an absent {@code next} cursor means the last page.
+         */
+        @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+        private boolean keyset;
+
+        public static Meta of(int page, int size, long total) {
+            return new Meta(page, size, total, false);
+        }
+
+        public static Meta keyset(int size) {
+            return new Meta(0, size, 0, true);
+        }
     }
 }
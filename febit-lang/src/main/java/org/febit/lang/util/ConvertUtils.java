@@ -37,6 +37,15 @@ import java.util.function.Function;
 @UtilityClass
 public class ConvertUtils {
 
+    private static final double[] DOUBLE_POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] FLOAT_POW10 = {
+            1e0F, 1e1F, 1e2F, 1e3F, 1e4F, 1e5F, 1e6F, 1e7F, 1e8F, 1e9F, 1e10F
+    };
+
     @Nullable
     public static String toString(@Nullable Object obj) {
         if (obj == null) {
@@ -51,10 +60,39 @@ public class ConvertUtils {
             case Boolean bool -> bool;
             case Number number -> number.doubleValue() == 1D;
             case String str when isTrue(str) -> true;
-            default -> isTrue(raw.toString().trim().toLowerCase());
+            case CharSequence text -> isTrueIgnoreCase(text);
+            default -> isTrueIgnoreCase(raw.toString());
+        };
+    }
+
+    /**
+     * Same as {@code isTrue(text.trim().toLowerCase())}, without allocations.
+     */
+    private static boolean isTrueIgnoreCase(CharSequence text) {
+        int end = text.length();
+        int start = trimStart(text, 0, end);
+        end = trimEnd(text, start, end);
+        return switch (end - start) {
+            case 1 -> {
+                char c = text.charAt(start);
+                yield c == '1' || c == 'y' || c == 'Y';
+            }
+            case 2 -> regionMatchesIgnoreCase(text, start, "on");
+            case 3 -> regionMatchesIgnoreCase(text, start, "yes");
+            case 4 -> regionMatchesIgnoreCase(text, start, "true");
+            default -> false;
         };
     }
 
+    private static boolean regionMatchesIgnoreCase(CharSequence text, int start, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static boolean isTrue(String text) {
         return switch (text) {
             case "true", "True", "TRUE",
@@ -152,6 +190,276 @@ public class ConvertUtils {
         return converter.apply(decimal);
     }
 
+    /**
+     * Convert to long, same as {@code toNumber(raw, Number::longValue, defaultValue)}, without boxing.
+     *
+     * @throws NumberFormatException if the text of the value is not a valid number
+     */
+    public static long toLongOrDefault(@Nullable Object raw, long defaultValue) {
+        return switch (raw) {
+            case null -> defaultValue;
+            case Number number -> number.longValue();
+            case Character c -> c;
+            case CharSequence text -> isBlank(text) ? defaultValue : narrowToLong(text, 0, text.length());
+            default -> toLongOrDefault(raw.toString(), defaultValue);
+        };
+    }
+
+    /**
+     * Convert to int, same as {@code toNumber(raw, Number::intValue, defaultValue)}, without boxing.
+     *
+     * @throws NumberFormatException if the text of the value is not a valid number
+     */
+    public static int toIntOrDefault(@Nullable Object raw, int defaultValue) {
+        return switch (raw) {
+            case null -> defaultValue;
+            case Number number -> number.intValue();
+            case Character c -> c;
+            case CharSequence text -> isBlank(text) ? defaultValue : (int) narrowToLong(text, 0, text.length());
+            default -> toIntOrDefault(raw.toString(), defaultValue);
+        };
+    }
+
+    /**
+     * Convert to short, same as {@code toNumber(raw, Number::shortValue, defaultValue)}, without boxing.
+     *
+     * @throws NumberFormatException if the text of the value is not a valid number
+     */
+    public static short toShortOrDefault(@Nullable Object raw, short defaultValue) {
+        if (raw instanceof Number number) {
+            return number.shortValue();
+        }
+        return (short) toIntOrDefault(raw, defaultValue);
+    }
+
+    /**
+     * Convert to byte, same as {@code toNumber(raw, Number::byteValue, defaultValue)}, without boxing.
+     *
+     * @throws NumberFormatException if the text of the value is not a valid number
+     */
+    public static byte toByteOrDefault(@Nullable Object raw, byte defaultValue) {
+        if (raw instanceof Number number) {
+            return number.byteValue();
+        }
+        return (byte) toIntOrDefault(raw, defaultValue);
+    }
+
+    /**
+     * Convert to double, same as {@code toNumber(raw, Number::doubleValue, defaultValue)}, without boxing.
+     *
+     * @throws NumberFormatException if the text of the value is not a valid number
+     */
+    public static double toDoubleOrDefault(@Nullable Object raw, double defaultValue) {
+        return switch (raw) {
+            case null -> defaultValue;
+            case Number number -> number.doubleValue();
+            case Character c -> c;
+            case CharSequence text -> isBlank(text) ? defaultValue : parseDouble(text, 0, text.length());
+            default -> toDoubleOrDefault(raw.toString(), defaultValue);
+        };
+    }
+
+    /**
+     * Convert to float, same as {@code toNumber(raw, Number::floatValue, defaultValue)}, without boxing.
+     *
+     * @throws NumberFormatException if the text of the value is not a valid number
+     */
+    public static float toFloatOrDefault(@Nullable Object raw, float defaultValue) {
+        return switch (raw) {
+            case null -> defaultValue;
+            case Number number -> number.floatValue();
+            case Character c -> c;
+            case CharSequence text -> isBlank(text) ? defaultValue : parseFloat(text, 0, text.length());
+            default -> toFloatOrDefault(raw.toString(), defaultValue);
+        };
+    }
+
+    /**
+     * Parse a number in range of the text, as long.
+     * <p>
+     * Leading and trailing whitespaces are ignored, decimals are truncated toward zero.
+     * Unlike {@link BigDecimal#longValue()}, values out of range are rejected like {@link Long#parseLong(String)}.
+     * Plain integers are parsed without allocations.
+     *
+     * @throws NumberFormatException if the range is not a valid number, or out of the long range
+     */
+    public static long parseLong(CharSequence text, int start, int end) {
+        int from = trimStart(text, start, end);
+        int to = trimEnd(text, from, end);
+        if (isPlainInteger(text, from, to, 18)) {
+            return Long.parseLong(text, from, to, 10);
+        }
+        return toBigIntegerInRange(text, from, to, Long.SIZE).longValue();
+    }
+
+    /**
+     * Parse a number in range of the text, as int.
+     * <p>
+     * Leading and trailing whitespaces are ignored, decimals are truncated toward zero.
+     * Unlike {@link BigDecimal#intValue()}, values out of range are rejected like {@link Integer#parseInt(String)}.
+     * Plain integers are parsed without allocations.
+     *
+     * @throws NumberFormatException if the range is not a valid number, or out of the int range
+     */
+    public static int parseInt(CharSequence text, int start, int end) {
+        int from = trimStart(text, start, end);
+        int to = trimEnd(text, from, end);
+        if (isPlainInteger(text, from, to, 9)) {
+            return Integer.parseInt(text, from, to, 10);
+        }
+        return toBigIntegerInRange(text, from, to, Integer.SIZE).intValue();
+    }
+
+    /**
+     * Parse a number in range of the text, and narrow to long like {@link BigDecimal#longValue()}.
+     */
+    private static long narrowToLong(CharSequence text, int start, int end) {
+        int from = trimStart(text, start, end);
+        int to = trimEnd(text, from, end);
+        if (isPlainInteger(text, from, to, 18)) {
+            return Long.parseLong(text, from, to, 10);
+        }
+        return toBigDecimal(text, from, to).longValue();
+    }
+
+    private static BigInteger toBigIntegerInRange(CharSequence text, int from, int to, int bits) {
+        var value = toBigDecimal(text, from, to).toBigInteger();
+        if (value.bitLength() >= bits) {
+            throw new NumberFormatException("Value out of range: \"" + text.subSequence(from, to) + '"');
+        }
+        return value;
+    }
+
+    /**
+     * Parse a number in range of the text, and convert to double like {@link BigDecimal#doubleValue()}.
+     * <p>
+     * Leading and trailing whitespaces are ignored.
+     * Plain decimals, up to 15 digits and without exponent, are parsed without allocations.
+     *
+     * @throws NumberFormatException if the range is not a valid number
+     */
+    public static double parseDouble(CharSequence text, int start, int end) {
+        int from = trimStart(text, start, end);
+        int to = trimEnd(text, from, end);
+        int dot = plainDecimalDot(text, from, to, 15);
+        if (dot >= 0) {
+            int scale = dot == to ? 0 : to - dot - 1;
+            if (scale <= 22) {
+                // Both are exact in double, so the quotient is correctly rounded.
+                return (double) plainDecimalMantissa(text, from, to) / DOUBLE_POW10[scale];
+            }
+        }
+        return toBigDecimal(text, from, to).doubleValue();
+    }
+
+    /**
+     * Parse a number in range of the text, and convert to float like {@link BigDecimal#floatValue()}.
+     * <p>
+     * Leading and trailing whitespaces are ignored.
+     * Plain decimals, up to 7 digits and without exponent, are parsed without allocations.
+     *
+     * @throws NumberFormatException if the range is not a valid number
+     */
+    public static float parseFloat(CharSequence text, int start, int end) {
+        int from = trimStart(text, start, end);
+        int to = trimEnd(text, from, end);
+        int dot = plainDecimalDot(text, from, to, 7);
+        if (dot >= 0) {
+            int scale = dot == to ? 0 : to - dot - 1;
+            if (scale <= 10) {
+                // Both are exact in float, so the quotient is correctly rounded.
+                return (float) plainDecimalMantissa(text, from, to) / FLOAT_POW10[scale];
+            }
+        }
+        return toBigDecimal(text, from, to).floatValue();
+    }
+
+    private static BigDecimal toBigDecimal(CharSequence text, int from, int to) {
+        return new BigDecimal(text.subSequence(from, to).toString());
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        int end = text.length();
+        return trimStart(text, 0, end) == end;
+    }
+
+    /**
+     * Same as {@link String#trim()}.
+     */
+    private static int trimStart(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(CharSequence text, int start, int end) {
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static int signLength(CharSequence text, int from, int to) {
+        if (from < to) {
+            char c = text.charAt(from);
+            if (c == '-' || c == '+') {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Whether is an optional sign followed by 1 to max digits.
+     */
+    private static boolean isPlainInteger(CharSequence text, int from, int to, int maxDigits) {
+        int start = from + signLength(text, from, to);
+        int digits = to - start;
+        if (digits <= 0 || digits > maxDigits) {
+            return false;
+        }
+        for (int i = start; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Position of dot if is an optional sign followed by 1 to max digits with an optional dot,
+     * {@code to} if no dot, otherwise {@code -1}.
+     */
+    private static int plainDecimalDot(CharSequence text, int from, int to, int maxDigits) {
+        int dot = to;
+        int digits = 0;
+        for (int i = from + signLength(text, from, to); i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && dot == to) {
+                dot = i;
+            } else {
+                return -1;
+            }
+        }
+        return digits == 0 || digits > maxDigits ? -1 : dot;
+    }
+
+    private static long plainDecimalMantissa(CharSequence text, int from, int to) {
+        int sign = signLength(text, from, to);
+        long mantissa = 0;
+        for (int i = from + sign; i < to; i++) {
+            char c = text.charAt(i);
+            if (c != '.') {
+                mantissa = mantissa * 10 + (c - '0');
+            }
+        }
+        return sign != 0 && text.charAt(from) == '-' ? -mantissa : mantissa;
+    }
+
     @Nullable
     public static BigDecimal toBigDecimal(@Nullable Object obj) {
         return switch (obj) {
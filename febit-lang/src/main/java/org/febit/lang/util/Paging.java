@@ -18,15 +18,26 @@ package org.febit.lang.util;
 import lombok.experimental.UtilityClass;
 import lombok.val;
 import org.apache.commons.collections4.IteratorUtils;
+import org.febit.lang.protocol.Cursor;
 import org.febit.lang.protocol.Page;
 import org.febit.lang.protocol.Pagination;
 import org.jspecify.annotations.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @UtilityClass
 public class Paging {
@@ -35,6 +46,40 @@ public class Paging {
         return new IteratorImpl<>(Pagination.of(1, pageSize), api);
     }
 
+    /**
+     * Iterator of all rows, fetching pages ahead in background.
+     * <p>
+     * Once {@link Page.Meta#getTotal()} is known, up to {@code depth} pages are requested in parallel,
+     * otherwise the next page is requested as soon as the current one arrives.
+     * Rows are returned in page order, and no page is requested after the last one is known.
+     *
+     * @param pageSize page size
+     * @param api      the page api, might be called concurrently
+     * @param executor executor to call the api
+     * @param depth    the maximum number of pages in flight
+     * @throws IllegalArgumentException if {@code depth} is not positive
+     */
+    public static <T> Iterator<T> prefetching(
+            int pageSize, Function<Pagination, Page<T>> api, Executor executor, int depth) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("depth must be positive: " + depth);
+        }
+        return new PrefetchingIteratorImpl<>(Pagination.of(1, pageSize), api, executor, depth);
+    }
+
+    /**
+     * Iterator of all rows, by keyset pagination.
+     * <p>
+     * Pages are requested one by one, following {@link Page#getNext()}, until a page without next cursor.
+     *
+     * @param pageSize page size
+     * @param api      the page api
+     * @see Cursor
+     */
+    public static <T> Iterator<T> iterateByCursor(int pageSize, Function<Cursor, Page<T>> api) {
+        return new CursorIteratorImpl<>(Cursor.first(pageSize), api);
+    }
+
     public static <T> Iterable<T> iterable(int pageSize, Function<Pagination, Page<T>> api) {
         return () -> iterator(pageSize, api);
     }
@@ -43,27 +88,37 @@ public class Paging {
         return Lists.collect(iterator(pageSize, api));
     }
 
+    /**
+     * Stream of all rows, pages are fetched lazily.
+     * <p>
+     * Parallel streams split off whole pages, in growing batches of pages.
+     */
     public static <T> Stream<T> stream(int pageSize, Function<Pagination, Page<T>> api) {
-        return Streams.of(
-                iterable(pageSize, api)
+        return StreamSupport.stream(
+                spliterator(pageSize, api),
+                false
         );
     }
 
+    public static <T> Spliterator<T> spliterator(int pageSize, Function<Pagination, Page<T>> api) {
+        return new SpliteratorImpl<>(new IteratorImpl<>(Pagination.of(1, pageSize), api));
+    }
+
     private static class IteratorImpl<T> implements Iterator<T> {
 
-        private Iterator<T> current = IteratorUtils.emptyIterator();
+        Iterator<T> current = IteratorUtils.emptyIterator();
 
-        private final Function<Pagination, Page<T>> api;
+        final Function<Pagination, Page<T>> api;
 
         @Nullable
-        private Pagination pagination;
+        Pagination pagination;
 
-        private IteratorImpl(Pagination start, Function<Pagination, Page<T>> api) {
+        IteratorImpl(Pagination start, Function<Pagination, Page<T>> api) {
             this.api = api;
             this.pagination = start;
         }
 
-        private boolean fetchNext() {
+        boolean fetchNext() {
             if (pagination == null) {
                 return false;
             }
@@ -92,4 +147,190 @@ public class Paging {
             return current.next();
         }
     }
+
+    private static class PrefetchingIteratorImpl<T> extends IteratorImpl<T> {
+
+        private final Executor executor;
+        private final int depth;
+        private final Deque<CompletableFuture<Page<T>>> pending = new ArrayDeque<>();
+
+        /**
+         * The last page number, by total, or {@code 0} if unknown.
+         */
+        private long lastPageNumber = 0;
+
+        private PrefetchingIteratorImpl(
+                Pagination start, Function<Pagination, Page<T>> api, Executor executor, int depth) {
+            super(start, api);
+            this.executor = executor;
+            this.depth = depth;
+        }
+
+        private void fill() {
+            int maxPending = lastPageNumber > 0 ? depth : 1;
+            while (pagination != null
+                    && pending.size() < maxPending
+                    && (lastPageNumber <= 0 || pagination.getPage() <= lastPageNumber)) {
+                val request = pagination;
+                pending.add(CompletableFuture.supplyAsync(() -> api.apply(request), executor));
+                pagination = pagination.next();
+            }
+        }
+
+        @Override
+        boolean fetchNext() {
+            if (pending.isEmpty()) {
+                fill();
+                if (pending.isEmpty()) {
+                    return false;
+                }
+            }
+            final Page<T> result;
+            try {
+                result = join(pending.poll());
+            } catch (RuntimeException e) {
+                cancelPending();
+                throw e;
+            }
+            if (result.isLastPage()) {
+                cancelPending();
+            } else {
+                val meta = result.getMeta();
+                if (meta != null && meta.getTotal() > 0 && meta.getSize() > 0) {
+                    lastPageNumber = (meta.getTotal() + meta.getSize() - 1) / meta.getSize();
+                }
+                fill();
+            }
+            current = result.getRows() != null
+                    ? result.getRows().iterator()
+                    : Collections.emptyIterator();
+            return true;
+        }
+
+        /**
+         * Stop fetching, and cancel pages in flight, queued ones are never requested.
+         */
+        private void cancelPending() {
+            pagination = null;
+            pending.forEach(f -> f.cancel(false));
+            pending.clear();
+        }
+
+        private static <T> Page<T> join(CompletableFuture<Page<T>> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static class CursorIteratorImpl<T> implements Iterator<T> {
+
+        private Iterator<T> current = IteratorUtils.emptyIterator();
+
+        private final Function<Cursor, Page<T>> api;
+
+        @Nullable
+        private Cursor cursor;
+
+        private CursorIteratorImpl(Cursor start, Function<Cursor, Page<T>> api) {
+            this.api = api;
+            this.cursor = start;
+        }
+
+        private boolean fetchNext() {
+            if (cursor == null) {
+                return false;
+            }
+            val result = api.apply(cursor);
+            cursor = result.getNext();
+            current = result.getRows() != null
+                    ? result.getRows().iterator()
+                    : Collections.emptyIterator();
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (!fetchNext()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            return current.next();
+        }
+    }
+
+    private static class SpliteratorImpl<T> implements Spliterator<T> {
+
+        private static final int MAX_BATCH_PAGES = 1 << 6;
+
+        private final IteratorImpl<T> pages;
+        private int batchPages = 1;
+
+        private SpliteratorImpl(IteratorImpl<T> pages) {
+            this.pages = pages;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!pages.hasNext()) {
+                return false;
+            }
+            action.accept(pages.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            pages.forEachRemaining(action);
+        }
+
+        /**
+         * Splits off the rest of current page, and following pages, up to a batch of pages.
+         */
+        @Nullable
+        @Override
+        public Spliterator<T> trySplit() {
+            var batch = new ArrayList<T>();
+            pages.current.forEachRemaining(batch::add);
+            for (int i = batch.isEmpty() ? 0 : 1; i < batchPages; i++) {
+                if (!pages.fetchNext()) {
+                    break;
+                }
+                pages.current.forEachRemaining(batch::add);
+            }
+            if (batch.isEmpty()) {
+                // Skip empty pages, if any
+                if (!pages.hasNext()) {
+                    return null;
+                }
+                pages.current.forEachRemaining(batch::add);
+            }
+            batchPages = Math.min(batchPages << 1, MAX_BATCH_PAGES);
+            return Spliterators.spliterator(batch, ORDERED);
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * Only {@code ORDERED}, since rows from apis might be {@code null}.
+         */
+        @Override
+        public int characteristics() {
+            return ORDERED;
+        }
+    }
 }
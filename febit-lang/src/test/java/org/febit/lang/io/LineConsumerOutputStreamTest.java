@@ -0,0 +1,195 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import org.febit.lang.func.ClosableConsumer;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class LineConsumerOutputStreamTest {
+
+    private static void writeEach(LineConsumerOutputStream out, byte[] bytes) throws IOException {
+        for (byte b : bytes) {
+            out.write(b);
+        }
+    }
+
+    @Test
+    void isSupported() {
+        assertTrue(LineConsumerOutputStream.isSupported(UTF_8));
+        assertTrue(LineConsumerOutputStream.isSupported(ISO_8859_1));
+        assertTrue(LineConsumerOutputStream.isSupported(US_ASCII));
+        assertTrue(LineConsumerOutputStream.isSupported(Charset.forName("ISO-8859-15")));
+        assertFalse(LineConsumerOutputStream.isSupported(Charset.forName("GBK")));
+        assertFalse(LineConsumerOutputStream.isSupported(Charset.forName("Shift_JIS")));
+        assertFalse(LineConsumerOutputStream.isSupported(UTF_16));
+    }
+
+    @Test
+    void illegalArguments() throws IOException {
+        @SuppressWarnings("unchecked")
+        var sink = (Consumer<String>) Mockito.mock(Consumer.class);
+        try (var out = LineConsumerOutputStream.create(sink)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> out.write(new byte[0], -1, 0));
+            assertThrows(IndexOutOfBoundsException.class, () -> out.write(new byte[0], 0, -1));
+            assertThrows(IndexOutOfBoundsException.class, () -> out.write(new byte[0], 0, 1));
+            assertThrows(IndexOutOfBoundsException.class, () -> out.write(new byte[0], 1, 0));
+
+            assertDoesNotThrow(() -> out.write(new byte[0], 0, 0));
+            assertDoesNotThrow(() -> out.write(new byte[1], 1, 0));
+        }
+    }
+
+    @Test
+    void closed() throws IOException {
+        @SuppressWarnings("unchecked")
+        var sink = (ClosableConsumer<String>) Mockito.mock(ClosableConsumer.class);
+
+        var out = LineConsumerOutputStream.create(sink);
+        assertFalse(out.closed());
+        try (out) {
+            verify(sink, never()).close();
+        }
+        assertTrue(out.closed());
+        verify(sink, times(1)).close();
+
+        assertThrows(IOException.class, () -> out.write(1));
+
+        assertDoesNotThrow(out::close);
+        verify(sink, times(1)).close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void step() throws IOException {
+        var sink = (Consumer<String>) Mockito.mock(Consumer.class);
+        try (var out = LineConsumerOutputStream.create(sink)) {
+
+            reset(sink);
+            out.write("Hello".getBytes(UTF_8));
+            verify(sink, never()).accept(anyString());
+            out.write("\r".getBytes(UTF_8));
+            verify(sink, never()).accept(anyString());
+
+            reset(sink);
+            out.write("World\n".getBytes(UTF_8));
+            verify(sink).accept("Hello\r");
+            verify(sink).accept("World\n");
+
+            reset(sink);
+            out.write("abc\n\n\n".getBytes(UTF_8));
+            verify(sink).accept("abc\n");
+            verify(sink, times(2)).accept("\n");
+
+            reset(sink);
+            out.write("Final".getBytes(UTF_8));
+            verify(sink, never()).accept(anyString());
+        }
+        verify(sink).accept("Final");
+    }
+
+    @Test
+    void crlf() throws IOException {
+        var text = "\r\t\f\n\rHello\r\n\n\rWorld\r";
+        var expected = List.of(
+                "\r", "\t\f\n", "\r", "Hello\r\n", "\n", "\r", "World\r"
+        );
+
+        var sink = new ArrayList<String>();
+        try (var out = LineConsumerOutputStream.create(sink::add)) {
+            out.write(text.getBytes(UTF_8));
+        }
+        assertEquals(expected, sink);
+
+        sink.clear();
+        try (var out = LineConsumerOutputStream.create(sink::add)) {
+            writeEach(out, text.getBytes(UTF_8));
+        }
+        assertEquals(expected, sink);
+    }
+
+    @Test
+    void multibyte() throws IOException {
+        var text = "你好\n世界\r\nhello, 世界";
+        var expected = List.of("你好\n", "世界\r\n", "hello, 世界");
+
+        var sink = new ArrayList<String>();
+        try (var out = LineConsumerOutputStream.create(sink::add)) {
+            writeEach(out, text.getBytes(UTF_8));
+        }
+        assertEquals(expected, sink);
+
+        var gbk = Charset.forName("GBK");
+        sink.clear();
+        try (var out = LineConsumerOutputStream.create(sink::add, gbk)) {
+            out.write(text.getBytes(gbk));
+        }
+        assertEquals(expected, sink);
+    }
+
+    @Test
+    void longLine() throws IOException {
+        var line = "x".repeat(10_000) + '\n';
+        var sink = new ArrayList<String>();
+        try (var out = LineConsumerOutputStream.create(sink::add)) {
+            var bytes = line.getBytes(UTF_8);
+            for (int i = 0; i < bytes.length; i += 100) {
+                out.write(bytes, i, Math.min(100, bytes.length - i));
+            }
+            // Buffers grown by the long line are dropped, later lines still carry over
+            out.write("a".getBytes(UTF_8));
+            out.write("b\n".getBytes(UTF_8));
+        }
+        assertEquals(List.of(line, "ab\n"), sink);
+    }
+
+    @Test
+    void slices() throws IOException {
+        var sink = new ArrayList<String>();
+        try (var out = LineConsumerOutputStream.ofSlices(
+                (buf, offset, length) -> sink.add(new String(buf, offset, length, UTF_8))
+        )) {
+            out.write("Hello\nWor".getBytes(UTF_8));
+            out.write("ld\n".getBytes(UTF_8));
+        }
+        assertEquals(List.of("Hello\n", "World\n"), sink);
+
+        sink.clear();
+        try (var out = LineConsumerOutputStream.ofBuffers(
+                buffer -> sink.add(UTF_8.decode(buffer).toString())
+        )) {
+            out.write("Hello\nWorld".getBytes(UTF_8));
+        }
+        assertEquals(List.of("Hello\n", "World"), sink);
+    }
+}
@@ -21,9 +21,11 @@ import org.mockito.Mockito;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -34,154 +36,196 @@ import static org.mockito.Mockito.verify;
 
 class LineConsumerWriterTest {
 
+    /**
+     * Both writers split lines with the same rules.
+     */
+    private static final List<Function<Consumer<String>, Writer>> WRITERS = List.of(
+            LineConsumerWriter::create,
+            UnsynchronizedLineConsumerWriter::create
+    );
+
+    private static boolean closed(Writer writer) {
+        return switch (writer) {
+            case LineConsumerWriter w -> w.closed();
+            case UnsynchronizedLineConsumerWriter w -> w.closed();
+            default -> throw new IllegalArgumentException("Unexpected writer: " + writer);
+        };
+    }
+
     @Test
     void illegalArguments() throws IOException {
-        @SuppressWarnings("unchecked")
-        var sink = (Consumer<String>) Mockito.mock(Consumer.class);
-        try (var writer = LineConsumerWriter.create(sink)) {
-            assertThrows(IndexOutOfBoundsException.class, () -> writer.write(new char[0], -1, 0));
-            assertThrows(IllegalArgumentException.class, () -> writer.write(new char[0], 0, -1));
-            assertThrows(IndexOutOfBoundsException.class, () -> writer.write(new char[0], 0, 1));
-            assertThrows(IndexOutOfBoundsException.class, () -> writer.write(new char[0], 1, 0));
-
-            assertDoesNotThrow(() -> writer.write(new char[0], 0, 0));
-            assertDoesNotThrow(() -> writer.write(new char[1], 1, 0));
+        for (var factory : WRITERS) {
+            @SuppressWarnings("unchecked")
+            var sink = (Consumer<String>) Mockito.mock(Consumer.class);
+            try (var writer = factory.apply(sink)) {
+                assertThrows(IndexOutOfBoundsException.class, () -> writer.write(new char[0], -1, 0));
+                assertThrows(IllegalArgumentException.class, () -> writer.write(new char[0], 0, -1));
+                assertThrows(IndexOutOfBoundsException.class, () -> writer.write(new char[0], 0, 1));
+                assertThrows(IndexOutOfBoundsException.class, () -> writer.write(new char[0], 1, 0));
+
+                assertDoesNotThrow(() -> writer.write(new char[0], 0, 0));
+                assertDoesNotThrow(() -> writer.write(new char[1], 1, 0));
+            }
         }
     }
 
     @Test
     void empty() throws IOException {
-        var sink = new ArrayList<String>();
-        //noinspection EmptyTryBlock
-        try (var writer = LineConsumerWriter.create(sink::add)) {
-            // No content to write
-        }
-        assertTrue(sink.isEmpty(), "sink should be empty");
-
-        try (var writer = LineConsumerWriter.create(sink::add)) {
-            writer.write("");
+        for (var factory : WRITERS) {
+            var sink = new ArrayList<String>();
+            //noinspection EmptyTryBlock
+            try (var writer = factory.apply(sink::add)) {
+                // No content to write
+            }
+            assertTrue(sink.isEmpty(), "sink should be empty");
+
+            try (var writer = factory.apply(sink::add)) {
+                writer.write("");
+            }
+            assertTrue(sink.isEmpty(), "sink should be empty");
         }
-        assertTrue(sink.isEmpty(), "sink should be empty");
     }
 
     @Test
     void closed() throws IOException {
-        @SuppressWarnings("unchecked")
-        var sink = (ClosableConsumer<String>) Mockito.mock(ClosableConsumer.class);
+        for (var factory : WRITERS) {
+            @SuppressWarnings("unchecked")
+            var sink = (ClosableConsumer<String>) Mockito.mock(ClosableConsumer.class);
 
-        var writer = LineConsumerWriter.create(sink);
-        assertFalse(writer.closed());
-        verify(sink, never()).close();
-
-        try (writer) {
-            assertFalse(writer.closed());
+            var writer = factory.apply(sink);
+            assertFalse(closed(writer));
             verify(sink, never()).close();
-        }
-        assertTrue(writer.closed());
-        verify(sink, times(1)).close();
 
-        // Cannot write after close
-        assertThrows(IOException.class, () -> writer.write("Hello"));
+            try (writer) {
+                assertFalse(closed(writer));
+                verify(sink, never()).close();
+            }
+            assertTrue(closed(writer));
+            verify(sink, times(1)).close();
 
-        // allow close multiple times
-        assertDoesNotThrow(writer::close);
-        verify(sink, times(1)).close();
+            // Cannot write after close
+            assertThrows(IOException.class, () -> writer.write("Hello"));
+
+            // allow close multiple times
+            assertDoesNotThrow(writer::close);
+            verify(sink, times(1)).close();
+        }
     }
 
     @Test
     @SuppressWarnings("unchecked")
     void step() throws IOException {
-        var sink = (Consumer<String>) Mockito.mock(Consumer.class);
-        try (var writer = LineConsumerWriter.create(sink)) {
-
-            reset(sink);
-            writer.write("Hello");
-            verify(sink, never()).accept(anyString());
-            writer.write("\r");
-            verify(sink, never()).accept(anyString());
-
-            reset(sink);
-            writer.write("World\n");
-            verify(sink).accept("Hello\r");
-            verify(sink).accept("World\n");
-
-            reset(sink);
-            writer.write("Hello");
-            verify(sink, never()).accept(anyString());
-            writer.write("\n");
-            verify(sink).accept("Hello\n");
-
-            reset(sink);
-            writer.write("abc\n\n\n\n\n");
-            verify(sink).accept("abc\n");
-            verify(sink, times(4)).accept("\n");
-
-            // Final string without line break
-            reset(sink);
-            writer.write("Final");
-            verify(sink, never()).accept(anyString());
+        for (var factory : WRITERS) {
+            var sink = (Consumer<String>) Mockito.mock(Consumer.class);
+            try (var writer = factory.apply(sink)) {
+
+                reset(sink);
+                writer.write("Hello");
+                verify(sink, never()).accept(anyString());
+                writer.write("\r");
+                verify(sink, never()).accept(anyString());
+
+                reset(sink);
+                writer.write("World\n");
+                verify(sink).accept("Hello\r");
+                verify(sink).accept("World\n");
+
+                reset(sink);
+                writer.write("Hello");
+                verify(sink, never()).accept(anyString());
+                writer.write("\n");
+                verify(sink).accept("Hello\n");
+
+                reset(sink);
+                writer.write("abc\n\n\n\n\n");
+                verify(sink).accept("abc\n");
+                verify(sink, times(4)).accept("\n");
+
+                // Final string without line break
+                reset(sink);
+                writer.write("Final");
+                verify(sink, never()).accept(anyString());
+            }
+            verify(sink).accept("Final");
         }
-        verify(sink).accept("Final");
     }
 
     @Test
     void single() throws IOException {
-        var line = "Hello World\n";
-        var sink = new ArrayList<String>();
-        try (var writer = LineConsumerWriter.create(sink::add)) {
-            writer.write(line);
+        for (var factory : WRITERS) {
+            var line = "Hello World\n";
+            var sink = new ArrayList<String>();
+            try (var writer = factory.apply(sink::add)) {
+                writer.write(line);
+            }
+            assertEquals(List.of(line), sink);
+
+            sink.clear();
+            try (var writer = factory.apply(sink::add)) {
+                line.chars().forEach(c -> {
+                    try {
+                        writer.write(c);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            assertEquals(List.of(line), sink);
         }
-        assertEquals(List.of(line), sink);
-
-        sink.clear();
-        try (var writer = LineConsumerWriter.create(sink::add)) {
-            line.chars().forEach(c -> {
-                try {
-                    writer.write(c);
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            });
-        }
-        assertEquals(List.of(line), sink);
     }
 
     @Test
     void crlf() throws IOException {
-        var line = "\r\t\f\n\rHello\r\n\n\rWorld\r";
-        var expected = List.of(
-                "\r", "\t\f\n", "\r", "Hello\r\n", "\n", "\r", "World\r"
-        );
-
-        var sink = new ArrayList<String>();
-        try (var writer = LineConsumerWriter.create(sink::add)) {
-            writer.write(line);
-        }
-        assertEquals(expected, sink);
-
-        sink.clear();
-        try (var writer = LineConsumerWriter.create(sink::add)) {
-            line.chars().forEach(c -> {
-                try {
-                    writer.write(c);
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            });
+        for (var factory : WRITERS) {
+            var line = "\r\t\f\n\rHello\r\n\n\rWorld\r";
+            var expected = List.of(
+                    "\r", "\t\f\n", "\r", "Hello\r\n", "\n", "\r", "World\r"
+            );
+
+            var sink = new ArrayList<String>();
+            try (var writer = factory.apply(sink::add)) {
+                writer.write(line);
+            }
+            assertEquals(expected, sink);
+
+            sink.clear();
+            try (var writer = factory.apply(sink::add)) {
+                line.chars().forEach(c -> {
+                    try {
+                        writer.write(c);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            assertEquals(expected, sink);
+
+            sink.clear();
+            try (var writer = factory.apply(sink::add)) {
+                expected.forEach(c -> {
+                    try {
+                        writer.write(c);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            assertEquals(expected, sink);
         }
-        assertEquals(expected, sink);
-
-        sink.clear();
-        try (var writer = LineConsumerWriter.create(sink::add)) {
-            expected.forEach(c -> {
-                try {
-                    writer.write(c);
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
+    }
+
+    @Test
+    void longLine() throws IOException {
+        var line = "x".repeat(10_000) + "\r\n";
+        for (var factory : WRITERS) {
+            var sink = new ArrayList<String>();
+            try (var writer = factory.apply(sink::add)) {
+                writer.write(line);
+                for (int i = 0; i < line.length(); i += 100) {
+                    writer.write(line, i, Math.min(100, line.length() - i));
                 }
-            });
+            }
+            assertEquals(List.of(line, line), sink);
         }
-        assertEquals(expected, sink);
     }
-
 }
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static java.nio.charset.StandardCharsets.UTF_16;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -38,6 +39,18 @@ class LinesTest {
         ), consumer);
     }
 
+    @Test
+    void asUnsynchronizedWriter() throws IOException {
+        var consumer = new ArrayList<String>();
+        try (var writer = Lines.asUnsynchronizedWriter(consumer::add)) {
+            writer.write("Hello\nWorld");
+        }
+        assertEquals(List.of(
+                "Hello\n",
+                "World"
+        ), consumer);
+    }
+
     @Test
     void asOutputStream() throws IOException {
         var consumer = new ArrayList<String>();
@@ -49,4 +62,28 @@ class LinesTest {
                 "World"
         ), consumer);
     }
+
+    @Test
+    void asOutputStreamFallback() throws IOException {
+        var consumer = new ArrayList<String>();
+        try (var out = Lines.asOutputStream(consumer::add, UTF_16)) {
+            out.write("Hello\nWorld".getBytes(UTF_16));
+        }
+        assertEquals(List.of(
+                "Hello\n",
+                "World"
+        ), consumer);
+    }
+
+    @Test
+    void asRawOutputStream() throws IOException {
+        var consumer = new ArrayList<String>();
+        try (var out = Lines.asRawOutputStream(buffer -> consumer.add(UTF_8.decode(buffer).toString()))) {
+            out.write("Hello\nWorld".getBytes(UTF_8));
+        }
+        assertEquals(List.of(
+                "Hello\n",
+                "World"
+        ), consumer);
+    }
 }
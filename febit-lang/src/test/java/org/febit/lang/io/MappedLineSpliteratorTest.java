@@ -0,0 +1,144 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLineSpliteratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path write(String text) throws IOException {
+        var file = Files.createTempFile(tempDir, "lines", ".txt");
+        Files.writeString(file, text, UTF_8);
+        return file;
+    }
+
+    private static List<String> expected(String text) throws IOException {
+        try (var reader = new BufferedReader(new StringReader(text))) {
+            return reader.lines().toList();
+        }
+    }
+
+    private List<String> read(String text, int chunkSize, long minSplitSize, boolean parallel) throws IOException {
+        var file = write(text);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var spliterator = new MappedLineSpliterator(channel, UTF_8,
+                    chunkSize, minSplitSize, 0, channel.size());
+            return StreamSupport.stream(spliterator, parallel).toList();
+        }
+    }
+
+    @Test
+    void lineBreaks() throws IOException {
+        var texts = List.of(
+                "",
+                "\n",
+                "\r",
+                "\r\n",
+                "a",
+                "a\nb",
+                "a\nb\n",
+                "a\r\nb\r\n",
+                "a\rb\r",
+                "a\r\rb\n\nc\r\n\r\nd",
+                "中文\n日本語\r\n한국어\r"
+        );
+        for (var text : texts) {
+            var expected = expected(text);
+            for (int chunkSize : new int[]{1, 2, 3, 5, 1024}) {
+                assertEquals(expected, read(text, chunkSize, Long.MAX_VALUE, false),
+                        () -> "chunkSize=" + chunkSize + ", text=" + text);
+            }
+        }
+    }
+
+    @Test
+    void longLines() throws IOException {
+        var text = "x".repeat(1000) + "\r\n"
+                + "中".repeat(500) + "\r"
+                + "y".repeat(3000) + "\n"
+                + "z".repeat(100);
+        assertEquals(expected(text), read(text, 7, Long.MAX_VALUE, false));
+    }
+
+    @Test
+    void parallel() throws IOException {
+        var buf = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            buf.append("line-").append(i);
+            buf.append(switch (i % 3) {
+                case 0 -> "\n";
+                case 1 -> "\r\n";
+                default -> "\r";
+            });
+        }
+        var text = buf.toString();
+        var expected = expected(text);
+        assertEquals(expected, read(text, 64, 16, true));
+        assertEquals(expected, read(text, 4096, 1024, true));
+    }
+
+    @Test
+    void trySplitOnLineBoundaries() throws IOException {
+        var text = "aaaa\r\nbbbb\r\ncccc\r\ndddd\r\n";
+        var file = write(text);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var suffix = new MappedLineSpliterator(channel, UTF_8, 8, 1, 0, channel.size());
+            var prefix = suffix.trySplit();
+            assertNotNull(prefix);
+
+            var lines = new ArrayList<String>();
+            prefix.forEachRemaining(lines::add);
+            assertEquals(List.of("aaaa", "bbbb", "cccc"), lines);
+
+            lines.clear();
+            suffix.forEachRemaining(lines::add);
+            assertEquals(List.of("dddd"), lines);
+        }
+    }
+
+    @Test
+    void mapped() throws IOException {
+        var text = "Hello\r\nWorld\n中文";
+        var file = write(text);
+        try (var lines = Lines.mapped(file)) {
+            assertEquals(List.of("Hello", "World", "中文"), lines.toList());
+        }
+        try (var lines = Lines.mapped(file, UTF_8)) {
+            assertEquals("Hello,World,中文", lines.parallel().collect(Collectors.joining(",")));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Lines.mapped(file, UTF_16));
+    }
+}
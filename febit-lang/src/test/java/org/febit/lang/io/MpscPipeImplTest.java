@@ -16,13 +16,22 @@
 package org.febit.lang.io;
 
 import lombok.extern.slf4j.Slf4j;
+import org.febit.lang.func.ClosableConsumer;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -83,4 +92,182 @@ class MpscPipeImplTest {
 
     }
 
+    @Test
+    void batch() throws Exception {
+        var n = 4;
+        var rounds = 1000;
+        var maxBatch = 7;
+
+        var executor = Executors.newFixedThreadPool(n + 1);
+        var pipe = MpscPipeImpl.<Stub>ofBounded(3);
+
+        var accepted = new ArrayList<Stub>();
+        var consumer = executor.submit(() -> pipe.forEachBatch(maxBatch, batch -> {
+            assertFalse(batch.isEmpty());
+            assertTrue(batch.size() <= maxBatch, "Batch too large: " + batch.size());
+            accepted.addAll(batch);
+        }));
+
+        var futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < n; i++) {
+            var worker = i;
+            futures.add(executor.submit(() -> {
+                try (var producer = pipe.createBatchProducer()) {
+                    for (int round = 0; round < rounds; round += 10) {
+                        var items = new ArrayList<Stub>();
+                        for (int j = round; j < round + 10; j++) {
+                            items.add(new Stub(worker, j));
+                        }
+                        producer.acceptAll(items);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (var future : futures) {
+            future.get();
+        }
+        consumer.get();
+        executor.shutdown();
+
+        assertEquals(n * rounds, accepted.size());
+        assertEquals(n * rounds, new HashSet<>(accepted).size());
+    }
+
+    @Test
+    void parallelStream() throws Exception {
+        var total = 10_000;
+        var pipe = MpscPipeImpl.<Integer>ofUnbound();
+        try (var producer = pipe.createProducer()) {
+            for (int i = 0; i < total; i++) {
+                producer.accept(i);
+            }
+        }
+
+        var spliterator = pipe.stream().spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.NONNULL));
+
+        var prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(MpscPipeSpliterator.BATCH_UNIT, prefix.estimateSize());
+
+        var first = new ArrayList<Integer>();
+        prefix.forEachRemaining(first::add);
+        var rest = StreamSupport.stream(spliterator, true).toList();
+        assertEquals(total, first.size() + rest.size());
+        assertEquals(0, first.get(0));
+        assertEquals(MpscPipeSpliterator.BATCH_UNIT, rest.get(0));
+        for (int i = 1; i < rest.size(); i++) {
+            assertEquals(rest.get(i - 1) + 1, rest.get(i));
+        }
+        assertNull(spliterator.trySplit());
+    }
+
+    @Test
+    void drainTo() throws InterruptedException {
+        var pipe = (BaseMpscPipe<String>) MpscPipeImpl.<String>ofBounded(4);
+        assertThrows(IllegalArgumentException.class, () -> pipe.drainTo(new ArrayList<>(), 0));
+
+        pipe.putAll(List.of("a", "b", "c"));
+        var sink = new ArrayList<String>();
+        assertEquals(2, pipe.drainTo(sink, 2));
+        assertEquals(List.of("a", "b"), sink);
+
+        pipe.close();
+        assertEquals(1, pipe.drainTo(sink, 2));
+        assertEquals(List.of("a", "b", "c"), sink);
+        assertEquals(0, pipe.drainTo(sink, 2));
+    }
+
+    @Test
+    void defaultsOnPlainPipe() throws IOException {
+        var queue = new ArrayDeque<String>();
+        var pipe = new MpscPipe<String>() {
+            @Override
+            public ClosableConsumer<String> createProducer() {
+                return new ClosableConsumer<>() {
+                    @Override
+                    public void accept(String s) {
+                        queue.add(s);
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+
+            @Override
+            public Stream<String> stream() {
+                return Stream.generate(queue::poll).takeWhile(Objects::nonNull);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try (var producer = pipe.createBatchProducer()) {
+            producer.acceptAll(List.of("a", "b", "c"));
+        }
+        assertEquals(List.of("a", "b", "c"), List.copyOf(queue));
+
+        assertThrows(IllegalArgumentException.class, () -> pipe.drainTo(new ArrayList<>(), 0));
+        var sink = new ArrayList<String>();
+        assertEquals(1, pipe.drainTo(sink, 2));
+        assertEquals(List.of("a"), sink);
+
+        var batches = new ArrayList<List<String>>();
+        pipe.forEachBatch(2, batches::add);
+        assertEquals(List.of(List.of("b"), List.of("c")), batches);
+        assertEquals(0, pipe.droppedCount());
+    }
+
+    @Test
+    void overflowDropNewest() throws InterruptedException {
+        var pipe = (BaseMpscPipe<String>) MpscPipeImpl.ofBounded(2, OverflowPolicy.<String>dropNewest());
+        pipe.putAll(List.of("a", "b", "c", "d"));
+        pipe.close();
+
+        assertEquals(List.of("a", "b"), pipe.stream().toList());
+        assertEquals(2, pipe.droppedCount());
+        assertEquals(0, pipe.blockedCount());
+    }
+
+    @Test
+    void overflowDropOldest() throws InterruptedException {
+        var pipe = (BaseMpscPipe<String>) MpscPipeImpl.ofBounded(2, OverflowPolicy.<String>dropOldest());
+        pipe.putAll(List.of("a", "b", "c", "d"));
+        pipe.close();
+
+        assertEquals(List.of("c", "d"), pipe.stream().toList());
+        assertEquals(2, pipe.droppedCount());
+    }
+
+    @Test
+    void overflowCoalesce() throws InterruptedException {
+        var pipe = (BaseMpscPipe<String>) MpscPipeImpl.ofBounded(2, OverflowPolicy.<String>coalesce(String::concat));
+        pipe.putAll(List.of("a", "b", "c", "d"));
+        pipe.close();
+
+        assertEquals(List.of("a", "bcd"), pipe.stream().toList());
+        assertEquals(2, pipe.coalescedCount());
+        assertEquals(0, pipe.droppedCount());
+    }
+
+    @Test
+    void overflowBlockWithTimeout() throws InterruptedException {
+        var pipe = (BaseMpscPipe<String>) MpscPipeImpl.ofBounded(1,
+                OverflowPolicy.<String>blockWithTimeout(Duration.ofMillis(10)));
+        pipe.put("a");
+        pipe.put("b");
+        pipe.close();
+
+        assertEquals(List.of("a"), pipe.stream().toList());
+        assertEquals(1, pipe.blockedCount());
+        assertEquals(1, pipe.droppedCount());
+
+        assertThrows(IllegalArgumentException.class, () -> OverflowPolicy.blockWithTimeout(Duration.ofMillis(-1)));
+    }
 }
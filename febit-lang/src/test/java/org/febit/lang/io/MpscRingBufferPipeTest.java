@@ -0,0 +1,228 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpscRingBufferPipeTest {
+
+    record Stub(int worker, int round) {
+    }
+
+    @Test
+    void capacity() {
+        assertEquals(1, MpscRingBufferPipe.create(1).capacity());
+        assertEquals(2, MpscRingBufferPipe.create(2).capacity());
+        assertEquals(3, MpscRingBufferPipe.create(3).capacity());
+        assertEquals(1000, MpscRingBufferPipe.create(1000).capacity());
+
+        assertThrows(IllegalArgumentException.class, () -> MpscRingBufferPipe.create(0));
+        assertThrows(IllegalArgumentException.class, () -> MpscRingBufferPipe.create(-1));
+    }
+
+    @Test
+    void exactCapacity() throws Exception {
+        var pipe = MpscRingBufferPipe.<String>create(3);
+        pipe.putAll(List.of("a", "b", "c"));
+        assertEquals(3, pipe.size());
+
+        try (var executor = Executors.newSingleThreadExecutor()) {
+            var blocked = executor.submit(() -> {
+                pipe.put("d");
+                return null;
+            });
+            while (pipe.blockedCount() == 0) {
+                Thread.onSpinWait();
+            }
+            assertEquals(3, pipe.size());
+            assertFalse(blocked.isDone());
+
+            assertEquals("a", pipe.next());
+            blocked.get();
+        }
+        pipe.close();
+        var rest = new ArrayList<String>();
+        pipe.forEachRemaining(rest::add);
+        assertEquals(List.of("b", "c", "d"), rest);
+    }
+
+    @Test
+    void single() throws InterruptedException {
+        var pipe = MpscRingBufferPipe.<String>create(4);
+        assertEquals(0, pipe.size());
+
+        pipe.put("a");
+        pipe.put("b");
+        assertEquals(2, pipe.size());
+        assertThrows(NullPointerException.class, () -> pipe.put(null));
+
+        pipe.close();
+        assertThrows(IllegalStateException.class, () -> pipe.put("c"));
+        assertThrows(IllegalStateException.class, pipe::createProducer);
+
+        assertEquals(List.of("a", "b"), pipe.stream().toList());
+        assertEquals(0, pipe.size());
+        assertFalse(pipe.hasNext());
+        assertThrows(NoSuchElementException.class, pipe::next);
+    }
+
+    @Test
+    void closeAfterAllProducersClosed() throws IOException {
+        var pipe = MpscRingBufferPipe.<String>create(4);
+        var producer1 = pipe.createProducer();
+        var producer2 = pipe.createProducer();
+
+        producer1.accept("a");
+        producer1.close();
+        assertDoesNotThrow(() -> producer2.accept("b"));
+        producer2.close();
+
+        assertThrows(IllegalStateException.class, () -> producer2.accept("c"));
+        assertEquals(List.of("a", "b"), pipe.stream().toList());
+    }
+
+    @Test
+    void async() throws Exception {
+        var n = 4;
+        var rounds = 20_000;
+
+        var executor = Executors.newFixedThreadPool(n + 1);
+        var pipe = MpscRingBufferPipe.<Stub>create(16);
+
+        var accepted = new ArrayList<Stub>();
+        var consumer = executor.submit(() -> pipe.stream().forEach(accepted::add));
+
+        var futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < n; i++) {
+            var worker = i;
+            futures.add(executor.submit(() -> {
+                try (var producer = pipe.createProducer()) {
+                    for (int round = 0; round < rounds; round++) {
+                        producer.accept(new Stub(worker, round));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (var future : futures) {
+            future.get();
+        }
+        consumer.get();
+        executor.shutdown();
+
+        assertEquals(n * rounds, accepted.size());
+
+        // Items from the same producer keep their order
+        Map<Integer, Integer> lastRounds = new HashMap<>();
+        for (var stub : accepted) {
+            var last = lastRounds.getOrDefault(stub.worker(), -1);
+            assertEquals(last + 1, stub.round(), "Out of order: " + stub);
+            lastRounds.put(stub.worker(), stub.round());
+        }
+    }
+
+    @Test
+    void batch() throws Exception {
+        var n = 4;
+        var rounds = 1000;
+        var maxBatch = 7;
+
+        var executor = Executors.newFixedThreadPool(n + 1);
+        var pipe = MpscRingBufferPipe.<Stub>create(4);
+
+        var accepted = new ArrayList<Stub>();
+        var consumer = executor.submit(() -> pipe.forEachBatch(maxBatch, batch -> {
+            assertFalse(batch.isEmpty());
+            assertTrue(batch.size() <= maxBatch, "Batch too large: " + batch.size());
+            accepted.addAll(batch);
+        }));
+
+        var futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < n; i++) {
+            var worker = i;
+            futures.add(executor.submit(() -> {
+                try (var producer = pipe.createBatchProducer()) {
+                    for (int round = 0; round < rounds; round += 10) {
+                        var items = new ArrayList<Stub>();
+                        for (int j = round; j < round + 10; j++) {
+                            items.add(new Stub(worker, j));
+                        }
+                        producer.acceptAll(items);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (var future : futures) {
+            future.get();
+        }
+        consumer.get();
+        executor.shutdown();
+
+        assertEquals(n * rounds, accepted.size());
+        assertEquals(n * rounds, new HashSet<>(accepted).size());
+    }
+
+    @Test
+    void drainTo() throws InterruptedException {
+        var pipe = MpscRingBufferPipe.<String>create(4);
+        assertThrows(IllegalArgumentException.class, () -> pipe.drainTo(new ArrayList<>(), 0));
+
+        pipe.putAll(List.of("a", "b", "c"));
+        var sink = new ArrayList<String>();
+        assertEquals(2, pipe.drainTo(sink, 2));
+        assertEquals(List.of("a", "b"), sink);
+
+        pipe.close();
+        assertEquals(1, pipe.drainTo(sink, 2));
+        assertEquals(List.of("a", "b", "c"), sink);
+        assertEquals(0, pipe.drainTo(sink, 2));
+    }
+
+    @Test
+    void drainToFailingSink() throws InterruptedException {
+        var pipe = MpscRingBufferPipe.<String>create(4);
+        pipe.putAll(List.of("a", "b", "c"));
+
+        var sink = new ArrayList<String>() {
+            @Override
+            public boolean add(String s) {
+                if ("b".equals(s)) {
+                    throw new IllegalStateException("rejected");
+                }
+                return super.add(s);
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> pipe.drainTo(sink, 3));
+        assertEquals(List.of("a"), sink);
+
+        var rest = new ArrayList<String>();
+        assertEquals(2, pipe.drainTo(rest, 3));
+        assertEquals(List.of("b", "c"), rest);
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.jackson;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.deser.std.StdDeserializer;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.febit.lang.jackson.FastConverter.UNSUPPORTED;
+import static org.febit.lang.jackson.JacksonTypes.LIST;
+import static org.febit.lang.jackson.JacksonTypes.MAP;
+import static org.febit.lang.jackson.JacksonTypes.MAP_NAMED;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastConverterTest {
+
+    /**
+     * Mapper with custom (de)serializers for plain values, always left to Jackson.
+     */
+    private static final ObjectMapper CUSTOM = JsonMapper.builder()
+            .addModule(new SimpleModule()
+                    .addSerializer(Long.class, new StdSerializer<>(Long.class) {
+                        @Override
+                        public void serialize(Long value, JsonGenerator gen, SerializationContext ctxt) {
+                            gen.writeString("L" + value);
+                        }
+                    })
+                    .addDeserializer(String.class, new StdDeserializer<>(String.class) {
+                        @Override
+                        public String deserialize(JsonParser p, DeserializationContext ctxt) {
+                            return "custom:" + p.getString();
+                        }
+                    })
+            )
+            .build();
+
+    private static final List<ObjectMapper> MAPPERS = List.of(
+            JsonMapper.builder().build(),
+            JacksonStandard.standard(JsonMapper.builder()).build(),
+            JsonMapper.builder().enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build(),
+            CUSTOM
+    );
+
+    public record Point(int x, long y) {
+    }
+
+    public record Shape(String name, List<Point> points, Map<String, Object> extra, @Nullable Point center) {
+    }
+
+    public record Renamed(@JsonProperty("full_name") String name) {
+    }
+
+    public record Formatted(@JsonFormat(shape = JsonFormat.Shape.STRING) int value) {
+    }
+
+    @Data
+    public static class Bean {
+        public String title = "bean";
+        @Nullable
+        private Integer count = 3;
+        private boolean active = true;
+        @Nullable
+        private Point origin;
+        private List<String> tags = new ArrayList<>();
+    }
+
+    @Data
+    public static class Throwing {
+        private String name = "x";
+
+        public String getName() {
+            throw new IllegalStateException("getter fails");
+        }
+    }
+
+    private static Map<String, Object> sampleMap() {
+        var nested = new LinkedHashMap<String, Object>();
+        nested.put("z", 1);
+        nested.put("a", null);
+        nested.put("list", new ArrayList<>(List.of(1, 2L, "three", true, 4.5D)));
+
+        var map = new LinkedHashMap<String, Object>();
+        map.put("s", "str");
+        map.put("i", 1);
+        map.put("l", Long.MAX_VALUE);
+        map.put("d", 1.5D);
+        map.put("b", false);
+        map.put("n", null);
+        map.put("nested", nested);
+        map.put("set", Set.of("x"));
+        return map;
+    }
+
+    @Test
+    void plainMapsAndLists() {
+        var map = sampleMap();
+        var longs = new HashMap<String, Object>(Map.of("a", 1, "b", 2L));
+
+        for (var mapper : MAPPERS) {
+            var codec = JacksonCodecImpl.of(mapper);
+            assertConverted(codec, map, MAP);
+            assertConverted(codec, map, MAP_NAMED);
+            assertConverted(codec, map, codec.typeOf(Map.class));
+            assertConverted(codec, longs, codec.namedMapType(codec.typeOf(Long.class)));
+            assertConverted(codec, List.of(map, List.of(1), "x"), LIST);
+            assertConverted(codec, List.of(1, 2), codec.listType(Long.class));
+            assertConverted(codec, "text", codec.typeOf(String.class));
+            assertConverted(codec, 1, codec.typeOf(long.class));
+        }
+    }
+
+    @Test
+    void beansToMaps() {
+        var shape = new Shape("square", List.of(new Point(1, 2), new Point(3, 4)), sampleMap(), null);
+        var bean = new Bean();
+        bean.setOrigin(new Point(5, 6));
+        bean.setCount(null);
+
+        for (var mapper : MAPPERS) {
+            var codec = JacksonCodecImpl.of(mapper);
+            assertConverted(codec, new Point(1, 2), MAP);
+            assertConverted(codec, shape, MAP);
+            assertConverted(codec, shape, MAP_NAMED);
+            assertConverted(codec, List.of(shape), LIST);
+            assertConverted(codec, new Bean(), MAP);
+            assertConverted(codec, bean, MAP_NAMED);
+        }
+    }
+
+    @Test
+    void mapsToBeans() {
+        var point = new LinkedHashMap<String, Object>();
+        point.put("x", 1);
+        point.put("y", 2);
+
+        var shape = new LinkedHashMap<String, Object>();
+        shape.put("name", "line");
+        shape.put("points", List.of(point, Map.of("x", 5, "y", 6L)));
+        shape.put("extra", Map.of("k", List.of(1, "v")));
+        shape.put("center", null);
+
+        var bean = new LinkedHashMap<String, Object>();
+        bean.put("title", "t");
+        bean.put("count", null);
+        bean.put("origin", point);
+        bean.put("tags", List.of("a", "b"));
+
+        for (var mapper : MAPPERS) {
+            var codec = JacksonCodecImpl.of(mapper);
+            assertConverted(codec, point, codec.typeOf(Point.class));
+            assertConverted(codec, shape, codec.typeOf(Shape.class));
+            assertConverted(codec, List.of(point), codec.listType(Point.class));
+            assertConverted(codec, bean, codec.typeOf(Bean.class));
+            assertConverted(codec, Map.of(), codec.typeOf(Bean.class));
+        }
+
+        var expected = new Bean();
+        expected.setTitle("t");
+        expected.setCount(null);
+        expected.setOrigin(new Point(1, 2));
+        expected.setTags(List.of("a", "b"));
+        assertEquals(expected, JacksonCodecImpl.of(MAPPERS.get(0)).to(bean, Bean.class));
+
+        var lenient = JacksonCodecImpl.of(MAPPERS.get(1));
+        var unknown = Map.of("x", 1, "y", 2, "unknown", "value");
+        assertConverted(lenient, unknown, lenient.typeOf(Point.class));
+        assertEquals(new Point(1, 2), lenient.to(unknown, Point.class));
+
+        var strict = JacksonCodecImpl.of(MAPPERS.get(2));
+        assertSlow(strict, unknown, strict.typeOf(Point.class));
+    }
+
+    @Test
+    void fallbacks() {
+        for (var mapper : MAPPERS) {
+            var codec = JacksonCodecImpl.of(mapper);
+            assertSlow(codec, Map.of("date", LocalDate.of(2020, 1, 2)), MAP);
+            assertSlow(codec, Map.of("f", 1.5F), MAP);
+            assertSlow(codec, Map.of("d", Double.NaN), MAP_NAMED);
+            assertSlow(codec, Map.of(1, "one"), MAP);
+            assertSlow(codec, new Renamed("Foo"), MAP);
+            assertSlow(codec, new Formatted(1), MAP);
+            assertSlow(codec, Map.of("name", "Foo"), codec.typeOf(Renamed.class));
+            assertSlow(codec, Map.of("x", "1"), codec.typeOf(Point.class));
+            // Absent primitives are left to Jackson
+            assertSlow(codec, Map.of("x", 1), codec.typeOf(Point.class));
+            assertSlow(codec, Map.of("active", Map.of()), codec.typeOf(Bean.class));
+            assertSlow(codec, new Throwing(), MAP);
+            assertSlow(codec, Map.of("a", 1L), codec.namedMapType(codec.typeOf(Integer.class)));
+            assertSlow(codec, Map.of("a", 1), codec.mapType(HashMap.class, Object.class));
+            assertSlow(codec, "1", codec.typeOf(Integer.class));
+            assertSlow(codec, 1, codec.typeOf(String.class));
+        }
+    }
+
+    @Test
+    void customSerializers() {
+        var codec = JacksonCodecImpl.of(CUSTOM);
+        assertSlow(codec, Map.of("n", 5L), MAP);
+        assertEquals(Map.of("n", "custom:L5"), codec.toMap(Map.of("n", 5L)));
+    }
+
+    @Test
+    void nullSource() {
+        var codec = JacksonCodecImpl.of(MAPPERS.get(0));
+        assertSame(UNSUPPORTED, new FastConverter(codec.mapper()).convert(null, MAP));
+        assertNull(codec.toMap(null));
+    }
+
+    /**
+     * The result is exactly what Jackson would produce, by the fast path unless the mapper is customized.
+     */
+    private static void assertConverted(JacksonCodecImpl<?> codec, Object source, JavaType type) {
+        if (codec.mapper() == CUSTOM) {
+            assertSlow(codec, source, type);
+            return;
+        }
+        var fast = new FastConverter(codec.mapper()).convert(source, type);
+        assertNotSame(UNSUPPORTED, fast, () -> "Expected fast path for " + source + " to " + type);
+        assertDeepEquals(codec.mapper().convertValue(source, type), fast);
+        assertDeepEquals(fast, codec.to(source, type));
+    }
+
+    /**
+     * The conversion is left to Jackson.
+     */
+    private static void assertSlow(JacksonCodecImpl<?> codec, Object source, JavaType type) {
+        assertSame(UNSUPPORTED, new FastConverter(codec.mapper()).convert(source, type),
+                () -> "Expected fallback for " + source + " to " + type);
+        Object expected;
+        try {
+            expected = codec.mapper().convertValue(source, type);
+        } catch (RuntimeException e) {
+            assertThrows(e.getClass(), () -> codec.to(source, type));
+            return;
+        }
+        assertDeepEquals(expected, codec.to(source, type));
+    }
+
+    /**
+     * Equal values of the same classes, with the same key order of maps.
+     */
+    private static void assertDeepEquals(@Nullable Object expected, @Nullable Object actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertNotNull(actual);
+        assertEquals(expected.getClass(), actual.getClass());
+        if (expected instanceof Map<?, ?> map) {
+            var actualMap = (Map<?, ?>) actual;
+            assertEquals(List.copyOf(map.keySet()), List.copyOf(actualMap.keySet()));
+            map.forEach((key, value) -> assertDeepEquals(value, actualMap.get(key)));
+            return;
+        }
+        if (expected instanceof List<?> list) {
+            var actualList = (List<?>) actual;
+            assertEquals(list.size(), actualList.size());
+            for (int i = 0; i < list.size(); i++) {
+                assertDeepEquals(list.get(i), actualList.get(i));
+            }
+            return;
+        }
+        assertEquals(expected, actual);
+    }
+}
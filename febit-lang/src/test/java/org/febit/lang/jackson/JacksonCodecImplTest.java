@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.jackson;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.febit.lang.jackson.JacksonTypes.INTEGER;
+import static org.febit.lang.jackson.JacksonTypes.STRING;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JacksonCodecImplTest {
+
+    @Test
+    void readerAndWriterCached() {
+        var codec = JacksonCodecImpl.ofStandard(JsonMapper.builder());
+
+        var reader = codec.reader(INTEGER);
+        assertSame(reader, codec.reader(codec.typeOf(Integer.class)));
+        assertEquals(12, (Integer) reader.readValue("12"));
+
+        var writer = codec.writer(STRING);
+        assertSame(writer, codec.writer(STRING));
+        assertEquals("\"a\"", writer.writeValueAsString("a"));
+        assertSame(codec.writer(), codec.writer());
+    }
+
+    @Test
+    void compositeTypesCached() {
+        var codec = JacksonCodecImpl.ofStandard(JsonMapper.builder());
+
+        assertSame(codec.mapType(String.class, Integer.class), codec.mapType(STRING, INTEGER));
+        assertSame(codec.namedMapType(INTEGER), codec.mapType(STRING, INTEGER));
+        assertSame(codec.listType(Integer.class), codec.listType(INTEGER));
+        assertSame(codec.arrayType(Integer.class), codec.arrayType(INTEGER));
+        assertNotSame(codec.listType(INTEGER), codec.listType(STRING));
+
+        assertEquals(Map.of("a", 1), codec.parseToNamedMap("{\"a\":\"1\"}", Integer.class));
+        assertEquals(List.of("1", "2"), codec.parseToList("[1,2]", String.class));
+        assertSame(codec.reader(codec.listType(STRING)), codec.reader(codec.listType(String.class)));
+    }
+
+    @Test
+    void serializable() {
+        var codec = JacksonCodecImpl.of(JsonMapper.builder().build());
+
+        var copy = SerializationUtils.roundtrip(codec);
+        assertNotSame(codec, copy);
+        assertEquals(12, (Integer) copy.reader(INTEGER).readValue("12"));
+        assertEquals(List.of(1), copy.parseToList("[1]", Integer.class));
+        assertEquals("[1]", copy.stringify(List.of(1)));
+    }
+}
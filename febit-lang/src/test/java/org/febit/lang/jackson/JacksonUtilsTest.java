@@ -19,17 +19,23 @@ import org.febit.lang.util.ArraysUtils;
 import org.febit.lang.util.Lists;
 import org.febit.lang.util.Maps;
 import org.junit.jupiter.api.Test;
+import tools.jackson.core.JacksonException;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.lang.reflect.Type;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.febit.lang.jackson.JacksonTypes.INTEGER;
 import static org.febit.lang.jackson.JacksonTypes.MAP;
@@ -156,6 +162,82 @@ class JacksonUtilsTest {
         assertEquals("{}", out.toString(StandardCharsets.UTF_8));
     }
 
+    @Test
+    void bytes() {
+        var json = JacksonUtils.json();
+        var bytes = json.toBytes(Map.of("a", "中文"));
+        assertEquals("{\"a\":\"中文\"}", new String(bytes, StandardCharsets.UTF_8));
+
+        var padded = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, padded, 2, bytes.length);
+        assertEquals(Map.of("a", "中文"), json.parse(padded, 2, bytes.length, MAP));
+        assertEquals(Map.of("a", "中文"), json.parse(new ByteArrayInputStream(bytes), MAP));
+
+        var heap = ByteBuffer.wrap(padded, 2, bytes.length);
+        assertEquals(Map.of("a", "中文"), json.parse(heap, MAP));
+        assertEquals(2, heap.position());
+
+        var direct = ByteBuffer.allocateDirect(64);
+        json.writeTo(direct, Map.of("a", "中文"));
+        assertEquals(bytes.length, direct.position());
+        direct.flip();
+        assertEquals(Map.of("a", "中文"), json.parse(direct, MAP));
+        assertEquals(0, direct.position());
+
+        assertThrows(BufferOverflowException.class,
+                () -> json.writeTo(ByteBuffer.allocate(2), Map.of("a", "中文")));
+    }
+
+    @Test
+    void writeAll() {
+        var writer = new StringWriter();
+        JacksonUtils.writeAll(writer, Stream.of(Map.of("a", 1), List.of(2), "x"));
+        assertEquals("{\"a\":1}\n[2]\n\"x\"", writer.toString());
+
+        var out = new ByteArrayOutputStream();
+        JacksonUtils.prettyJson().writeAll(out, Stream.of(Map.of("a", 1), Map.of("b", 2)));
+        assertEquals("{\"a\":1}\n{\"b\":2}", out.toString(StandardCharsets.UTF_8));
+
+        writer = new StringWriter();
+        JacksonUtils.writeAllAsArray(writer, Stream.of(1, "2", Map.of()));
+        assertEquals("[1,\"2\",{}]", writer.toString());
+
+        out = new ByteArrayOutputStream();
+        JacksonUtils.writeAllAsArray(out, Stream.empty());
+        assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void streamArray() {
+        try (var stream = JacksonUtils.streamArray(reader("[1,2,3]"), Long.class)) {
+            assertEquals(List.of(1L, 2L, 3L), stream.toList());
+        }
+        try (var stream = JacksonUtils.streamArray(reader("{\"a\":1}\n{\"a\":2}\n"), MAP)) {
+            assertEquals(List.of(Map.of("a", 1), Map.of("a", 2)), stream.toList());
+        }
+        try (var stream = JacksonUtils.<String>streamArray(
+                new ByteArrayInputStream("[\"a\",\"b\"]".getBytes(StandardCharsets.UTF_8)), STRING)) {
+            assertEquals(List.of("a", "b"), stream.toList());
+        }
+        try (var stream = JacksonUtils.streamArray(reader("[]"), Integer.class)) {
+            assertEquals(0, stream.count());
+        }
+
+        // Round trip
+        var out = new ByteArrayOutputStream();
+        JacksonUtils.writeAll(out, IntStream.range(0, 1000).boxed());
+        try (var stream = JacksonUtils.streamArray(new ByteArrayInputStream(out.toByteArray()), Integer.class)) {
+            assertEquals(499500, stream.mapToInt(Integer::intValue).sum());
+        }
+
+        // Lazy, the broken tail is not read until needed
+        try (var iter = JacksonUtils.json().<Integer>iterateArray(reader("[1,2,{"), INTEGER)) {
+            assertEquals(1, iter.next());
+            assertEquals(2, iter.next());
+            assertThrows(JacksonException.class, iter::next);
+        }
+    }
+
     @Test
     void parseNull() {
 
@@ -249,4 +249,53 @@ class ModeledValueSerializerTest {
                 ))
         );
     }
+
+    @Test
+    void packedStruct() {
+        var schema = Schema.parseStruct("demo",
+                "boolean flag",
+                "byte b",
+                "int i",
+                "long l",
+                "float f",
+                "double d",
+                "optional<int> oi",
+                "string name",
+                "struct<x:int> nested"
+        );
+        var source = Map.of(
+                "flag", true,
+                "b", 1,
+                "i", 2,
+                "l", 3L,
+                "f", 1.25F,
+                "d", 9.75D,
+                "name", "x",
+                "nested", Map.of("x", 5)
+        );
+        var packed = Modeler.builder()
+                .structAsPacked()
+                .processAsModeled(schema, source);
+        assertNotNull(packed);
+        assertEquals(modelAndJsonify(schema, source), codec.stringify(packed));
+    }
+
+    @Test
+    void unexpectedValueTypes() {
+        // Values not produced by modeler are delegated to the provider.
+        assertEquals("12", jsonifyModeled(ofPrimitive(SchemaType.STRING), 12));
+        assertEquals("\"x\"", jsonifyModeled(ofPrimitive(SchemaType.INT), "x"));
+        assertEquals("\"yes\"", jsonifyModeled(ofPrimitive(SchemaType.BOOLEAN), "yes"));
+        assertEquals("12", jsonifyModeled(ofPrimitive(SchemaType.LONG), BigDecimal.valueOf(12)));
+    }
+
+    @Test
+    void planReused() {
+        var schema = Schema.parseStruct("demo", "int id", "list<string> names");
+        var first = modelAndJsonify(schema, Map.of("id", 1, "names", List.of("a")));
+        assertEquals(first, modelAndJsonify(Schema.parse(schema.toTypeString()),
+                Map.of("id", 1, "names", List.of("a"))));
+        assertEquals(first.replace("1", "2"), modelAndJsonify(schema,
+                Map.of("id", 2, "names", List.of("a"))));
+    }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyStructTest {
+
+    static final Schema S_DEMO = Schema.parseStruct("demo",
+            "int id\n",
+            "list<struct<name:string,tags:list<string>>> items\n",
+            "map<string,long> counts\n"
+    );
+
+    static class CountingMap extends HashMap<Object, Object> {
+        final List<Object> accessed = new ArrayList<>();
+
+        CountingMap(Map<?, ?> map) {
+            super(map);
+        }
+
+        @Override
+        public @Nullable Object get(Object key) {
+            accessed.add(key);
+            return super.get(key);
+        }
+    }
+
+    @Test
+    void convertOnAccess() {
+        var item = new CountingMap(Map.of("name", 1, "tags", List.of(1, 2)));
+        var source = new CountingMap(Map.of(
+                "id", "12",
+                "items", List.of(item),
+                "counts", Map.of("a", "3")
+        ));
+        var value = Modeler.builder().emptyIfAbsent().structAsMap().build()
+                .processAsLazyModeled(S_DEMO, source);
+
+        var struct = (LazyStruct) value.value();
+        assertNotNull(struct);
+        assertSame(S_DEMO, struct.schema());
+        assertTrue(source.accessed.isEmpty());
+
+        assertEquals(12, struct.get(S_DEMO.field("id")));
+        assertEquals(List.of("id"), source.accessed);
+        assertFalse(struct.isResolved(S_DEMO.field("items")));
+
+        var items = (List<?>) struct.get(S_DEMO.field("items"));
+        assertNotNull(items);
+        assertSame(items, struct.get(S_DEMO.field("items")));
+        assertEquals(List.of("id", "items"), source.accessed);
+        assertEquals(1, items.size());
+        assertTrue(item.accessed.isEmpty());
+
+        var itemStruct = (LazyStruct) items.get(0);
+        assertSame(itemStruct, items.get(0));
+        assertEquals(List.of(), item.accessed);
+        assertEquals("1", itemStruct.get(itemStruct.schema().field("name")));
+        assertEquals(List.of("name"), item.accessed);
+
+        // Memoized
+        assertEquals(12, struct.get(S_DEMO.field("id")));
+        assertEquals(List.of("id", "items"), source.accessed);
+    }
+
+    @Test
+    void sameAsEager() {
+        var modeler = Modeler.builder().emptyIfAbsent().structAsMap().build();
+        var source = Map.of(
+                "id", 12L,
+                "items", List.of(
+                        Map.of("name", "a", "tags", List.of(1, 2)),
+                        Map.of("name", "b")
+                ),
+                "counts", Map.of("a", "3")
+        );
+        var eager = modeler.processAsModeled(S_DEMO, source);
+        var lazy = modeler.processAsLazyModeled(S_DEMO, source);
+
+        assertEquals(ModeledValueCodecTest.JSON.stringify(eager),
+                ModeledValueCodecTest.JSON.stringify(lazy));
+        assertEquals(((Map<?, ?>) requireNonNull(eager.value())).get("counts"),
+                ((LazyStruct) requireNonNull(lazy.value())).get(S_DEMO.field("counts")));
+        assertEquals("{id=12, items=[{name=a, tags=[1, 2]}, {name=b, tags=[]}], counts={a=3}}",
+                String.valueOf(lazy.value()));
+
+        var nullSource = modeler.processAsLazyModeled(S_DEMO, null);
+        assertEquals(modeler.process(S_DEMO, null), nullSource.value());
+    }
+
+    @Test
+    void lazyMapsAndArrays() {
+        var schema = Schema.parseStruct("demo",
+                "map<string,struct<name:string>> byName\n",
+                "array<int> ids\n"
+        );
+        var modeler = Modeler.builder().emptyIfAbsent().structAsMap().build();
+        var item = new CountingMap(Map.of("name", 1));
+        var source = Map.of(
+                "byName", new TreeMap<>(Map.of(1, item, 2, Map.of("name", "b"))),
+                "ids", List.of("1", 2L)
+        );
+        var struct = (LazyStruct) requireNonNull(modeler.processAsLazyModeled(schema, source).value());
+
+        var byName = (Map<?, ?>) requireNonNull(struct.get(schema.field("byName")));
+        assertInstanceOf(LazyStruct.LazyMap.class, byName);
+        assertEquals(2, byName.size());
+        assertTrue(byName.containsKey("1"));
+        assertFalse(byName.containsKey(1));
+        assertNull(byName.get("3"));
+        assertTrue(item.accessed.isEmpty());
+
+        var first = (LazyStruct) requireNonNull(byName.get("1"));
+        assertSame(first, byName.get("1"));
+        assertTrue(item.accessed.isEmpty());
+        assertEquals("1", first.get(first.schema().field("name")));
+        assertEquals(List.of("name"), item.accessed);
+        assertEquals(Set.of("1", "2"), byName.keySet());
+
+        var ids = (List<?>) requireNonNull(struct.get(schema.field("ids")));
+        assertInstanceOf(LazyStruct.LazyList.class, ids);
+        assertEquals(List.of(1, 2), ids);
+
+        var eager = modeler.processAsModeled(schema, source);
+        var lazy = modeler.processAsLazyModeled(schema, source);
+        assertEquals(ModeledValueCodecTest.JSON.stringify(eager),
+                ModeledValueCodecTest.JSON.stringify(lazy));
+        assertEquals(ModeledValueCodecTest.JSON.stringify(modeler.processAsModeled(schema, null)),
+                ModeledValueCodecTest.JSON.stringify(modeler.processAsLazyModeled(schema, null)));
+    }
+
+    @Test
+    void plan() {
+        var modeler = Modeler.builder().emptyIfAbsent().structAsList().build();
+        var plan = modeler.compileLazy(Schema.parse("list<struct<id:int>>"));
+        assertTrue(plan.isLazy());
+        assertFalse(modeler.compile(S_DEMO).isLazy());
+
+        var list = (List<?>) plan.process(List.of(Map.of("id", "1"), Map.of("id", 2L)));
+        assertNotNull(list);
+        assertInstanceOf(LazyStruct.class, list.get(0));
+
+        var value = plan.processAsModeled(List.of(Map.of("id", "1")));
+        assertEquals("[{\"id\":1}]", ModeledValueCodecTest.JSON.stringify(value));
+    }
+}
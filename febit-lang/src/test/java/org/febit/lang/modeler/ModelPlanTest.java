@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.febit.lang.modeler.TestSchemas.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelPlanTest {
+
+    static final ZonedDateTime TIME = ZonedDateTime.parse("2022-01-23T02:03:56+07:00");
+
+    private static void assertSameAsProcess(Modeler modeler, Schema schema, Object source) {
+        var plan = modeler.compile(schema);
+        assertSame(schema, plan.getSchema());
+        assertSame(modeler, plan.getModeler());
+        assertEquals(modeler.process(schema, source), plan.process(source));
+        assertEquals(modeler.process(schema, null), plan.process(null));
+    }
+
+    @Test
+    void complex() {
+        var source = ModelerComplexTest.complexSource(TIME);
+        for (var modeler : List.of(
+                Modeler.builder().emptyStrictIfAbsent().structAsList().build(),
+                Modeler.builder().emptyIfAbsent().structAsMap().build(),
+                Modeler.builder().nullIfAbsent().structAsMap().build()
+        )) {
+            assertSameAsProcess(modeler, ModelerComplexTest.S_COMPLEX, source);
+        }
+    }
+
+    @Test
+    void scalars() {
+        var modeler = Modeler.builder().emptyIfAbsent().build();
+        assertSameAsProcess(modeler, S_INT, "123");
+        assertSameAsProcess(modeler, S_INT, 123L);
+        assertSameAsProcess(modeler, S_INT, 'a');
+        assertSameAsProcess(modeler, S_LONG, 12.5D);
+        assertSameAsProcess(modeler, S_LONG, " ");
+        assertSameAsProcess(modeler, S_SHORT, 3);
+        assertSameAsProcess(modeler, S_BYTE, "7");
+        assertSameAsProcess(modeler, S_FLOAT, "1.5");
+        assertSameAsProcess(modeler, S_DOUBLE, 1);
+        assertSameAsProcess(modeler, S_DECIMAL, 1.25D);
+        assertSameAsProcess(modeler, S_BOOLEAN, "yes");
+        assertSameAsProcess(modeler, S_BOOLEAN, 1);
+        assertSameAsProcess(modeler, S_STRING, 12);
+        assertSameAsProcess(modeler, S_OPTIONAL_STRING, 12);
+        assertSameAsProcess(modeler, S_INSTANT, TIME);
+        assertSameAsProcess(modeler, S_DATETIME_ZONED, TIME.toString());
+        assertSameAsProcess(modeler, S_LIST_STRING, new int[]{1, 2});
+        assertSameAsProcess(modeler, S_MAP_INSTANT, Map.of("a", TIME));
+
+        var plan = modeler.compile(S_BYTES);
+        assertArrayEquals("abc".getBytes(), (byte[]) plan.process("abc"));
+    }
+
+    @Test
+    void array() {
+        var modeler = Modeler.builder().structAsArray().build();
+        var plan = modeler.compile(Schemas.ofArray(S_STRUCT_SIMPLE));
+        var out = (Object[]) plan.process(List.of(
+                Map.of("id", "1", "name", 2),
+                Map.of("id", 3)
+        ));
+        assertNotNull(out);
+        assertEquals(2, out.length);
+        assertArrayEquals(new Object[]{1, "2"}, (Object[]) out[0]);
+        assertArrayEquals(new Object[]{3, null}, (Object[]) out[1]);
+    }
+
+    @Test
+    void unsupported() {
+        var modeler = Modeler.builder().build();
+        var plan = modeler.compile(S_RAW_STR);
+        assertNull(plan.process(null));
+        assertThrows(IllegalArgumentException.class, () -> plan.process("x"));
+
+        var modeled = modeler.compile(S_LIST_STRING).processAsModeled(Arrays.asList(1, null));
+        assertSame(S_LIST_STRING, modeled.schema());
+        assertEquals(Arrays.asList("1", null), modeled.value());
+        assertSame(modeler.getStructSpec(), modeled.structSpec());
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import org.febit.lang.jackson.JacksonCodec;
+import org.febit.lang.jackson.JacksonCodecImpl;
+import org.febit.lang.jackson.ser.ModeledValueSerializer;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.febit.lang.modeler.TestSchemas.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModeledValueCodecTest {
+
+    static final JacksonCodec JSON = JacksonCodecImpl.ofStandard(JsonMapper.builder()
+            .addModule(new SimpleModule()
+                    .addSerializer(ModeledValue.class, ModeledValueSerializer.INSTANCE)
+            )
+    );
+
+    private static ModeledValue roundTrip(ModeledValue value) {
+        var bytes = ModeledValueCodec.encode(value);
+        return ModeledValueCodec.decode(value.schema(), value.structSpec(), bytes);
+    }
+
+    @Test
+    void complex() {
+        var source = ModelerComplexTest.complexSource(ModelPlanTest.TIME);
+        for (var modeler : List.of(
+                Modeler.builder().emptyStrictIfAbsent().structAsList().build(),
+                Modeler.builder().emptyIfAbsent().structAsMap().build(),
+                Modeler.builder().nullIfAbsent().structAsPacked().build()
+        )) {
+            var value = modeler.processAsModeled(ModelerComplexTest.S_COMPLEX, source);
+            var decoded = roundTrip(value);
+            assertEquals(value.value(), decoded.value());
+            assertSame(value.schema(), decoded.schema());
+
+            var bytes = ModeledValueCodec.encode(value);
+            var json = JSON.stringify(value).getBytes(UTF_8);
+            assertTrue(bytes.length < json.length,
+                    () -> "Binary size " + bytes.length + " should be less than JSON " + json.length);
+        }
+    }
+
+    @Test
+    void scalars() {
+        var modeler = Modeler.builder().build();
+        var zoned = ZonedDateTime.of(LocalDateTime.of(2024, 3, 10, 2, 30), ZoneId.of("America/New_York"));
+        var values = Map.<Schema, Object>of(
+                S_INT, Integer.MIN_VALUE,
+                S_LONG, -1L,
+                S_SHORT, (short) -300,
+                S_BYTE, (byte) -7,
+                S_FLOAT, -1.5F,
+                S_DOUBLE, Double.MAX_VALUE,
+                S_DECIMAL, new BigDecimal("-12345678901234567890.000123"),
+                S_INSTANT, Instant.parse("1960-01-02T03:04:05.123456789Z"),
+                S_DATETIME_ZONED, zoned,
+                S_STRING, "中文 text"
+        );
+        values.forEach((schema, value) -> {
+            var modeled = modeler.processAsModeled(schema, value);
+            assertEquals(value, roundTrip(modeled).value(), schema::toString);
+        });
+
+        var bytes = (byte[]) roundTrip(modeler.processAsModeled(S_BYTES, new byte[]{1, 2, 3})).value();
+        assertArrayEquals(new byte[]{1, 2, 3}, bytes);
+
+        assertNull(roundTrip(modeler.processAsModeled(S_INT, null)).value());
+        assertEquals(1, ModeledValueCodec.encode(modeler.processAsModeled(S_INT, null)).length);
+        assertEquals(2, ModeledValueCodec.encode(modeler.processAsModeled(S_INT, -1)).length);
+    }
+
+    @Test
+    void nullItems() {
+        var spec = StructSpecs.asArray();
+        var map = new HashMap<Object, Object>();
+        map.put("a", null);
+        map.put(null, "b");
+        var mapValue = new ModeledValue(S_MAP_STRING, map, spec);
+        assertEquals(map, roundTrip(mapValue).value());
+
+        var list = Arrays.asList("a", null, "c");
+        assertEquals(list, roundTrip(new ModeledValue(S_LIST_STRING, list, spec)).value());
+
+        var array = new Object[]{null, "x"};
+        assertArrayEquals(array, (Object[]) roundTrip(new ModeledValue(S_ARRAY_STR, array, spec)).value());
+
+        var struct = new Object[]{null, "name"};
+        assertArrayEquals(struct, (Object[]) roundTrip(new ModeledValue(S_STRUCT_SIMPLE, struct, spec)).value());
+    }
+
+    @Test
+    void streams() throws IOException {
+        var modeler = Modeler.builder().structAsMap().build();
+        var out = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i++) {
+            ModeledValueCodec.encode(modeler.processAsModeled(S_STRUCT_SIMPLE, Map.of("id", i, "name", "n" + i)), out);
+        }
+        var bytes = out.toByteArray();
+
+        var in = new ByteArrayInputStream(bytes);
+        var buffer = ByteBuffer.wrap(bytes);
+        for (int i = 0; i < 10; i++) {
+            var expected = Map.of("id", i, "name", "n" + i);
+            assertEquals(expected, ModeledValueCodec.decode(S_STRUCT_SIMPLE, modeler.getStructSpec(), in).value());
+            assertEquals(expected, ModeledValueCodec.decode(S_STRUCT_SIMPLE, modeler.getStructSpec(), buffer).value());
+        }
+        assertEquals(-1, in.read());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void errors() {
+        var modeler = Modeler.builder().build();
+        var spec = modeler.getStructSpec();
+        var bytes = ModeledValueCodec.encode(modeler.processAsModeled(S_STRING, "hello"));
+        var truncated = Arrays.copyOf(bytes, bytes.length - 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ModeledValueCodec.decode(S_STRING, spec, truncated));
+        var in = new ByteArrayInputStream(truncated);
+        assertThrows(UncheckedIOException.class,
+                () -> ModeledValueCodec.decode(S_STRING, spec, in));
+
+        var raw = new ModeledValue(S_RAW_STR, "x", spec);
+        assertThrows(IllegalArgumentException.class, () -> ModeledValueCodec.encode(raw));
+    }
+
+    @Test
+    void corruptedLength() {
+        var spec = Modeler.builder().build().getStructSpec();
+        // present marker, then a length of 0x7FFFFFF0 with nothing behind it
+        var bytes = new byte[]{1, (byte) 0xF0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'x'};
+
+        for (var schema : List.of(S_STRING, S_LIST_STRING, S_MAP_STRING)) {
+            var error = assertThrows(IllegalArgumentException.class,
+                    () -> ModeledValueCodec.decode(schema, spec, bytes));
+            assertTrue(error.getMessage().startsWith("Illegal length"), error.getMessage());
+
+            var in = new ByteArrayInputStream(bytes);
+            assertThrows(UncheckedIOException.class,
+                    () -> ModeledValueCodec.decode(schema, spec, in));
+        }
+    }
+}
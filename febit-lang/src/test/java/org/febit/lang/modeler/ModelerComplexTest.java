@@ -64,6 +64,33 @@ class ModelerComplexTest {
         return map;
     }
 
+    static Map<Object, Object> complexSource(ZonedDateTime time) {
+        return map(
+                "id", 1234L,
+                "name", "Mr.X",
+                "strings", list(1, 2D, "345", 'a'),
+                "longMap", map(1, 1, "2", 2L, "NULL", null),
+                "optionalStringMap", map(1, 1, "2", 2L, "NULL", null),
+                "session", map("id", 1, "du", 2L),
+                "events", list(
+                        map("name", 1, "du", 2L, "ts", 3, "flag", true),
+                        map("name", "2", "du", 2L, "attrs", map(1, 1, "2", 2L, "NULL", null)),
+                        map("struct", map("xx", "yy"))
+                ),
+                "times", list(
+                        map(),
+                        map(
+                                "time", time.toLocalTime().toString(),
+                                "date", time.toLocalDate(),
+                                "dt", time.toLocalDateTime(),
+                                "instant", time,
+                                "dtz", time.toString()
+                        )
+                ),
+                "unused", "unused2"
+        );
+    }
+
     @Test
     void testConvertComplex() {
         var time = ZonedDateTime.parse("2022-01-23T02:03:56+07:00");
@@ -72,30 +99,7 @@ class ModelerComplexTest {
         var out = (List<Object>) Modeler.builder()
                 .emptyStrictIfAbsent()
                 .structAsList()
-                .process(S_COMPLEX, map(
-                        "id", 1234L,
-                        "name", "Mr.X",
-                        "strings", list(1, 2D, "345", 'a'),
-                        "longMap", map(1, 1, "2", 2L, "NULL", null),
-                        "optionalStringMap", map(1, 1, "2", 2L, "NULL", null),
-                        "session", map("id", 1, "du", 2L),
-                        "events", list(
-                                map("name", 1, "du", 2L, "ts", 3, "flag", true),
-                                map("name", "2", "du", 2L, "attrs", map(1, 1, "2", 2L, "NULL", null)),
-                                map("struct", map("xx", "yy"))
-                        ),
-                        "times", list(
-                                map(),
-                                map(
-                                        "time", time.toLocalTime().toString(),
-                                        "date", time.toLocalDate(),
-                                        "dt", time.toLocalDateTime(),
-                                        "instant", time,
-                                        "dtz", time.toString()
-                                )
-                        ),
-                        "unused", "unused2"
-                ));
+                .process(S_COMPLEX, complexSource(time));
 
         assertEquals(list(
                 // 0 id
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import org.febit.lang.jackson.JacksonUtils;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelerJsonReaderTest {
+
+    static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+    private static Object process(Modeler modeler, Schema schema, String json) {
+        try (var parser = MAPPER.createParser(json)) {
+            var result = modeler.processJson(schema, parser);
+            assertNull(parser.nextToken(), "Should stop at the end of value");
+            return result;
+        }
+    }
+
+    @Test
+    void sameAsProcessMap() {
+        var source = ModelerComplexTest.complexSource(ModelPlanTest.TIME);
+        var json = JacksonUtils.jsonify(source);
+        for (var modeler : List.of(
+                Modeler.builder().emptyStrictIfAbsent().structAsList().build(),
+                Modeler.builder().emptyIfAbsent().structAsMap().build(),
+                Modeler.builder().nullIfAbsent().structAsArray().build()
+        )) {
+            var expected = modeler.process(ModelerComplexTest.S_COMPLEX, JacksonUtils.parseToMap(json));
+            var actual = process(modeler, ModelerComplexTest.S_COMPLEX, json);
+            assertEquals(JacksonUtils.jsonify(expected), JacksonUtils.jsonify(actual));
+        }
+    }
+
+    @Test
+    void skipUnknownFields() {
+        var schema = Schema.parseStruct("demo",
+                "int id",
+                "string name",
+                "decimal amount",
+                "optional<long> ts"
+        );
+        var modeler = Modeler.builder().structAsMap().build();
+        var out = process(modeler, schema, """
+                {
+                  "unknown": {"a": [1, 2, {"b": null}]},
+                  "id": "12",
+                  "other": [1, [2]],
+                  "name": 3,
+                  "amount": 0.10000000000000000001,
+                  "id": 13
+                }
+                """);
+        var expected = new HashMap<String, Object>();
+        expected.put("id", 13);
+        expected.put("name", "3");
+        expected.put("amount", new BigDecimal("0.10000000000000000001"));
+        expected.put("ts", null);
+        assertEquals(expected, out);
+    }
+
+    @Test
+    void scalarsFromTokens() {
+        var modeler = Modeler.builder().build();
+        // 1.00000017881393432617187499 rounds differently as float directly, and through double
+        var numbers = "[1, -2, 3.7, -3.7, 300, 4294967297, 99999999999999999999, 1e40, 1.00000017881393432617187499,"
+                + " \"5\", null]";
+        for (var type : List.of("boolean", "byte", "short", "int", "long", "float", "double")) {
+            var schema = Schema.parse("list<" + type + ">");
+            var expected = modeler.process(schema, JacksonUtils.parseToList(numbers));
+            assertEquals(expected, process(modeler, schema, numbers), type);
+        }
+
+        var booleans = "[true, false, 1, 0, \"true\", \"no\", null]";
+        var schema = Schema.parse("list<boolean>");
+        assertEquals(Arrays.asList(true, false, true, false, true, false, null), process(modeler, schema, booleans));
+    }
+
+    @Test
+    void positioned() {
+        var schema = Schema.parse("map<string,list<int>>");
+        var modeler = Modeler.builder().build();
+        try (var parser = MAPPER.createParser("[{\"a\":[1,\"2\"]}, null, 3]")) {
+            assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+            assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+            assertEquals(Map.of("a", List.of(1, 2)), modeler.processJson(schema, parser));
+            assertEquals(JsonToken.VALUE_NULL, parser.nextToken());
+            assertNull(modeler.processJson(schema, parser));
+            assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+            assertThrows(JacksonException.class, () -> modeler.processJson(schema, parser));
+        }
+        try (var parser = MAPPER.createParser("")) {
+            assertNull(modeler.processJson(schema, parser));
+        }
+    }
+}
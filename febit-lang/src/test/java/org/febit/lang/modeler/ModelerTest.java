@@ -28,6 +28,9 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.febit.lang.modeler.TestSchemas.S_ARRAY_STR;
@@ -126,4 +129,42 @@ class ModelerTest {
                 (Object[]) modeler.process(S_ARRAY_STR, List.of(1, "2", 3, 4))
         );
     }
+
+    @Test
+    void process_parallel() {
+        var pool = new ForkJoinPool(4);
+        try {
+            var sequential = Modeler.builder().build();
+            var parallel = Modeler.builder()
+                    .parallel(pool)
+                    .parallelThreshold(16)
+                    .build();
+            assertSame(pool, parallel.getParallelPool());
+            assertNull(sequential.getParallelPool());
+            assertEquals(Modeler.DEFAULT_PARALLEL_THRESHOLD, sequential.getParallelThreshold());
+
+            var list = IntStream.range(0, 5000).boxed().toList();
+            var map = IntStream.range(0, 3000).boxed()
+                    .collect(Collectors.toMap(i -> i, i -> (long) i));
+            var nested = Schema.parse("list<struct<id:string,items:list<string>>>");
+            var nestedSource = IntStream.range(0, 100)
+                    .mapToObj(i -> Map.of("id", i, "items", list.subList(0, i)))
+                    .toList();
+
+            assertEquals(sequential.process(S_LIST_STRING, list), parallel.process(S_LIST_STRING, list));
+            assertArrayEquals((Object[]) sequential.process(S_ARRAY_STR, list),
+                    (Object[]) parallel.process(S_ARRAY_STR, list));
+            assertEquals(sequential.process(S_MAP_STRING, map), parallel.process(S_MAP_STRING, map));
+            assertEquals(sequential.process(nested, nestedSource), parallel.process(nested, nestedSource));
+
+            assertEquals(sequential.process(S_LIST_STRING, list), parallel.compile(S_LIST_STRING).process(list));
+            assertEquals(sequential.process(S_MAP_STRING, map), parallel.compile(S_MAP_STRING).process(map));
+            assertEquals(sequential.process(nested, nestedSource), parallel.compile(nested).process(nestedSource));
+
+            // below threshold
+            assertEquals(List.of("1", "2"), parallel.process(S_LIST_STRING, List.of(1, 2)));
+        } finally {
+            pool.shutdown();
+        }
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedStructTest {
+
+    static final Schema SCHEMA = Schema.parseStruct("demo",
+            "boolean flag",
+            "byte b",
+            "short s",
+            "int i",
+            "long l",
+            "float f",
+            "double d",
+            "optional<long> ol",
+            "string name",
+            "list<int> ints"
+    );
+
+    final Modeler modeler = Modeler.builder()
+            .structAsPacked()
+            .build();
+
+    private static Schema.Field field(String name) {
+        return SCHEMA.field(name);
+    }
+
+    @Test
+    void typedAccessors() {
+        var source = new HashMap<String, Object>();
+        source.put("flag", "yes");
+        source.put("b", 1);
+        source.put("s", 2);
+        source.put("i", "3");
+        source.put("l", 4L);
+        source.put("f", 1.5F);
+        source.put("d", 2.25D);
+        source.put("ol", null);
+        source.put("name", "x");
+        source.put("ints", List.of(1, 2));
+
+        var struct = (PackedStruct) modeler.process(SCHEMA, source);
+        assertNotNull(struct);
+        assertSame(SCHEMA, struct.schema());
+
+        assertTrue(struct.getBoolean(field("flag")));
+        assertEquals(1, struct.getInt(field("b")));
+        assertEquals(2, struct.getInt(field("s")));
+        assertEquals(3, struct.getInt(field("i")));
+        assertEquals(4L, struct.getLong(field("l")));
+        assertEquals(1.5D, struct.getDouble(field("f")));
+        assertEquals(2.25D, struct.getDouble(field("d")));
+        assertEquals(3D, struct.getDouble(field("i")));
+        assertEquals(3L, struct.getLong(field("i")));
+
+        assertTrue(struct.isNull(field("ol")));
+        assertEquals(0L, struct.getLong(field("ol")));
+        assertNull(struct.get(field("ol")));
+
+        assertTrue(struct.isPrimitive(field("d")));
+        assertFalse(struct.isPrimitive(field("name")));
+        assertEquals("x", struct.get(field("name")));
+        assertEquals(List.of(1, 2), struct.get(field("ints")));
+
+        assertThrows(UnsupportedOperationException.class, () -> struct.getInt(field("l")));
+        assertThrows(UnsupportedOperationException.class, () -> struct.getLong(field("d")));
+        assertThrows(UnsupportedOperationException.class, () -> struct.getDouble(field("name")));
+        assertThrows(UnsupportedOperationException.class, () -> struct.getBoolean(field("i")));
+    }
+
+    @Test
+    void boxedSameAsArray() {
+        var source = Map.of(
+                "flag", true,
+                "b", 1,
+                "s", 2,
+                "i", 3,
+                "l", 4L,
+                "f", 1.5F,
+                "d", 2.25D,
+                "ol", 5,
+                "name", "x"
+        );
+        var struct = (PackedStruct) modeler.process(SCHEMA, source);
+        var array = (Object[]) Modeler.builder()
+                .structAsArray()
+                .process(SCHEMA, source);
+        assertNotNull(struct);
+        assertNotNull(array);
+        var spec = StructSpecs.asPacked();
+        for (var field : SCHEMA.fields()) {
+            assertEquals(array[field.pos()], spec.get(struct, field), field::name);
+        }
+        assertEquals(struct, modeler.process(SCHEMA, source));
+        assertEquals(struct.hashCode(), modeler.process(SCHEMA, source).hashCode());
+        assertEquals("{flag=true, b=1, s=2, i=3, l=4, f=1.5, d=2.25, ol=5, name=x, ints=null}",
+                struct.toString());
+    }
+
+    @Test
+    void nullsByDefault() {
+        var spec = StructSpecs.asPacked();
+        var struct = spec.build(SCHEMA, spec.builder(SCHEMA));
+        for (var field : SCHEMA.fields()) {
+            assertTrue(struct.isNull(field), field::name);
+            assertNull(struct.get(field), field::name);
+        }
+        spec.set(struct, field("i"), 0);
+        assertFalse(struct.isNull(field("i")));
+        assertEquals(0, struct.get(field("i")));
+        spec.set(struct, field("i"), null);
+        assertTrue(struct.isNull(field("i")));
+    }
+
+    @Test
+    void wide() {
+        var builder = Schemas.newStruct();
+        for (int i = 0; i < 100; i++) {
+            builder.field("f" + i, TestSchemas.S_LONG);
+        }
+        var schema = builder.build();
+        var source = new HashMap<String, Object>();
+        for (int i = 0; i < 100; i += 2) {
+            source.put("f" + i, i);
+        }
+        var struct = (PackedStruct) Modeler.builder()
+                .structAsPacked()
+                .process(schema, source);
+        assertNotNull(struct);
+        for (int i = 0; i < 100; i++) {
+            var field = schema.field("f" + i);
+            assertEquals(i % 2 != 0, struct.isNull(field), field::name);
+            assertEquals(i % 2 == 0 ? i : 0, struct.getLong(field));
+        }
+    }
+}
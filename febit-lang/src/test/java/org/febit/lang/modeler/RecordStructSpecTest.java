@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordStructSpecTest {
+
+    static final String[] DEMO_LINES = {
+            "int id\n",
+            "string name\n",
+            "optional<struct<k:string,v:int>> inner\n",
+            "list<struct<k:string,v:int>> items\n",
+            "map<string,struct<k:string,v:int>> byKey\n"
+    };
+
+    static final Schema S_DEMO = Schema.parseStruct("demo", DEMO_LINES);
+
+    record Demo(
+            int id,
+            @Nullable String name,
+            @Nullable Inner inner,
+            List<Inner> items,
+            Map<String, Inner> byKey,
+            double ratio
+    ) {
+    }
+
+    record Inner(@Nullable String k, long v) {
+    }
+
+    static final Map<String, Object> SOURCE = Map.of(
+            "id", "12",
+            "name", "demo",
+            "items", List.of(Map.of("k", "a", "v", 1), Map.of("k", "b")),
+            "byKey", Map.of("x", Map.of("k", "x", "v", "3"))
+    );
+
+    @Test
+    void process() {
+        var modeler = Modeler.builder()
+                .emptyIfAbsent()
+                .structAsRecord(S_DEMO, Demo.class)
+                .build();
+
+        var demo = (Demo) modeler.process(S_DEMO, SOURCE);
+        assertEquals(new Demo(12, "demo", null,
+                List.of(new Inner("a", 1), new Inner("b", 0)),
+                Map.of("x", new Inner("x", 3)),
+                0D
+        ), demo);
+
+        var empty = (Demo) modeler.process(S_DEMO, null);
+        assertNotNull(empty);
+        assertEquals(0, empty.id());
+        assertEquals(List.of(), empty.items());
+
+        var plan = modeler.compile(S_DEMO);
+        assertEquals(demo, plan.process(SOURCE));
+    }
+
+    @Test
+    void serialize() {
+        var modeler = Modeler.builder()
+                .emptyIfAbsent()
+                .structAsRecord(S_DEMO, Demo.class)
+                .build();
+        var expected = Modeler.builder()
+                .emptyIfAbsent()
+                .structAsMap()
+                .build()
+                .processAsModeled(S_DEMO, SOURCE);
+
+        var value = modeler.processAsModeled(S_DEMO, SOURCE);
+        assertEquals(ModeledValueCodecTest.JSON.stringify(expected),
+                ModeledValueCodecTest.JSON.stringify(value));
+
+        var spec = StructSpecs.asRecord(S_DEMO, Demo.class);
+        assertEquals(12, spec.get((Demo) value.value(), S_DEMO.field("id")));
+        assertEquals("demo", spec.get((Demo) value.value(), S_DEMO.field("name")));
+    }
+
+    @Test
+    void equalSchemaAndJavaSerialization() throws Exception {
+        var spec = StructSpecs.asRecord(S_DEMO, Demo.class);
+
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(spec);
+        }
+        @SuppressWarnings("unchecked")
+        var copy = (StructSpec<Record, Object>) new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        // Another instance of an equal schema
+        var schema = Schema.parseStruct("demo", DEMO_LINES);
+        assertNotSame(S_DEMO, schema);
+        var builder = copy.builder(schema);
+        copy.set(builder, schema.field("id"), 7);
+        var demo = (Demo) copy.build(schema, builder);
+        assertEquals(7, demo.id());
+        assertEquals(7, copy.get(demo, S_DEMO.field("id")));
+    }
+
+    record Partial(int id) {
+    }
+
+    @Test
+    void illegal() {
+        assertThrows(IllegalArgumentException.class,
+                () -> StructSpecs.asRecord(S_DEMO, Partial.class));
+        assertThrows(IllegalArgumentException.class,
+                () -> StructSpecs.asRecord(Schema.parseStruct("x", "struct<id:int> inner"), Partial.class));
+
+        var spec = StructSpecs.asRecord(Schema.parseStruct("x", "int id"), Partial.class);
+        assertThrows(IllegalArgumentException.class,
+                () -> spec.builder(Schema.parseStruct("y", "string id")));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaProjectionTest {
+
+    static final Schema WRITER = Schema.parseStruct("demo",
+            "int id\n",
+            "string name\n",
+            "long ts\n",
+            "list<struct<k:string,v:int>> entries\n",
+            "map<string,int> counts\n"
+    );
+
+    static final Schema READER = Schema.parseStruct("demo",
+            "optional<double> ts\n",
+            "long id\n",
+            "list<struct<v:long,extra:string>> entries\n",
+            "map<string,decimal> counts\n",
+            "list<string> tags\n"
+    );
+
+    static final Map<String, Object> SOURCE = Map.of(
+            "id", 1,
+            "name", "n",
+            "ts", 1000L,
+            "entries", List.of(Map.of("k", "a", "v", 2)),
+            "counts", Map.of("x", 3)
+    );
+
+    @Test
+    void specs() {
+        var projection = SchemaProjection.of(WRITER, READER);
+        assertSame(WRITER, projection.getWriter());
+        assertSame(READER, projection.getReader());
+        assertFalse(projection.isIdentity());
+
+        for (var modeler : List.of(
+                Modeler.builder().nullIfAbsent().structAsArray().build(),
+                Modeler.builder().nullIfAbsent().structAsList().build(),
+                Modeler.builder().nullIfAbsent().structAsMap().build(),
+                Modeler.builder().nullIfAbsent().structAsPacked().build()
+        )) {
+            var written = modeler.processAsModeled(WRITER, SOURCE);
+            var projected = projection.project(written);
+            var expected = modeler.processAsModeled(READER, SOURCE);
+
+            assertSame(READER, projected.schema());
+            assertEquals(ModeledValueCodecTest.JSON.stringify(expected),
+                    ModeledValueCodecTest.JSON.stringify(projected));
+        }
+    }
+
+    @Test
+    void defaults() {
+        var modeler = Modeler.builder().emptyIfAbsent().structAsMap().build();
+        var projection = SchemaProjection.of(WRITER, READER, modeler);
+        @SuppressWarnings("unchecked")
+        var projected = (Map<String, Object>) projection.project(StructSpecs.asMap(),
+                modeler.process(WRITER, SOURCE));
+        assertNotNull(projected);
+        assertEquals(List.of(), projected.get("tags"));
+        assertEquals(1000D, projected.get("ts"));
+        assertEquals(1L, projected.get("id"));
+        assertEquals(Map.of("x", BigDecimal.valueOf(3)), projected.get("counts"));
+        assertEquals(List.of(Map.of("v", 2L, "extra", "")), projected.get("entries"));
+
+        assertNull(projection.project(StructSpecs.asMap(), null));
+    }
+
+    @Test
+    void optionalToRequired() {
+        var writer = Schema.parseStruct("x", "optional<int> id", "optional<string> name");
+        var reader = Schema.parseStruct("x", "long id", "string name");
+        var struct = new Object[]{null, null};
+
+        var modeler = Modeler.builder().emptyIfAbsent().structAsArray().build();
+        var projection = SchemaProjection.of(writer, reader, modeler);
+        assertArrayEquals(new Object[]{0L, ""},
+                (Object[]) projection.project(StructSpecs.asArray(), struct));
+        assertArrayEquals(new Object[]{2L, "n"},
+                (Object[]) projection.project(StructSpecs.asArray(), new Object[]{2, "n"}));
+
+        var sameTypes = SchemaProjection.of(writer, Schema.parseStruct("x", "int id", "string name"), modeler);
+        assertFalse(sameTypes.isIdentity());
+        assertArrayEquals(new Object[]{0, ""},
+                (Object[]) sameTypes.project(StructSpecs.asArray(), struct));
+
+        assertArrayEquals(new Object[]{null, null},
+                (Object[]) SchemaProjection.of(writer, reader).project(StructSpecs.asArray(), struct));
+    }
+
+    @Test
+    void identity() {
+        var projection = SchemaProjection.of(WRITER, Schema.parse(WRITER.toTypeString()));
+        assertTrue(projection.isIdentity());
+        var struct = new Object[]{1, "n", 2L, null, null};
+        assertSame(struct, projection.project(StructSpecs.asArray(), struct));
+
+        var dropped = SchemaProjection.of(WRITER, Schema.parseStruct("x", "string name"));
+        assertFalse(dropped.isIdentity());
+        assertArrayEquals(new Object[]{"n"},
+                (Object[]) dropped.project(StructSpecs.asArray(), struct));
+    }
+
+    @Test
+    void incompatible() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SchemaProjection.of(WRITER, Schema.parseStruct("x", "int name")));
+        assertThrows(IllegalArgumentException.class,
+                () -> SchemaProjection.of(WRITER, Schema.parseStruct("x", "int ts")));
+        assertThrows(IllegalArgumentException.class,
+                () -> SchemaProjection.of(WRITER, Schema.parse("list<int>")));
+        assertThrows(IllegalArgumentException.class,
+                () -> SchemaProjection.of(WRITER, Schema.parseStruct("x", "short id")));
+        assertThrows(IllegalArgumentException.class,
+                () -> SchemaProjection.of(Schema.parseStruct("x", "decimal v"), Schema.parseStruct("x", "double v")));
+        assertThrows(IllegalArgumentException.class,
+                () -> SchemaProjection.of(Schema.parseStruct("x", "json<int> v"),
+                        Schema.parseStruct("x", "json<long> v")));
+        assertThrows(IllegalArgumentException.class,
+                () -> SchemaProjection.of(Schema.parseStruct("x", "enum<string> v"),
+                        Schema.parseStruct("x", "enum<int> v")));
+        assertTrue(SchemaProjection.of(Schema.parseStruct("x", "json<int> v"), Schema.parseStruct("x", "json<int> v"))
+                .isIdentity());
+
+        var projection = SchemaProjection.of(WRITER, READER);
+        var other = Modeler.builder().build().processAsModeled(READER, SOURCE);
+        assertThrows(IllegalArgumentException.class, () -> projection.project(other));
+    }
+}
@@ -204,4 +204,27 @@ class SchemasTest {
 
         assertEquals("struct<id:int,name:string>", Schema.parse("struct<id:int,name:string>").toTypeString());
     }
+
+    @Test
+    void sharing() {
+        assertSame(Schemas.ofPrimitive(INT), Schemas.ofPrimitive(INT));
+        assertSame(Schema.parse("int"), Schema.parse("integer"));
+        assertSame(Schemas.ofPrimitive(INT), Schema.parse("int32"));
+
+        var list = Schemas.ofList(Schemas.ofPrimitive(STRING));
+        assertSame(list, Schemas.ofList(Schemas.ofPrimitive(STRING)));
+        assertSame(list, Schema.parse("list<string>"));
+        assertSame(list, Schema.parse("list: varchar"));
+
+        var map = Schemas.ofMap(Schemas.ofPrimitive(STRING), list);
+        assertSame(map, Schema.parse("map<string,list<string>>"));
+        assertSame(map, Schemas.ofMap(list));
+        assertNotSame(map, Schemas.ofMap(Schemas.ofPrimitive(INT), list));
+
+        var struct = "struct<id:int,tags:list<string>>";
+        assertSame(Schema.parse(struct), Schema.parse(struct));
+        assertSame(list, Schema.parse(struct).field("tags").schema());
+        assertNotSame(Schema.parse(struct), Schema.parse("demo", "x", struct));
+        assertEquals(Schema.parse(struct).toTypeString(), Schema.parse("demo", "x", struct).toTypeString());
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.modeler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructBatchTest {
+
+    static final Schema SCHEMA = Schema.parseStruct("demo",
+            "int id",
+            "long count",
+            "double score",
+            "boolean flag",
+            "optional<int> rank",
+            "string name"
+    );
+
+    static final Schema.Field ID = SCHEMA.field("id");
+    static final Schema.Field COUNT = SCHEMA.field("count");
+    static final Schema.Field SCORE = SCHEMA.field("score");
+    static final Schema.Field FLAG = SCHEMA.field("flag");
+    static final Schema.Field RANK = SCHEMA.field("rank");
+    static final Schema.Field NAME = SCHEMA.field("name");
+
+    private static List<Object> rows() {
+        var second = new HashMap<String, Object>();
+        second.put("id", "2");
+        second.put("rank", null);
+        return Arrays.asList(
+                Map.of("id", 1, "count", 10L, "score", 1.5, "flag", true, "rank", 3, "name", "a"),
+                second,
+                null
+        );
+    }
+
+    @Test
+    void columns() {
+        var modeler = Modeler.builder().build();
+        var batch = modeler.processBatch(SCHEMA, rows());
+
+        assertSame(SCHEMA, batch.getSchema());
+        assertEquals(3, batch.getSize());
+
+        assertEquals(1, batch.getInt(0, ID));
+        assertEquals(10L, batch.getLong(0, COUNT));
+        assertEquals(1.5, batch.getDouble(0, SCORE));
+        assertTrue(batch.getBoolean(0, FLAG));
+        assertEquals(3, batch.getInt(0, RANK));
+        assertEquals("a", batch.get(0, NAME));
+
+        assertEquals(2, batch.getInt(1, ID));
+        assertTrue(batch.isNull(1, COUNT));
+        assertEquals(0L, batch.getLong(1, COUNT));
+        assertTrue(batch.isNull(1, RANK));
+        assertNull(batch.get(1, RANK));
+        assertFalse(batch.getBoolean(1, FLAG));
+
+        assertTrue(batch.isNullRow(2));
+        assertTrue(batch.isNull(2, ID));
+        assertNull(batch.get(2, NAME));
+
+        // widening
+        assertEquals(1L, batch.getLong(0, ID));
+        assertEquals(10D, batch.getDouble(0, COUNT));
+        assertThrows(UnsupportedOperationException.class, () -> batch.getInt(0, NAME));
+        assertThrows(UnsupportedOperationException.class, () -> batch.getInt(0, COUNT));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.get(3, ID));
+    }
+
+    @Test
+    void sameAsProcess() {
+        var modeler = Modeler.builder().emptyIfAbsent().structAsMap().build();
+        var rows = rows();
+        var batch = modeler.processBatch(SCHEMA, rows);
+
+        assertFalse(batch.isNullRow(2));
+        var spec = StructBatch.rowSpec();
+        var iter = batch.rows();
+        for (var row : rows) {
+            @SuppressWarnings("unchecked")
+            var expected = (Map<String, Object>) modeler.process(SCHEMA, row);
+            assertNotNull(expected);
+            var view = iter.next();
+            for (var field : SCHEMA.fields()) {
+                assertEquals(expected.get(field.name()), spec.get(view, field), field::name);
+            }
+        }
+        assertFalse(iter.hasNext());
+    }
+
+    @Test
+    void growing() {
+        var modeler = Modeler.builder().build();
+        var total = 1000;
+        var rows = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < total; i++) {
+            rows.add(Map.of("id", i, "flag", i % 2 == 0, "score", i / 2D));
+        }
+        // Not a collection, capacity is unknown
+        Iterable<Map<String, Object>> iterable = rows::iterator;
+        var batch = modeler.processBatch(SCHEMA, iterable);
+        assertEquals(total, batch.getSize());
+        for (int i = 0; i < total; i++) {
+            var row = batch.row(i);
+            assertEquals(i, row.index());
+            assertEquals(i, row.getInt(ID));
+            assertEquals(i % 2 == 0, row.getBoolean(FLAG));
+            assertEquals(i / 2D, row.getDouble(SCORE));
+            assertTrue(row.isNull(COUNT));
+        }
+    }
+
+    @Test
+    void notStruct() {
+        var modeler = Modeler.builder().build();
+        var rows = List.of();
+        var schema = TestSchemas.S_INT;
+        assertThrows(IllegalArgumentException.class, () -> modeler.processBatch(schema, rows));
+    }
+}
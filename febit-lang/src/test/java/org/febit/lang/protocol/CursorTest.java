@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.lang.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorTest {
+
+    @Test
+    void first() {
+        var cursor = Cursor.first(20);
+        assertNull(cursor.getToken());
+        assertEquals(20, cursor.getSize());
+        assertTrue(cursor.isFirst());
+    }
+
+    @Test
+    void next() {
+        var cursor = Cursor.first(20).next("id:100");
+        assertEquals("id:100", cursor.getToken());
+        assertEquals(20, cursor.getSize());
+        assertFalse(cursor.isFirst());
+        assertEquals(Cursor.of("id:100", 20), cursor);
+    }
+
+    @Test
+    void page() {
+        var cursor = Cursor.first(2);
+        var page = Page.of(cursor, List.of("a", "b"), "b");
+        assertEquals(List.of("a", "b"), page.getRows());
+        assertEquals(Cursor.of("b", 2), page.getNext());
+        assertEquals(Page.Meta.keyset(2), page.getMeta());
+        assertTrue(page.getMeta().isKeyset());
+        assertFalse(page.isLastPage());
+
+        var mapped = page.map(String::length);
+        assertEquals(page.getNext(), mapped.getNext());
+        assertFalse(mapped.isLastPage());
+
+        var last = Page.of(page.getNext(), List.of("c"), null);
+        assertNull(last.getNext());
+        assertTrue(last.isLastPage());
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.febit.lang.protocol;
 
+import org.febit.lang.jackson.JacksonUtils;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
@@ -123,6 +124,35 @@ class PageTest {
         assertFalse(page.isLastPage());
     }
 
+    @Test
+    void isLastPage_offsetPageWithoutPageNumber() {
+        // page=0 is not a keyset marker, rows or total decide
+        assertFalse(Page.<String>of(0, 10, 25, List.of()).isLastPage());
+        assertFalse(Page.<String>of(0, 10, 0, List.of("a")).isLastPage());
+
+        var page = new Page<String>();
+        page.setMeta(new Page.Meta());
+        page.setRows(List.of("a"));
+        assertFalse(page.isLastPage());
+    }
+
+    @Test
+    void nextOmittedFromJsonIfAbsent() {
+        var json = JacksonUtils.toJsonString(Page.of(1, 10, 25, List.of("a")));
+        assertFalse(json.contains("next"), json);
+
+        assertFalse(json.contains("keyset"), json);
+
+        var keyset = JacksonUtils.toJsonString(Page.of(Cursor.first(1), List.of("a"), "a"));
+        assertTrue(keyset.contains("\"next\""), keyset);
+        assertTrue(keyset.contains("\"keyset\":true"), keyset);
+
+        var parsed = JacksonUtils.parse(keyset, Page.class);
+        assertNotNull(parsed);
+        assertTrue(parsed.getMeta().isKeyset());
+        assertFalse(parsed.isLastPage());
+    }
+
     @Test
     void isLastPage_falseWhenMorePagesRemain() {
         // page=1, size=10, total=25 → 25 > 1*10, more pages
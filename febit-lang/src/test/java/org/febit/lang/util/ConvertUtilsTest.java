@@ -73,7 +73,8 @@ class ConvertUtilsTest {
                         1, 1L, 1.0D, 1.0F, "1", (short) 1,
                         "on", "ON", "On", "oN",
                         "yes", "YES", "YeS",
-                        'y', "y", "Y"
+                        'y', "y", "Y",
+                        " yes ", "\tOn\n", new StringBuilder("True")
                 )
                 .forEach(
                         value -> assertTrue(ConvertUtils.toBoolean(value))
@@ -165,6 +166,66 @@ class ConvertUtilsTest {
         assertEquals(Short.MIN_VALUE, ConvertUtils.toShort(Short.MIN_VALUE));
     }
 
+    @Test
+    void toPrimitiveOrDefault() {
+        assertEquals(-1L, ConvertUtils.toLongOrDefault(null, -1L));
+        assertEquals(-1L, ConvertUtils.toLongOrDefault(" ", -1L));
+        assertEquals(-1, ConvertUtils.toIntOrDefault("", -1));
+        assertEquals(-1D, ConvertUtils.toDoubleOrDefault(new StringBuilder(), -1D));
+        assertEquals(-1F, ConvertUtils.toFloatOrDefault(null, -1F));
+        assertEquals((short) -1, ConvertUtils.toShortOrDefault(null, (short) -1));
+        assertEquals((byte) -1, ConvertUtils.toByteOrDefault(null, (byte) -1));
+
+        assertEquals(65L, ConvertUtils.toLongOrDefault('A', 0L));
+        assertEquals(12L, ConvertUtils.toLongOrDefault(new StringBuilder(" 12 "), 0L));
+        assertEquals(12, ConvertUtils.toIntOrDefault(new AtomicInteger(12), 0));
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.toLongOrDefault("abc", 0L));
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.toDoubleOrDefault("1.2.3", 0D));
+
+        Stream.of(
+                        "0", "-0", "+1", " 123 ", "-123", "12.5", "-12.5", ".5", "5.", "1e3", "-1.5E-3",
+                        "9223372036854775807", "9223372036854775808", "-9223372036854775809",
+                        "123456789012345678901234567890", "2147483648", "-2147483649", "65536", "300",
+                        "0.1", "0.3", "3.14159265358979", "1234567.123", "0.000000000000000000000001",
+                        "123456789.123456789", "16777217", "9007199254740993",
+                        1, -1L, 1.5D, 2.5F, new BigDecimal("1e30"), BigInteger.TEN, 'x'
+                )
+                .forEach(value -> {
+                    var msg = String.valueOf(value);
+                    assertEquals(ConvertUtils.toLong(value), ConvertUtils.toLongOrDefault(value, -1L), msg);
+                    assertEquals(ConvertUtils.toInteger(value), ConvertUtils.toIntOrDefault(value, -1), msg);
+                    assertEquals(ConvertUtils.toShort(value), ConvertUtils.toShortOrDefault(value, (short) -1), msg);
+                    assertEquals(ConvertUtils.toByte(value), ConvertUtils.toByteOrDefault(value, (byte) -1), msg);
+                    assertEquals(ConvertUtils.toDouble(value), ConvertUtils.toDoubleOrDefault(value, -1D), msg);
+                    assertEquals(ConvertUtils.toFloat(value), ConvertUtils.toFloatOrDefault(value, -1F), msg);
+                });
+    }
+
+    @Test
+    void parseRange() {
+        var text = "id=123,ratio= -0.25 ,big=12345678901234567890.5";
+        assertEquals(123, ConvertUtils.parseInt(text, 3, 6));
+        assertEquals(123L, ConvertUtils.parseLong(text, 3, 6));
+        assertEquals(-0.25D, ConvertUtils.parseDouble(text, 13, 20));
+        assertEquals(-0.25F, ConvertUtils.parseFloat(text, 13, 20));
+        assertEquals(12345678901234567890.5D, ConvertUtils.parseDouble(text, 25, text.length()));
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.parseLong(text, 25, text.length()));
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.parseInt(text, 25, text.length()));
+
+        assertEquals(Integer.MAX_VALUE, ConvertUtils.parseInt("2147483647", 0, 10));
+        assertEquals(Integer.MIN_VALUE, ConvertUtils.parseInt("-2147483648.9", 0, 13));
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.parseInt("2147483648", 0, 10));
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.parseInt("-2147483649", 0, 11));
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.parseInt("4294967296", 0, 10));
+        assertEquals(Long.MIN_VALUE, ConvertUtils.parseLong("-9223372036854775808", 0, 20));
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.parseLong("9223372036854775808", 0, 19));
+        assertEquals(12, ConvertUtils.parseInt(" 12.9 ", 0, 6));
+
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.parseInt(text, 0, 2));
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.parseLong(text, 6, 7));
+        assertThrows(NumberFormatException.class, () -> ConvertUtils.parseDouble(text, 3, 3));
+    }
+
     @Test
     void toNumber() {
         assertNull(ConvertUtils.toNumber(null));
@@ -15,6 +15,7 @@
  */
 package org.febit.lang.util;
 
+import org.febit.lang.protocol.Cursor;
 import org.febit.lang.protocol.Page;
 import org.febit.lang.protocol.Pagination;
 import org.junit.jupiter.api.Test;
@@ -22,6 +23,9 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -195,4 +199,180 @@ class PagingTest {
         var it = Paging.iterator(10, p -> Page.<String>of(1, 10, 0, Collections.emptyList()));
         assertFalse(it.hasNext());
     }
+
+    private static Page<Integer> page(Pagination p, int total) {
+        var from = (p.getPage() - 1) * p.getSize();
+        var rows = new ArrayList<Integer>();
+        for (int i = from; i < Math.min(from + p.getSize(), total); i++) {
+            rows.add(i);
+        }
+        return Page.of(p.getPage(), p.getSize(), total, rows);
+    }
+
+    @Test
+    void stream_parallel_keepsOrder() {
+        var total = 10_000;
+        var calls = new AtomicInteger();
+        var list = Paging.stream(7, p -> {
+            calls.incrementAndGet();
+            return page(p, total);
+        }).parallel().map(i -> i * 2).toList();
+
+        assertEquals(total, list.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(i * 2, list.get(i));
+        }
+        assertEquals((total + 6) / 7, calls.get());
+    }
+
+    @Test
+    void spliterator_splitsWholePagesInGrowingBatches() {
+        var spliterator = Paging.spliterator(3, p -> page(p, 20));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+
+        var first = spliterator.trySplit();
+        assertNotNull(first);
+        assertEquals(3, first.estimateSize());
+
+        var second = spliterator.trySplit();
+        assertNotNull(second);
+        assertEquals(6, second.estimateSize());
+
+        var rows = new ArrayList<Integer>();
+        assertTrue(spliterator.tryAdvance(rows::add));
+        assertEquals(List.of(9), rows);
+
+        // The rest of the current page, then following pages
+        var third = spliterator.trySplit();
+        assertNotNull(third);
+        assertEquals(10, third.estimateSize());
+        assertNull(spliterator.trySplit());
+        assertFalse(spliterator.tryAdvance(rows::add));
+    }
+
+    @Test
+    void prefetching_withTotal_fetchesInParallelAndKeepsOrder() {
+        var total = 1000;
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var calls = new AtomicInteger();
+            var inFlight = new AtomicInteger();
+            var maxInFlight = new AtomicInteger();
+            var it = Paging.prefetching(7, p -> {
+                calls.incrementAndGet();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return page(p, total);
+            }, executor, 4);
+
+            var list = Lists.collect(it);
+            assertEquals(total, list.size());
+            for (int i = 0; i < total; i++) {
+                assertEquals(i, list.get(i));
+            }
+            assertEquals((total + 6) / 7, calls.get());
+            assertTrue(maxInFlight.get() <= 4, "Too many pages in flight: " + maxInFlight.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void prefetching_withoutTotal_stopsAtEmptyPage() {
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var calls = new ArrayList<Integer>();
+            var it = Paging.prefetching(2, p -> {
+                synchronized (calls) {
+                    calls.add(p.getPage());
+                }
+                return switch (p.getPage()) {
+                    case 1 -> Page.of(1, 2, 0, List.of("a", "b"));
+                    case 2 -> Page.of(2, 2, 0, List.of("c"));
+                    case 3 -> Page.<String>of(3, 2, 0, List.of());
+                    default -> throw new AssertionError("too many calls");
+                };
+            }, executor, 4);
+            assertEquals(List.of("a", "b", "c"), Lists.collect(it));
+            assertEquals(List.of(1, 2, 3), calls);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void prefetching_propagatesApiErrors() {
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var it = Paging.<String>prefetching(2, p -> {
+                throw new IllegalStateException("broken");
+            }, executor, 2);
+            var ex = assertThrows(IllegalStateException.class, it::hasNext);
+            assertEquals("broken", ex.getMessage());
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> Paging.prefetching(2, p -> Page.empty(), executor, 0));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void prefetching_cancelsPendingOnError() {
+        var deferred = new ArrayList<Runnable>();
+        var submitted = new AtomicInteger();
+        // Runs the first two pages in place, defers following ones.
+        Executor executor = task -> {
+            if (submitted.incrementAndGet() <= 2) {
+                task.run();
+            } else {
+                deferred.add(task);
+            }
+        };
+        var calls = new ArrayList<Integer>();
+        var it = Paging.<Integer>prefetching(2, p -> {
+            calls.add(p.getPage());
+            if (p.getPage() == 2) {
+                throw new IllegalStateException("broken");
+            }
+            return page(p, 100);
+        }, executor, 4);
+
+        assertTrue(it.hasNext());
+        assertEquals(0, it.next());
+        assertTrue(it.hasNext());
+        assertEquals(1, it.next());
+        var ex = assertThrows(IllegalStateException.class, it::hasNext);
+        assertEquals("broken", ex.getMessage());
+        assertEquals(3, deferred.size());
+
+        deferred.forEach(Runnable::run);
+        assertEquals(List.of(1, 2), calls);
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    void iterateByCursor_followsNextCursor() {
+        var calls = new ArrayList<Cursor>();
+        var it = Paging.iterateByCursor(2, c -> {
+            calls.add(c);
+            return switch (calls.size()) {
+                case 1 -> Page.of(c, List.of("a", "b"), "b");
+                case 2 -> Page.of(c, List.<String>of(), "b+");
+                case 3 -> Page.of(c, List.of("c"), null);
+                default -> throw new AssertionError("too many calls");
+            };
+        });
+        assertEquals(List.of("a", "b", "c"), Lists.collect(it));
+        assertEquals(List.of(
+                Cursor.first(2),
+                Cursor.of("b", 2),
+                Cursor.of("b+", 2)
+        ), calls);
+    }
 }